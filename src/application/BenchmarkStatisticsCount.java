@@ -0,0 +1,188 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import enums.AnswerStatus;
+import fileio.StatisticsIO;
+import statistics.SpellingAttempt;
+import statistics.StatisticsAggregates;
+
+/**
+ * Times how long counting every attempt of a statistics file takes on pools of
+ * one thread up to a number of threads, so that how the count scales with the
+ * number of cores can be measured on the machine it runs on. Each pool counts
+ * once to warm up and then a number of times, of which the fastest is shown,
+ * along with how many times faster it is than one thread, and the totals of
+ * every pool are checked against those counted on one thread.
+ *
+ * Run it as "java application.BenchmarkStatisticsCount --generate 1000000 8 5"
+ * to record a million made-up attempts, the same every run, into a new
+ * statistics file and count them on up to 8 threads, best of 5. "--file" and a
+ * statistics file count an existing file instead, which is otherwise the
+ * statistics file of this kiosk. The threads default to the number of
+ * processors, and the runs to 5.
+ */
+public final class BenchmarkStatisticsCount {
+	private static final String FILE_OPTION = "--file";
+	private static final String GENERATE_OPTION = "--generate";
+	private static final int DEFAULT_RUN_COUNT = 5;
+	private static final int GENERATED_DAY_COUNT = 365;
+	private static final int GENERATED_WORD_COUNT = 2000;
+	private static final int GENERATED_TOPIC_COUNT = 20;
+	private static final int RECORD_BATCH_SIZE = 10000;
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+
+	private BenchmarkStatisticsCount() {
+	}
+
+	public static void main(String[] args) {
+		String target = FileSaveLocations.STATISTICS;
+		int first = 0;
+		if (args.length >= 2 && args[0].equals(FILE_OPTION)) {
+			target = args[1];
+			first = 2;
+		} else if (args.length >= 2 && args[0].equals(GENERATE_OPTION)) {
+			target = generateStatistics(parseCount(args[1]));
+			first = 2;
+		}
+		if (args.length > first + 2) {
+			exitWithUsage();
+		}
+		int maxThreadCount = args.length > first ? parseCount(args[first])
+				: Runtime.getRuntime().availableProcessors();
+		int runCount = args.length > first + 1 ? parseCount(args[first + 1]) : DEFAULT_RUN_COUNT;
+
+		StatisticsIO statisticsIO = new StatisticsIO(target);
+		System.out.println("Counting " + target + " on " + Runtime.getRuntime().availableProcessors()
+				+ " processors, best of " + runCount + " runs");
+		StatisticsAggregates expected = null;
+		long oneThreadNanos = 0;
+		for (int threadCount = 1; threadCount <= maxThreadCount; threadCount++) {
+			ForkJoinPool pool = new ForkJoinPool(threadCount);
+			StatisticsAggregates aggregates = statisticsIO.countAttempts(pool);
+			long bestNanos = Long.MAX_VALUE;
+			for (int run = 0; run < runCount; run++) {
+				long startNanos = System.nanoTime();
+				aggregates = statisticsIO.countAttempts(pool);
+				bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+			}
+			pool.shutdown();
+			if (expected == null) {
+				expected = aggregates;
+				oneThreadNanos = bestNanos;
+			}
+			String check = isSame(expected, aggregates) ? "same totals" : "DIFFERENT TOTALS";
+			System.out.printf("%3d threads %8.1f ms %6.2fx %s%n", threadCount, bestNanos / 1e6,
+					(double) oneThreadNanos / bestNanos, check);
+		}
+	}
+
+	/**
+	 * Helper method to record made-up attempts into a new statistics file, spread
+	 * over the past year across words and topics. The same attempts are made on
+	 * every run, apart from being dated back from today.
+	 *
+	 * @return A String containing the filepath to the new statistics file.
+	 */
+	private static String generateStatistics(int attemptCount) {
+		String target;
+		try {
+			target = Files.createTempDirectory("statistics-benchmark").resolve("statistics").toString();
+		} catch (IOException e) {
+			System.err.println("Could not make a directory to generate the statistics in");
+			System.exit(1);
+			return null;
+		}
+		StatisticsIO statisticsIO = new StatisticsIO(target);
+		Random random = new Random(1);
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).minusDays(GENERATED_DAY_COUNT).withNano(0);
+		long secondsBetween = Math.max(1, GENERATED_DAY_COUNT * 24L * 60 * 60 / Math.max(1, attemptCount));
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		for (int i = 0; i < attemptCount; i++) {
+			attempts.add(new SpellingAttempt(start.plusSeconds(i * secondsBetween),
+					"word" + random.nextInt(GENERATED_WORD_COUNT), "Topic" + random.nextInt(GENERATED_TOPIC_COUNT),
+					COUNTED_STATUSES[random.nextInt(COUNTED_STATUSES.length)], random.nextInt(10) + 1,
+					500 + random.nextInt(10000)));
+			if (attempts.size() == RECORD_BATCH_SIZE || i == attemptCount - 1) {
+				statisticsIO.recordWordSpellings(attempts);
+				attempts.clear();
+			}
+		}
+		System.out.println("Generated " + attemptCount + " attempts in " + Paths.get(target).getParent());
+		return target;
+	}
+
+	/**
+	 * Helper method to determine whether two sets of running totals hold the same
+	 * counts and latest attempts.
+	 */
+	private static boolean isSame(StatisticsAggregates expected, StatisticsAggregates actual) {
+		if (!expected.getHours().equals(actual.getHours()) || !expected.getDays().equals(actual.getDays())
+				|| !expected.getWordLists().equals(actual.getWordLists())) {
+			return false;
+		}
+		for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+			for (long hour : expected.getHours()) {
+				if (expected.getHourCount(hour, answerStatus) != actual.getHourCount(hour, answerStatus)) {
+					return false;
+				}
+			}
+			for (long day : expected.getDays()) {
+				if (expected.getDayCount(day, answerStatus) != actual.getDayCount(day, answerStatus)) {
+					return false;
+				}
+			}
+		}
+		for (String wordList : expected.getWordLists()) {
+			if (!expected.getWords(wordList).equals(actual.getWords(wordList))) {
+				return false;
+			}
+			for (String word : expected.getWords(wordList)) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					if (expected.getWordCount(wordList, word, answerStatus) != actual.getWordCount(wordList, word,
+							answerStatus)) {
+						return false;
+					}
+				}
+				if (expected.getLastAttempt(wordList, word) != actual.getLastAttempt(wordList, word)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Helper method to read a positive count from the arguments, or stop with how
+	 * to run the benchmark if it is not one.
+	 */
+	private static int parseCount(String argument) {
+		try {
+			int count = Integer.parseInt(argument);
+			if (count > 0) {
+				return count;
+			}
+		} catch (NumberFormatException e) {
+			// Shown below
+		}
+		exitWithUsage();
+		return 0;
+	}
+
+	/**
+	 * Helper method to show how to run the benchmark, and stop.
+	 */
+	private static void exitWithUsage() {
+		System.err.println("Usage: BenchmarkStatisticsCount [" + FILE_OPTION + " statistics | " + GENERATE_OPTION
+				+ " attempts] [threads] [runs]");
+		System.exit(1);
+	}
+}
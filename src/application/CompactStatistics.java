@@ -0,0 +1,49 @@
+package application;
+
+import fileio.StatisticsIO;
+
+/**
+ * Compacts the old attempts of a statistics file into counts per day, so that
+ * the file stops growing without bound. Compacted days keep their counts per
+ * word, topic and answer status, but lose their hourly detail, the exact time
+ * of each attempt and the time taken to answer, so it only runs when asked to,
+ * such as "java application.CompactStatistics 60" to keep the last 60 days in
+ * full. The number of days defaults to StatisticsIO.DEFAULT_RAW_RETENTION_DAYS,
+ * and "--file" and a statistics file can be given first, which is otherwise the
+ * statistics file of this kiosk.
+ */
+public final class CompactStatistics {
+	private static final String FILE_OPTION = "--file";
+
+	private CompactStatistics() {
+	}
+
+	public static void main(String[] args) {
+		String target = FileSaveLocations.STATISTICS;
+		int first = 0;
+		if (args.length >= 2 && args[0].equals(FILE_OPTION)) {
+			target = args[1];
+			first = 2;
+		}
+		int rawRetentionDays = StatisticsIO.DEFAULT_RAW_RETENTION_DAYS;
+		if (args.length > first + 1) {
+			exitWithUsage();
+		} else if (args.length == first + 1) {
+			try {
+				rawRetentionDays = Integer.parseInt(args[first]);
+			} catch (NumberFormatException e) {
+				exitWithUsage();
+			}
+		}
+		int compactedCount = new StatisticsIO(target).compactStatistics(rawRetentionDays);
+		System.out.println("Compacted " + compactedCount + " days of " + target);
+	}
+
+	/**
+	 * Helper method to show how to run the compaction, and stop.
+	 */
+	private static void exitWithUsage() {
+		System.err.println("Usage: CompactStatistics [" + FILE_OPTION + " statistics] [days]");
+		System.exit(1);
+	}
+}
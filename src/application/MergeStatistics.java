@@ -0,0 +1,44 @@
+package application;
+
+import java.util.Arrays;
+
+import fileio.StatisticsIO;
+import fileio.StatisticsMerger;
+
+/**
+ * Merges the statistics of other kiosks into the statistics of this one, so
+ * that the combined history of a learner can be shown. Run it with the
+ * statistics files of the other kiosks, such as
+ * "java application.MergeStatistics kiosk2/.data/statistics", or with
+ * "--into" and the statistics file to merge into first, which is otherwise the
+ * statistics file of this kiosk.
+ */
+public final class MergeStatistics {
+	private static final String INTO_OPTION = "--into";
+
+	private MergeStatistics() {
+	}
+
+	public static void main(String[] args) {
+		String target = FileSaveLocations.STATISTICS;
+		int first = 0;
+		if (args.length >= 2 && args[0].equals(INTO_OPTION)) {
+			target = args[1];
+			first = 2;
+		}
+		if (first >= args.length) {
+			System.err.println("Usage: MergeStatistics [" + INTO_OPTION + " statistics] otherStatistics...");
+			System.exit(1);
+		}
+		StatisticsMerger merger = new StatisticsIO(target)
+				.mergeStatistics(Arrays.asList(args).subList(first, args.length));
+		if (!merger.isComplete()) {
+			System.err.println("Could not write the merged statistics, so " + target + " is unchanged");
+			System.exit(1);
+		}
+		System.out.println("Merged " + merger.getMergedCount() + " attempts and " + merger.getRollupCount()
+				+ " rollups into " + target + ", dropping " + merger.getDuplicateCount() + " duplicate attempts, "
+				+ merger.getDuplicateRollupCount() + " duplicate rollups and " + merger.getSkippedCount()
+				+ " that could not be read");
+	}
+}
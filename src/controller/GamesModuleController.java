@@ -12,7 +12,7 @@ import application.HelpBox;
 import application.TTS;
 import enums.AnswerStatus;
 import enums.Language;
-import fileio.StatisticsIO;
+import fileio.StatisticsAppender;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.PauseTransition;
@@ -263,9 +263,10 @@ public class GamesModuleController extends Controller {
 		scoreTracker.update(questionNumber, score, word);
 		scoreLabel.setText(Integer.toString(scoreTracker.getTotalScore()));
 		statusLabel.setText("CORRECT");
-		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
+		StatisticsAppender statisticsAppender = StatisticsAppender.getInstance(FileSaveLocations.STATISTICS);
 		if(!isPractice) {
-			statisticsIO.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.MASTERED, score);
+			statisticsAppender.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.MASTERED, score,
+					currentScorer.getAnswerTimeMillis());
 		}
 		speak("correct", false);
 	}
@@ -300,9 +301,10 @@ public class GamesModuleController extends Controller {
 		scoreTracker.update(questionNumber, score, word);
 		scoreLabel.setText(Integer.toString(scoreTracker.getTotalScore()));
 		statusLabel.setText("GOOD JOB");
-		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
+		StatisticsAppender statisticsAppender = StatisticsAppender.getInstance(FileSaveLocations.STATISTICS);
 		if(!isPractice) {
-			statisticsIO.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.FAULTED, score);
+			statisticsAppender.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.FAULTED, score,
+					currentScorer.getAnswerTimeMillis());
 		}
 		speak("Good job.", false);
 	}
@@ -320,11 +322,12 @@ public class GamesModuleController extends Controller {
 		String word = currentQuestion.getWord();
 		scoreTracker.update(questionNumber, score, word);
 		scoreLabel.setText(Integer.toString(scoreTracker.getTotalScore()));
-		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
+		StatisticsAppender statisticsAppender = StatisticsAppender.getInstance(FileSaveLocations.STATISTICS);
 		if (isPractice) {
 			statusLabel.setText(currentQuestion.getWord());
 		} else {
-			statisticsIO.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.FAILED, score);
+			statisticsAppender.recordWordSpelling(OffsetDateTime.now(), word, "Colours", AnswerStatus.FAILED, score,
+					currentScorer.getAnswerTimeMillis());
 			String encouragingMessage = pickRandomEncouragingMessage();
 			statusLabel.setText(encouragingMessage);
 			speak(encouragingMessage, false);
@@ -610,6 +613,7 @@ public class GamesModuleController extends Controller {
 		bonusBarTimeline.pause();
 		toggleButtonVisibility(true, true, false);
 		wordTextField.setDisable(true);
+		currentScorer.endTiming();
 		failedWord();
 		wordTextField.setText("");
 		PauseTransition pause = new PauseTransition(Duration.seconds(2));
@@ -8,6 +8,7 @@ import application.HelpBox;
 import fileio.CashIO;
 import fileio.HighestEarningsIO;
 import fileio.ItemStockIO;
+import fileio.StatisticsAppender;
 import fileio.StatisticsIO;
 import fileio.TreeStatisticsIO;
 import javafx.event.ActionEvent;
@@ -102,6 +103,7 @@ public class MainView extends Controller {
 			treeStatisticsIO.saveTree(offSetDateTime, tree);
 			itemStock = new ItemStock();
 			itemStockIO.saveStockNumbers(itemStock, offSetDateTime);
+			StatisticsAppender.getInstance(FileSaveLocations.STATISTICS).flush();
 			statisticsIO.resetStatistics();
 			highestEarningsIO.resetHighestEarnings();
 		}
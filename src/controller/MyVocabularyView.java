@@ -108,6 +108,7 @@ public class MyVocabularyView extends Controller {
 	private boolean isTopic2Selected;
 	private boolean isTopic3Selected;
 
+	private String loadedTopic;
 	private ArrayList<String> words;
 	private VocabularyStatistics vocabularyStatistics;
 	private int wordsPointer;
@@ -360,12 +361,18 @@ public class MyVocabularyView extends Controller {
 	}
 
 	/**
-	 * Loads the words to show to memory.
+	 * Loads the words of the current topic to memory. Words are only loaded again
+	 * when the topic changes, so moving between pages of the same topic reads
+	 * nothing.
 	 */
 	private void loadWords() {
+		if (currentTopic.equals(loadedTopic)) {
+			return;
+		}
 		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
 		vocabularyStatistics = statisticsIO.getVocabularyStatistics(currentTopic);
 		words = vocabularyStatistics.getWords();
+		loadedTopic = currentTopic;
 	}
 
 	/**
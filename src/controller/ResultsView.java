@@ -5,6 +5,7 @@ import application.FileSaveLocations;
 import application.HelpBox;
 import fileio.CashIO;
 import fileio.HighestEarningsIO;
+import fileio.StatisticsAppender;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.chart.LineChart;
@@ -100,6 +101,8 @@ public class ResultsView extends Controller {
 		wordFiveStatus.setImage(resultsModel.getStatusImage(5));
 
 		saveEarnings(totalScore);
+		// Finish recording the attempts of the game, so the statistics screens show them
+		StatisticsAppender.getInstance(FileSaveLocations.STATISTICS).flush();
 
 	}
 
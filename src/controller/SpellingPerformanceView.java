@@ -1,7 +1,6 @@
 package controller;
 
 import java.io.IOException;
-import java.util.ArrayList;
 
 import application.FileSaveLocations;
 import application.HelpBox;
@@ -23,6 +22,7 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Paint;
 import statistics.ProportionsFeed;
+import statistics.SpellingPerformance;
 import statistics.TimelineFeed;
 
 /**
@@ -72,21 +72,10 @@ public class SpellingPerformanceView extends Controller {
 		darkenButton(timelineTabButton);
 		lightenButton(proportionsTabButton);
 
-		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
-
-		TimelineFeed timelineFeedMastered;
-		TimelineFeed timelineFeedFaulted;
-		TimelineFeed timelineFeedFailed;
-
-		if (isWeekly) {
-			timelineFeedMastered = statisticsIO.getMasteredTimelineFeedForWeek();
-			timelineFeedFaulted = statisticsIO.getFaultedTimelineFeedForWeek();
-			timelineFeedFailed = statisticsIO.getFailedTimelineFeedForWeek();
-		} else {
-			timelineFeedMastered = statisticsIO.getMasteredTimelineFeedForDay();
-			timelineFeedFaulted = statisticsIO.getFaultedTimelineFeedForDay();
-			timelineFeedFailed = statisticsIO.getFailedTimelineFeedForDay();
-		}
+		SpellingPerformance spellingPerformance = loadSpellingPerformance();
+		TimelineFeed timelineFeedMastered = spellingPerformance.getMasteredTimelineFeed();
+		TimelineFeed timelineFeedFaulted = spellingPerformance.getFaultedTimelineFeed();
+		TimelineFeed timelineFeedFailed = spellingPerformance.getFailedTimelineFeed();
 
 		XYChart.Series<String, Integer> masteredSeries = new XYChart.Series<>();
 		XYChart.Series<String, Integer> faultedSeries = new XYChart.Series<>();
@@ -112,14 +101,25 @@ public class SpellingPerformanceView extends Controller {
 		}
 	}
 
+	/**
+	 * Reads the timelines and proportions for the selected time scale from the
+	 * statistics file in a single pass.
+	 */
+	private SpellingPerformance loadSpellingPerformance() {
+		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
+		if (isWeekly) {
+			return statisticsIO.getSpellingPerformanceForWeek();
+		} else {
+			return statisticsIO.getSpellingPerformanceForDay();
+		}
+	}
+
 	/**
 	 * Loads the timelines to be shown in the Timeline view.
 	 */
 	private void loadTimelineFeedToSeries(TimelineFeed timelineFeed, XYChart.Series<String, Integer> series) {
-		ArrayList<String> categoryStrings = timelineFeed.getCategories();
-		for (String category : categoryStrings) {
-			int dataValue = timelineFeed.getDataOnExistingCategory(category);
-			series.getData().add(new XYChart.Data<String, Integer>(category, dataValue));
+		for (int i = 0; i < timelineFeed.getBucketCount(); i++) {
+			series.getData().add(new XYChart.Data<String, Integer>(timelineFeed.getLabel(i), timelineFeed.getData(i)));
 		}
 	}
 
@@ -132,14 +132,7 @@ public class SpellingPerformanceView extends Controller {
 		lightenButton(timelineTabButton);
 		darkenButton(proportionsTabButton);
 
-		StatisticsIO statisticsIO = new StatisticsIO(FileSaveLocations.STATISTICS);
-
-		ProportionsFeed proportionsFeed;
-		if (isWeekly) {
-			proportionsFeed = statisticsIO.getProportionsFeedForWeek();
-		} else {
-			proportionsFeed = statisticsIO.getProportionsFeedForDay();
-		}
+		ProportionsFeed proportionsFeed = loadSpellingPerformance().getProportionsFeed();
 
 		if (proportionsFeed.getMastered() == 0 && proportionsFeed.getFaulted() == 0
 				&& proportionsFeed.getFailed() == 0) {
@@ -0,0 +1,13 @@
+package enums;
+
+/**
+ * Describes how long each point of a timeline covers, where a WEEK starts on a
+ * Monday as in ISO-8601.
+ */
+public enum BucketSize {
+	MINUTE,
+	HOUR,
+	DAY,
+	WEEK,
+	MONTH
+}
@@ -0,0 +1,37 @@
+package fileio;
+
+/**
+ * A CharSequence over part of a char array, which can be pointed at a new part
+ * of the array without creating a new object.
+ */
+class CharSlice implements CharSequence {
+	private char[] array;
+	private int start;
+	private int length;
+
+	void set(char[] array, int start, int end) {
+		this.array = array;
+		this.start = start;
+		this.length = end - start;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return array[start + index];
+	}
+
+	@Override
+	public CharSequence subSequence(int startIndex, int endIndex) {
+		return new String(array, start + startIndex, endIndex - startIndex);
+	}
+
+	@Override
+	public String toString() {
+		return new String(array, start, length);
+	}
+}
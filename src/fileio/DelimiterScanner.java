@@ -0,0 +1,112 @@
+package fileio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds delimiters such as line breaks in bytes eight at a time, by reading the
+ * bytes as a long and checking all eight bytes of it at once, rather than
+ * checking one byte at a time. Lines of statistics files are mostly short runs
+ * of letters and digits, so most of the bytes of a file are passed over a long
+ * at a time.
+ *
+ * A byte of a long is found to match by XORing the long with the delimiter in
+ * every byte, which leaves the matching bytes zero, and then setting the top bit
+ * of each byte that is zero. The top bit is found without carrying between
+ * bytes, so it is set for exactly the bytes that match, and the first match can
+ * be told apart from the rest in either byte order.
+ */
+final class DelimiterScanner {
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	// Added to a byte under 0x80, sets its top bit if it is at least a space
+	private static final long SPACE_OFFSET = 0x6060606060606060L;
+
+	private DelimiterScanner() {
+	}
+
+	/**
+	 * Finds the first position of a byte between two positions in a buffer.
+	 *
+	 * @param bytes     A ByteBuffer object holding the bytes, in either byte
+	 *                  order.
+	 * @param from      An integer containing the first position to look at.
+	 * @param to        An integer containing the position after the last to look
+	 *                  at.
+	 * @param delimiter A byte containing the byte to find.
+	 * @return An integer containing the position of the byte, or -1 if it is not
+	 *         found.
+	 */
+	static int indexOf(ByteBuffer bytes, int from, int to, byte delimiter) {
+		long pattern = (delimiter & 0xFF) * ONES;
+		boolean isLittleEndian = bytes.order() == ByteOrder.LITTLE_ENDIAN;
+		int i = from;
+		for (; i + Long.BYTES <= to; i += Long.BYTES) {
+			long matches = findZeroBytes(bytes.getLong(i) ^ pattern);
+			if (matches != 0) {
+				int bitIndex = isLittleEndian ? Long.numberOfTrailingZeros(matches)
+						: Long.numberOfLeadingZeros(matches);
+				return i + (bitIndex >>> 3);
+			}
+		}
+		for (; i < to; i++) {
+			if (bytes.get(i) == delimiter) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Determines whether every byte between two positions in a buffer is a
+	 * printable ASCII character or a space, which reads as the same character in
+	 * most charsets, and leaves spaces as the only whitespace.
+	 *
+	 * @param bytes A ByteBuffer object holding the bytes.
+	 * @param from  An integer containing the first position to look at.
+	 * @param to    An integer containing the position after the last to look at.
+	 * @return A boolean that is true if every byte is from 0x20 to 0x7F.
+	 */
+	static boolean isPrintableAscii(ByteBuffer bytes, int from, int to) {
+		int i = from;
+		for (; i + Long.BYTES <= to; i += Long.BYTES) {
+			long word = bytes.getLong(i);
+			if ((((word & LOW_SEVEN_BITS) + SPACE_OFFSET) & ~word & HIGH_BITS) != HIGH_BITS) {
+				return false;
+			}
+		}
+		for (; i < to; i++) {
+			if (bytes.get(i) < ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determines whether a charset reads ASCII bytes as ASCII characters, so that
+	 * line breaks and spaces can be found in its bytes before they are decoded.
+	 *
+	 * @param charset The Charset object to check.
+	 * @return A boolean that is true if ASCII bytes can be read as they are.
+	 */
+	static boolean isAsciiCompatible(Charset charset) {
+		byte[] ascii = new byte[128];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (byte) i;
+		}
+		return new String(ascii, charset).equals(new String(ascii, StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Helper method to set the top bit of each byte of a long that is zero, and
+	 * clear every other bit.
+	 */
+	private static long findZeroBytes(long word) {
+		long nonZeroLowBits = (word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+		return ~(nonZeroLowBits | word | LOW_SEVEN_BITS);
+	}
+}
@@ -5,6 +5,14 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Scanner;
 
@@ -29,12 +37,43 @@ public abstract class FileIO {
 
 	/**
 	 * Returns the lines read from the file, stripped of whitespaces at the edges.
+	 * The file is read in one go and split at its line breaks, which are found
+	 * eight bytes at a time by DelimiterScanner, unless the default charset does
+	 * not keep ASCII characters as they are.
 	 *
 	 * @return An ArrayList object storing Strings, where each String contains one
 	 *         line in the file. The Strings are in the same sequence as the lines
 	 *         in the file.
 	 */
 	protected ArrayList<String> readLines() {
+		Charset charset = Charset.defaultCharset();
+		if (!DelimiterScanner.isAsciiCompatible(charset)) {
+			return readLinesWithScanner();
+		}
+		ArrayList<String> lines = new ArrayList<>();
+		byte[] contents;
+		try {
+			contents = Files.readAllBytes(Paths.get(filepath));
+		} catch (IOException e) {
+			return lines;
+		}
+		ByteBuffer bytes = ByteBuffer.wrap(contents);
+		int lineStart = 0;
+		while (lineStart < contents.length) {
+			int lineEnd = DelimiterScanner.indexOf(bytes, lineStart, contents.length, (byte) '\n');
+			if (lineEnd < 0) {
+				lineEnd = contents.length;
+			}
+			lines.add(new String(contents, lineStart, lineEnd - lineStart, charset).strip());
+			lineStart = lineEnd + 1;
+		}
+		return lines;
+	}
+
+	/**
+	 * Helper method to read the lines of the file one character at a time.
+	 */
+	private ArrayList<String> readLinesWithScanner() {
 		ArrayList<String> lines = new ArrayList<>();
 		try {
 			Scanner scanner = new Scanner(new File(filepath));
@@ -50,6 +89,16 @@ public abstract class FileIO {
 		return lines;
 	}
 
+	/**
+	 * Returns the size of the file.
+	 *
+	 * @return A long containing the number of bytes in the file, or zero if the file
+	 *         does not exist.
+	 */
+	protected long getFileLength() {
+		return new File(filepath).length();
+	}
+
 	/**
 	 * Writes to lines in the file, overwriting the existing content in the file.
 	 *
@@ -61,6 +110,54 @@ public abstract class FileIO {
 		writeLines(lines, false);
 	}
 
+	/**
+	 * Writes to lines in the file, replacing the existing content in the file in
+	 * one step. The lines are first written to a temporary file which then takes
+	 * the place of the file, so that the file is never left half-written.
+	 *
+	 * @param lines An ArrayList object storing Strings, where each String contains
+	 *              one line in the file. The Strings are in the same sequence as
+	 *              the lines in the file.
+	 */
+	protected void overwriteLinesAtomically(ArrayList<String> lines) {
+		Path target = Paths.get(filepath);
+		Path temporary = Paths.get(filepath + ".tmp");
+		try (PrintWriter printWriter = new PrintWriter(new FileWriter(temporary.toFile()))) {
+			for (String line : lines) {
+				printWriter.println(line.strip());
+			}
+		} catch (IOException e) {
+			return;
+		}
+		replaceFile(temporary, target);
+	}
+
+	/**
+	 * Moves a finished temporary file into the place of another file in one step,
+	 * where the file system allows it.
+	 *
+	 * @param temporary A Path object to the temporary file.
+	 * @param target    A Path object to the file to replace.
+	 * @return A boolean that is true if the temporary file took the place of the
+	 *         file.
+	 */
+	protected static boolean replaceFile(Path temporary, Path target) {
+		try {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (AtomicMoveNotSupportedException e) {
+			try {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+				return true;
+			} catch (IOException e1) {
+				// Keep the existing file
+			}
+		} catch (IOException e) {
+			// Keep the existing file
+		}
+		return false;
+	}
+
 	/**
 	 * Writes to lines in the file, writing after existing content in the file.
 	 *
@@ -109,6 +206,39 @@ public abstract class FileIO {
 		}
 	}
 
+	/**
+	 * Removes a line left half-written at the end of the file, such as when the
+	 * application stopped while adding it, so that the next line added starts on
+	 * a line of its own.
+	 *
+	 * @return A boolean that is true if a half-written line was removed.
+	 */
+	protected boolean removeTornLastLine() {
+		long fileLength = getFileLength();
+		if (fileLength == 0) {
+			return false;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			long position = fileLength - 1;
+			file.seek(position);
+			if (file.read() == '\n') {
+				return false;
+			}
+			// Lines are short, so read back one byte at a time
+			while (position > 0) {
+				file.seek(position - 1);
+				if (file.read() == '\n') {
+					break;
+				}
+				position--;
+			}
+			file.getChannel().truncate(position);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Retrieves the String at a particular position within a line when split into
 	 * Strings by spaces.
@@ -119,9 +249,43 @@ public abstract class FileIO {
 	 * @return A String containing the target item to obtain.
 	 */
 	protected String getStringPartFromLine(String line, int index) {
+		return getStringPartsFromLine(line)[index];
+	}
+
+	/**
+	 * Splits a line into its space-separated Strings. Use this instead of
+	 * getStringPartFromLine when more than one part of the same line is needed, so
+	 * that the line is only split once.
+	 *
+	 * @param line A String containing the line to split.
+	 * @return An array of Strings containing every part of the line, in order.
+	 */
+	protected String[] getStringPartsFromLine(String line) {
 		String formatted = line.strip();
-		String[] splitString = formatted.split("\\s+");
-		return splitString[index];
+		if (formatted.isEmpty()) {
+			return new String[] { formatted };
+		}
+		// Split at runs of the same whitespace as the regular expression \s+, without
+		// compiling the expression for every line
+		ArrayList<String> parts = new ArrayList<>();
+		int partStart = 0;
+		for (int i = 0; i < formatted.length(); i++) {
+			if (isSpace(formatted.charAt(i))) {
+				if (i > partStart) {
+					parts.add(formatted.substring(partStart, i));
+				}
+				partStart = i + 1;
+			}
+		}
+		parts.add(formatted.substring(partStart));
+		return parts.toArray(new String[0]);
+	}
+
+	/**
+	 * Helper method to determine whether a character separates the parts of a line.
+	 */
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
 	}
 
 	/**
@@ -131,4 +295,15 @@ public abstract class FileIO {
 		ArrayList<String> lines = new ArrayList<>();
 		overwriteLines(lines);
 	}
+
+	/**
+	 * Removes the file from the operating system, if it exists.
+	 */
+	protected void deleteFile() {
+		try {
+			Files.deleteIfExists(Paths.get(filepath));
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
 }
@@ -0,0 +1,835 @@
+package fileio;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import enums.AnswerStatus;
+import statistics.FrequentWords;
+import statistics.StatisticsAggregates;
+import statistics.VocabularyStatistics;
+
+/**
+ * Reads from and writes to the file holding the running totals of the user's
+ * spelling attempts, which are kept alongside the statistics file.
+ *
+ * The file is mapped into memory, and totals are read and updated where they
+ * lie in the file rather than loaded into objects, so the totals of a long
+ * history take no room on the heap and are ready as soon as the file is mapped.
+ * The operating system keeps the pages in use in memory and writes them back to
+ * the file. Each total is found at a position worked out from its key:
+ *
+ * The header of 64 bytes holds "KKAG", the version, a sequence number that is
+ * odd while the totals are being updated, the position in the segments counted
+ * up to, as the epoch day of the newest segment counted and how many of its
+ * bytes have been counted, and the size of each table. It is followed by a
+ * table of hours, holding the mastered, faulted and failed counts of each hour
+ * from the first hour held as three ints, so the counts of an hour are twelve
+ * bytes per hour after the first. A table of days follows in the same layout,
+ * and then a table of words, placed by a hash of the numbers the dictionary
+ * gives the topic and the word, with linear probing. An entry of a word holds
+ * the number of its topic plus one, or zero if the entry is empty, the number
+ * of the word, its three counts and the epoch second of its latest attempt.
+ *
+ * Tables are made with room to spare, so new hours, days and words are usually
+ * counted in place, and the file is written again with larger tables when they
+ * do not fit, after which the old mapping is left with an odd sequence number.
+ * Totals left with an odd sequence number when the application stopped were
+ * half-updated, and are recounted.
+ *
+ * There is one StatisticsAggregatesIO for each file, as the file is mapped once
+ * and shared. Totals are only changed while holding the lock on it, and holding
+ * the lock lets several totals be read at the same position. The statistics of
+ * a topic can also be read without the lock, as a sequence lock: the sequence
+ * number is read before and after reading the totals, and the totals are used
+ * only if it was even and did not change in between, so a reader never waits
+ * for the thread recording attempts, nor sees the totals half-updated.
+ */
+public class StatisticsAggregatesIO extends FileIO {
+	private static final HashMap<String, StatisticsAggregatesIO> INSTANCES = new HashMap<>();
+	private static final int MAGIC = 0x4B4B4147;
+	private static final int VERSION = 1;
+	private static final long NO_SEGMENT_DAY = Long.MIN_VALUE;
+	private static final int VERSION_POSITION = 4;
+	private static final int SEQUENCE_POSITION = 8;
+	private static final int LOG_DAY_POSITION = 16;
+	private static final int LOG_LENGTH_POSITION = 24;
+	private static final int FIRST_HOUR_POSITION = 32;
+	private static final int FIRST_DAY_POSITION = 40;
+	private static final int HOUR_CAPACITY_POSITION = 48;
+	private static final int DAY_CAPACITY_POSITION = 52;
+	private static final int WORD_CAPACITY_POSITION = 56;
+	private static final int WORD_COUNT_POSITION = 60;
+	private static final int HEADER_SIZE = 64;
+	// Mastered, faulted and failed counts, in the order of AnswerStatus
+	private static final int COUNTS_SIZE = 3 * Integer.BYTES;
+	private static final int WORD_ID_OFFSET = Integer.BYTES;
+	private static final int WORD_COUNTS_OFFSET = 2 * Integer.BYTES;
+	private static final int LAST_ATTEMPT_OFFSET = WORD_COUNTS_OFFSET + COUNTS_SIZE;
+	private static final int WORD_ENTRY_SIZE = LAST_ATTEMPT_OFFSET + Long.BYTES;
+	// Room left for the hours and days to come whenever the tables are made
+	private static final int HOURS_AHEAD = 31 * 24;
+	private static final int DAYS_AHEAD = 366;
+	private static final int SECONDS_PER_HOUR = 60 * 60;
+	// Hours and days either side of now that the tables hold, which are ten and a
+	// hundred years, so that a clock set far out cannot make the tables too large
+	private static final int HOURS_KEPT = 10 * 366 * 24;
+	private static final int DAYS_KEPT = 100 * 366;
+	private static final int MIN_WORD_CAPACITY = 256;
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+	// Reads and writes the sequence number with the ordering a sequence lock needs
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private StatisticsDictionaryIO dictionaryIO;
+	// The mapped file, or null if it has not been mapped since it was last written
+	private volatile MappedByteBuffer totals;
+	// The sequence number of the totals last written, which carries on when the
+	// file is written again or removed
+	private int sequence;
+
+	private StatisticsAggregatesIO(String filepath, String dictionaryFilepath) {
+		super(filepath);
+		dictionaryIO = StatisticsDictionaryIO.getInstance(dictionaryFilepath);
+	}
+
+	/**
+	 * Returns the StatisticsAggregatesIO of a file of running totals.
+	 *
+	 * @param filepath           A String object containing the filepath to the
+	 *                           file of running totals.
+	 * @param dictionaryFilepath A String object containing the filepath to the
+	 *                           dictionary that numbers the words and topics of the
+	 *                           statistics.
+	 * @return The StatisticsAggregatesIO object for the file.
+	 */
+	public static synchronized StatisticsAggregatesIO getInstance(String filepath, String dictionaryFilepath) {
+		StatisticsAggregatesIO aggregatesIO = INSTANCES.get(filepath);
+		if (aggregatesIO == null) {
+			aggregatesIO = new StatisticsAggregatesIO(filepath, dictionaryFilepath);
+			INSTANCES.put(filepath, aggregatesIO);
+		}
+		return aggregatesIO;
+	}
+
+	/**
+	 * Determines whether the file holds running totals that can be read, being
+	 * neither missing, damaged, nor left half-updated.
+	 */
+	public synchronized boolean hasAggregates() {
+		return mapTotals() != null;
+	}
+
+	/**
+	 * Returns the day of the newest segment counted, or null if no segment has been
+	 * counted or the file holds no totals.
+	 */
+	public synchronized String getLogSegment() {
+		ByteBuffer totals = mapTotals();
+		if (totals == null || totals.getLong(LOG_DAY_POSITION) == NO_SEGMENT_DAY) {
+			return null;
+		}
+		return LocalDate.ofEpochDay(totals.getLong(LOG_DAY_POSITION)).toString();
+	}
+
+	/**
+	 * Returns the number of bytes of the newest segment counted that have been
+	 * counted.
+	 */
+	public synchronized long getLogLength() {
+		ByteBuffer totals = mapTotals();
+		return totals == null ? 0 : totals.getLong(LOG_LENGTH_POSITION);
+	}
+
+	/**
+	 * Returns the number of attempts of an hour with an answer status.
+	 *
+	 * @param hour         A long containing the hours since 1970-01-01T00:00 in
+	 *                     local time.
+	 * @param answerStatus An AnswerStatus enumeration of the attempts to count.
+	 * @return An integer containing the number of attempts.
+	 */
+	public synchronized int getHourCount(long hour, AnswerStatus answerStatus) {
+		ByteBuffer totals = mapTotals();
+		if (totals == null || answerStatus == AnswerStatus.INCORRECT) {
+			return 0;
+		}
+		int position = getHourPosition(totals, hour);
+		return position < 0 ? 0 : totals.getInt(position + answerStatus.ordinal() * Integer.BYTES);
+	}
+
+	/**
+	 * Returns the number of attempts of a day with an answer status.
+	 *
+	 * @param day          A long containing the days since 1970-01-01 in local
+	 *                     time.
+	 * @param answerStatus An AnswerStatus enumeration of the attempts to count.
+	 * @return An integer containing the number of attempts.
+	 */
+	public synchronized int getDayCount(long day, AnswerStatus answerStatus) {
+		ByteBuffer totals = mapTotals();
+		if (totals == null || answerStatus == AnswerStatus.INCORRECT) {
+			return 0;
+		}
+		int position = getDayPosition(totals, day);
+		return position < 0 ? 0 : totals.getInt(position + answerStatus.ordinal() * Integer.BYTES);
+	}
+
+	/**
+	 * Returns the epoch second of the latest attempt at a word in a topic.
+	 *
+	 * @return A long containing the epoch second, or Long.MIN_VALUE if the word
+	 *         has never been attempted.
+	 */
+	public synchronized long getLastAttempt(String wordList, String word) {
+		ByteBuffer totals = mapTotals();
+		if (totals == null) {
+			return Long.MIN_VALUE;
+		}
+		int topicId = dictionaryIO.findTopicId(wordList);
+		int wordId = dictionaryIO.findWordId(word);
+		if (topicId < 0 || wordId < 0) {
+			return Long.MIN_VALUE;
+		}
+		int position = findWordEntry(totals, topicId, wordId);
+		if (totals.getInt(position) == 0) {
+			return Long.MIN_VALUE;
+		}
+		return totals.getLong(position + LAST_ATTEMPT_OFFSET);
+	}
+
+	/**
+	 * Retrieves the totals of every word in a topic.
+	 *
+	 * @param wordList A String containing the topic.
+	 * @return A VocabularyStatistics object containing the mastered, faulted and
+	 *         failed totals and latest attempt of each word in the topic, in
+	 *         alphabetical order.
+	 */
+	public synchronized VocabularyStatistics getVocabularyStatistics(String wordList) {
+		ByteBuffer totals = mapTotals();
+		if (totals == null) {
+			return new VocabularyStatistics();
+		}
+		return readVocabularyStatistics(totals, wordList, true);
+	}
+
+	/**
+	 * Returns the sequence number of the totals, which changes whenever they do,
+	 * without waiting for the lock. It is odd while the totals are being updated.
+	 *
+	 * @return An integer containing the sequence number, or -1 if the file holds
+	 *         no totals that can be read.
+	 */
+	public int getSequence() {
+		ByteBuffer totals = this.totals;
+		return totals == null ? -1 : (int) INTS.getAcquire(totals, SEQUENCE_POSITION);
+	}
+
+	/**
+	 * Retrieves the totals of every word in a topic without waiting for the lock,
+	 * as of a sequence number of the totals. See getVocabularyStatistics.
+	 *
+	 * @param wordList         A String containing the topic.
+	 * @param expectedSequence An integer containing the sequence number to read
+	 *                         the totals at.
+	 * @return A VocabularyStatistics object of the topic, or null if the totals
+	 *         were not at the sequence number for the whole read.
+	 */
+	public VocabularyStatistics getVocabularyStatistics(String wordList, int expectedSequence) {
+		ByteBuffer totals = this.totals;
+		if (totals == null || (expectedSequence & 1) != 0
+				|| (int) INTS.getAcquire(totals, SEQUENCE_POSITION) != expectedSequence) {
+			return null;
+		}
+		VocabularyStatistics vocabularyStatistics;
+		try {
+			vocabularyStatistics = readVocabularyStatistics(totals, wordList, false);
+		} catch (RuntimeException e) {
+			// Totals read while being updated can refer to anything
+			return null;
+		}
+		VarHandle.loadLoadFence();
+		if ((int) INTS.get(totals, SEQUENCE_POSITION) != expectedSequence) {
+			return null;
+		}
+		return vocabularyStatistics;
+	}
+
+	/**
+	 * Helper method to read the totals of every word in a topic from the mapped
+	 * file, in alphabetical order. Without the lock, only the names the dictionary
+	 * already knows are used, as the totals cannot refer to any others.
+	 */
+	private VocabularyStatistics readVocabularyStatistics(ByteBuffer totals, String wordList, boolean isLocked) {
+		VocabularyStatistics vocabularyStatistics = new VocabularyStatistics();
+		int topicId = isLocked ? dictionaryIO.findTopicId(wordList) : dictionaryIO.findKnownTopicId(wordList);
+		if (topicId < 0) {
+			return vocabularyStatistics;
+		}
+		TreeMap<String, Integer> entries = new TreeMap<>();
+		int wordsStart = getWordsStart(totals);
+		int wordCapacity = totals.getInt(WORD_CAPACITY_POSITION);
+		for (int i = 0; i < wordCapacity; i++) {
+			int position = wordsStart + i * WORD_ENTRY_SIZE;
+			if (totals.getInt(position) == topicId + 1) {
+				int wordId = totals.getInt(position + WORD_ID_OFFSET);
+				String word = isLocked ? dictionaryIO.getWord(wordId) : dictionaryIO.findKnownWord(wordId);
+				if (word == null && !isLocked) {
+					throw new IllegalStateException("Unknown word number");
+				} else if (word != null) {
+					// A word whose name was not saved in full is left out
+					entries.put(word, position);
+				}
+			}
+		}
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			String word = entry.getKey();
+			int countsPosition = entry.getValue() + WORD_COUNTS_OFFSET;
+			vocabularyStatistics.addMastered(word, totals.getInt(countsPosition));
+			vocabularyStatistics.addFaulted(word, totals.getInt(countsPosition + Integer.BYTES));
+			vocabularyStatistics.addFailed(word, totals.getInt(countsPosition + 2 * Integer.BYTES));
+			vocabularyStatistics.setLastAttempt(word, totals.getLong(entry.getValue() + LAST_ATTEMPT_OFFSET));
+		}
+		return vocabularyStatistics;
+	}
+
+	/**
+	 * Counts the failed and faulted attempts of every word towards the most failed
+	 * words.
+	 *
+	 * @param troubleWords The FrequentWords object to count the attempts towards.
+	 */
+	public synchronized void addTroubleWords(FrequentWords troubleWords) {
+		ByteBuffer totals = mapTotals();
+		if (totals == null) {
+			return;
+		}
+		int wordsStart = getWordsStart(totals);
+		int wordCapacity = totals.getInt(WORD_CAPACITY_POSITION);
+		for (int i = 0; i < wordCapacity; i++) {
+			int position = wordsStart + i * WORD_ENTRY_SIZE;
+			int topicKey = totals.getInt(position);
+			if (topicKey == 0) {
+				continue;
+			}
+			String wordList = dictionaryIO.getTopic(topicKey - 1);
+			String word = dictionaryIO.getWord(totals.getInt(position + WORD_ID_OFFSET));
+			if (wordList == null || word == null) {
+				continue;
+			}
+			int countsPosition = position + WORD_COUNTS_OFFSET;
+			troubleWords.add(wordList, word,
+					totals.getInt(countsPosition + AnswerStatus.FAILED.ordinal() * Integer.BYTES)
+							+ totals.getInt(countsPosition + AnswerStatus.FAULTED.ordinal() * Integer.BYTES));
+		}
+	}
+
+	/**
+	 * Retrieves a copy of every running total in the file.
+	 *
+	 * @return A StatisticsAggregates object with the totals in the file, or null if
+	 *         the file is missing or cannot be understood.
+	 */
+	public synchronized StatisticsAggregates loadAggregates() {
+		ByteBuffer totals = mapTotals();
+		if (totals == null) {
+			return null;
+		}
+		StatisticsAggregates aggregates = new StatisticsAggregates();
+		aggregates.setLogSegment(getLogSegment());
+		aggregates.setLogLength(getLogLength());
+		long firstHour = totals.getLong(FIRST_HOUR_POSITION);
+		int hoursStart = HEADER_SIZE;
+		int hourCapacity = totals.getInt(HOUR_CAPACITY_POSITION);
+		for (int i = 0; i < hourCapacity; i++) {
+			int position = hoursStart + i * COUNTS_SIZE;
+			if (hasCounts(totals, position)) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					aggregates.addHourCount(firstHour + i, answerStatus,
+							totals.getInt(position + answerStatus.ordinal() * Integer.BYTES));
+				}
+			}
+		}
+		long firstDay = totals.getLong(FIRST_DAY_POSITION);
+		int daysStart = getDaysStart(totals);
+		int dayCapacity = totals.getInt(DAY_CAPACITY_POSITION);
+		for (int i = 0; i < dayCapacity; i++) {
+			int position = daysStart + i * COUNTS_SIZE;
+			if (hasCounts(totals, position)) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					aggregates.addDayCount(firstDay + i, answerStatus,
+							totals.getInt(position + answerStatus.ordinal() * Integer.BYTES));
+				}
+			}
+		}
+		int wordsStart = getWordsStart(totals);
+		int wordCapacity = totals.getInt(WORD_CAPACITY_POSITION);
+		for (int i = 0; i < wordCapacity; i++) {
+			int position = wordsStart + i * WORD_ENTRY_SIZE;
+			int topicKey = totals.getInt(position);
+			if (topicKey == 0) {
+				continue;
+			}
+			String wordList = dictionaryIO.getTopic(topicKey - 1);
+			String word = dictionaryIO.getWord(totals.getInt(position + WORD_ID_OFFSET));
+			if (wordList == null || word == null) {
+				continue;
+			}
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				aggregates.addWordCount(wordList, word, answerStatus,
+						totals.getInt(position + WORD_COUNTS_OFFSET + answerStatus.ordinal() * Integer.BYTES));
+			}
+			aggregates.setLastAttempt(wordList, word, totals.getLong(position + LAST_ATTEMPT_OFFSET));
+		}
+		return aggregates;
+	}
+
+	/**
+	 * Adds running totals to those in the file where they lie, and moves the
+	 * position counted up to on to that of the added totals, unless the file has
+	 * already counted further. The file is written again with larger tables if the
+	 * added totals do not fit.
+	 *
+	 * The file is forced to the disk once its sequence number is odd and again
+	 * before it is even, so that if the computer loses power part way, either the
+	 * counts and the position counted up to are both saved, or the totals are
+	 * left with an odd sequence number and recounted.
+	 *
+	 * @param added The StatisticsAggregates object to add to the file.
+	 * @return A boolean that is true if the totals were added, or false if the
+	 *         file holds no totals to add to.
+	 */
+	public synchronized boolean addAggregates(StatisticsAggregates added) {
+		MappedByteBuffer totals = mapTotals();
+		if (totals == null) {
+			return false;
+		}
+		if (!fits(totals, added)) {
+			StatisticsAggregates aggregates = loadAggregates();
+			String logSegment = aggregates.getLogSegment();
+			long logLength = aggregates.getLogLength();
+			aggregates.addAll(added);
+			if (!isLater(added, logSegment, logLength)) {
+				aggregates.setLogSegment(logSegment);
+				aggregates.setLogLength(logLength);
+			}
+			return writeTotals(aggregates);
+		}
+		boolean isLater = isLater(added, getLogSegment(), getLogLength());
+		INTS.setOpaque(totals, SEQUENCE_POSITION, sequence + 1);
+		VarHandle.storeStoreFence();
+		totals.force();
+		try {
+			addCounts(totals, added);
+			if (isLater) {
+				putLogPosition(totals, added);
+			}
+		} finally {
+			totals.force();
+			sequence += 2;
+			INTS.setRelease(totals, SEQUENCE_POSITION, sequence);
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the running totals in the file. The totals are written to a
+	 * temporary file which then takes the place of the file, so that it still
+	 * holds the previous totals if the application stops while saving.
+	 *
+	 * @param aggregates The StatisticsAggregates object to save to file.
+	 */
+	public synchronized void saveAggregates(StatisticsAggregates aggregates) {
+		writeTotals(aggregates);
+	}
+
+	/**
+	 * Removes the file, so that the running totals are recounted on the next read.
+	 */
+	public synchronized void deleteAggregates() {
+		retireTotals();
+		deleteFile();
+	}
+
+	/**
+	 * Helper method to stop using the mapped file, leaving it with an odd sequence
+	 * number so that readers without the lock know to look for the new one.
+	 */
+	private void retireTotals() {
+		ByteBuffer retired = totals;
+		totals = null;
+		if (retired != null) {
+			INTS.setRelease(retired, SEQUENCE_POSITION, sequence + 1);
+		}
+	}
+
+	/**
+	 * Helper method to add every total of running totals to the tables of the
+	 * file, which must have room for every word. Hours and days outside the tables
+	 * are left out, as they are too far from now to be held.
+	 */
+	private void addCounts(ByteBuffer totals, StatisticsAggregates added) {
+		for (long hour : added.getHours()) {
+			int position = getHourPosition(totals, hour);
+			if (position < 0) {
+				continue;
+			}
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				addCount(totals, position, answerStatus, added.getHourCount(hour, answerStatus));
+			}
+		}
+		for (long day : added.getDays()) {
+			int position = getDayPosition(totals, day);
+			if (position < 0) {
+				continue;
+			}
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				addCount(totals, position, answerStatus, added.getDayCount(day, answerStatus));
+			}
+		}
+		for (String wordList : added.getWordLists()) {
+			int topicId = getTopicId(wordList);
+			for (String word : added.getWords(wordList)) {
+				int wordId = getWordId(word);
+				int position = findWordEntry(totals, topicId, wordId);
+				if (totals.getInt(position) == 0) {
+					totals.putInt(position, topicId + 1);
+					totals.putInt(position + WORD_ID_OFFSET, wordId);
+					totals.putLong(position + LAST_ATTEMPT_OFFSET, Long.MIN_VALUE);
+					totals.putInt(WORD_COUNT_POSITION, totals.getInt(WORD_COUNT_POSITION) + 1);
+				}
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					addCount(totals, position + WORD_COUNTS_OFFSET, answerStatus,
+							added.getWordCount(wordList, word, answerStatus));
+				}
+				long lastAttempt = added.getLastAttempt(wordList, word);
+				if (totals.getLong(position + LAST_ATTEMPT_OFFSET) < lastAttempt) {
+					totals.putLong(position + LAST_ATTEMPT_OFFSET, lastAttempt);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method to add to one of the three counts at a position.
+	 */
+	private void addCount(ByteBuffer totals, int position, AnswerStatus answerStatus, int amount) {
+		if (amount != 0) {
+			int countPosition = position + answerStatus.ordinal() * Integer.BYTES;
+			totals.putInt(countPosition, totals.getInt(countPosition) + amount);
+		}
+	}
+
+	/**
+	 * Helper method to determine whether any of the three counts at a position is
+	 * not zero.
+	 */
+	private boolean hasCounts(ByteBuffer totals, int position) {
+		return totals.getInt(position) != 0 || totals.getInt(position + Integer.BYTES) != 0
+				|| totals.getInt(position + 2 * Integer.BYTES) != 0;
+	}
+
+	/**
+	 * Helper method to determine whether every hour, day and word of added totals
+	 * fits into the tables of the file, keeping the table of words at most half
+	 * full. Hours and days too far from now to be held are taken to fit, so that
+	 * they do not make the file be written again.
+	 */
+	private boolean fits(ByteBuffer totals, StatisticsAggregates added) {
+		long[] heldHours = getHeldHours();
+		long[] heldDays = getHeldDays();
+		for (long hour : added.getHours()) {
+			if (isWithin(heldHours, hour) && getHourPosition(totals, hour) < 0) {
+				return false;
+			}
+		}
+		for (long day : added.getDays()) {
+			if (isWithin(heldDays, day) && getDayPosition(totals, day) < 0) {
+				return false;
+			}
+		}
+		int wordCount = totals.getInt(WORD_COUNT_POSITION);
+		int maxWordCount = totals.getInt(WORD_CAPACITY_POSITION) / 2;
+		for (String wordList : added.getWordLists()) {
+			int topicId = getTopicId(wordList);
+			for (String word : added.getWords(wordList)) {
+				if (totals.getInt(findWordEntry(totals, topicId, getWordId(word))) == 0 && ++wordCount > maxWordCount) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Helper method to determine whether added totals have counted further through
+	 * the segments than a position.
+	 */
+	private boolean isLater(StatisticsAggregates added, String logSegment, long logLength) {
+		if (added.getLogSegment() == null) {
+			return false;
+		}
+		if (logSegment == null) {
+			return true;
+		}
+		int order = added.getLogSegment().compareTo(logSegment);
+		return order > 0 || (order == 0 && added.getLogLength() >= logLength);
+	}
+
+	/**
+	 * Helper method to write the position that running totals have counted up to
+	 * into the header.
+	 */
+	private void putLogPosition(ByteBuffer totals, StatisticsAggregates aggregates) {
+		String logSegment = aggregates.getLogSegment();
+		long logDay = logSegment == null ? NO_SEGMENT_DAY : LocalDate.parse(logSegment).toEpochDay();
+		totals.putLong(LOG_DAY_POSITION, logDay);
+		totals.putLong(LOG_LENGTH_POSITION, aggregates.getLogLength());
+	}
+
+	/**
+	 * Helper method to write running totals to a new file with room to spare in
+	 * each table, which then takes the place of the file. The new file is written
+	 * through a mapping as well, so the totals are not copied on the heap. The
+	 * tables of hours and days only hold HOURS_KEPT and DAYS_KEPT either side of
+	 * now, so an attempt recorded with the clock set far out is left out of them,
+	 * though still counted towards its word.
+	 */
+	private boolean writeTotals(StatisticsAggregates aggregates) {
+		long[] hourRange = getRangeWithin(aggregates.getHours().iterator(), getHeldHours());
+		long[] dayRange = getRangeWithin(aggregates.getDays().iterator(), getHeldDays());
+		int hourCapacity = hourRange == null ? 0 : (int) (hourRange[1] - hourRange[0] + 1) + HOURS_AHEAD;
+		int dayCapacity = dayRange == null ? 0 : (int) (dayRange[1] - dayRange[0] + 1) + DAYS_AHEAD;
+		int wordCount = 0;
+		for (String wordList : aggregates.getWordLists()) {
+			wordCount += aggregates.getWords(wordList).size();
+		}
+		int wordCapacity = MIN_WORD_CAPACITY;
+		while (wordCapacity <= wordCount * 2) {
+			wordCapacity *= 2;
+		}
+
+		String temporary = filepath + ".tmp";
+		try (RandomAccessFile file = new RandomAccessFile(temporary, "rw")) {
+			FileChannel channel = file.getChannel();
+			channel.truncate(0);
+			MappedByteBuffer written = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					getTablesEnd(hourCapacity, dayCapacity, wordCapacity));
+			written.putInt(0, MAGIC);
+			written.putInt(VERSION_POSITION, VERSION);
+			written.putInt(SEQUENCE_POSITION, sequence + 2);
+			putLogPosition(written, aggregates);
+			written.putLong(FIRST_HOUR_POSITION, hourRange == null ? 0 : hourRange[0]);
+			written.putLong(FIRST_DAY_POSITION, dayRange == null ? 0 : dayRange[0]);
+			written.putInt(HOUR_CAPACITY_POSITION, hourCapacity);
+			written.putInt(DAY_CAPACITY_POSITION, dayCapacity);
+			written.putInt(WORD_CAPACITY_POSITION, wordCapacity);
+			addCounts(written, aggregates);
+			// The totals are on the disk before the file takes the place of the old one
+			written.force();
+		} catch (IOException e) {
+			return false;
+		}
+		if (!replaceFile(Paths.get(temporary), Paths.get(filepath))) {
+			return false;
+		}
+		retireTotals();
+		sequence += 2;
+		mapTotals();
+		return true;
+	}
+
+	/**
+	 * Helper method to return the first and last hour, in local time, that the
+	 * table of hours can hold as of now.
+	 */
+	private long[] getHeldHours() {
+		long hour = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_HOUR;
+		return new long[] { hour - HOURS_KEPT, hour + HOURS_KEPT };
+	}
+
+	/**
+	 * Helper method to return the first and last day, in local time, that the
+	 * table of days can hold as of now.
+	 */
+	private long[] getHeldDays() {
+		long day = LocalDate.now().toEpochDay();
+		return new long[] { day - DAYS_KEPT, day + DAYS_KEPT };
+	}
+
+	/**
+	 * Helper method to determine whether a number is within a range, including
+	 * both ends.
+	 */
+	private boolean isWithin(long[] range, long number) {
+		return number >= range[0] && number <= range[1];
+	}
+
+	/**
+	 * Helper method to find the lowest and highest of some numbers that are
+	 * within a range.
+	 *
+	 * @return A long array holding the lowest and highest number, or null if none
+	 *         are within the range.
+	 */
+	private long[] getRangeWithin(Iterator<Long> numbers, long[] range) {
+		long[] within = null;
+		while (numbers.hasNext()) {
+			long number = numbers.next();
+			if (!isWithin(range, number)) {
+				continue;
+			} else if (within == null) {
+				within = new long[] { number, number };
+			} else {
+				within[0] = Math.min(within[0], number);
+				within[1] = Math.max(within[1], number);
+			}
+		}
+		return within;
+	}
+
+	/**
+	 * Helper method to return the mapped file, mapping it first if it has not been
+	 * mapped since it was last written.
+	 *
+	 * @return A MappedByteBuffer object of the mapped file, or null if it holds no
+	 *         totals that can be read.
+	 */
+	private MappedByteBuffer mapTotals() {
+		if (totals == null) {
+			MappedByteBuffer mapped = mapFile();
+			if (mapped != null) {
+				sequence = Math.max(sequence, mapped.getInt(SEQUENCE_POSITION));
+				totals = mapped;
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Helper method to map the file, if it holds running totals that were not left
+	 * half-updated.
+	 */
+	private MappedByteBuffer mapFile() {
+		long length = getFileLength();
+		if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+			return null;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			MappedByteBuffer mapped = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+			if (mapped.getInt(0) != MAGIC || mapped.getInt(VERSION_POSITION) != VERSION
+					|| (mapped.getInt(SEQUENCE_POSITION) & 1) != 0 || !isMatchingLength(mapped, length)) {
+				return null;
+			}
+			return mapped;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Helper method to determine whether the tables described by the header take
+	 * up the rest of the file.
+	 */
+	private boolean isMatchingLength(ByteBuffer mapped, long length) {
+		int hourCapacity = mapped.getInt(HOUR_CAPACITY_POSITION);
+		int dayCapacity = mapped.getInt(DAY_CAPACITY_POSITION);
+		int wordCapacity = mapped.getInt(WORD_CAPACITY_POSITION);
+		if (hourCapacity < 0 || dayCapacity < 0 || wordCapacity <= 0 || Integer.bitCount(wordCapacity) != 1) {
+			return false;
+		}
+		return getTablesEnd(hourCapacity, dayCapacity, wordCapacity) == length;
+	}
+
+	/**
+	 * Helper method to find the counts of an hour in the file.
+	 *
+	 * @return An integer containing the position of the counts, or -1 if the hour
+	 *         is outside the table of hours.
+	 */
+	private int getHourPosition(ByteBuffer totals, long hour) {
+		return getCountsPosition(HEADER_SIZE, totals.getLong(FIRST_HOUR_POSITION),
+				totals.getInt(HOUR_CAPACITY_POSITION), hour);
+	}
+
+	/**
+	 * Helper method to find the counts of a day in the file.
+	 *
+	 * @return An integer containing the position of the counts, or -1 if the day
+	 *         is outside the table of days.
+	 */
+	private int getDayPosition(ByteBuffer totals, long day) {
+		return getCountsPosition(getDaysStart(totals), totals.getLong(FIRST_DAY_POSITION),
+				totals.getInt(DAY_CAPACITY_POSITION), day);
+	}
+
+	private int getCountsPosition(int tableStart, long firstKey, int capacity, long key) {
+		long index = key - firstKey;
+		if (index < 0 || index >= capacity) {
+			return -1;
+		}
+		return tableStart + (int) index * COUNTS_SIZE;
+	}
+
+	private int getDaysStart(ByteBuffer totals) {
+		return HEADER_SIZE + totals.getInt(HOUR_CAPACITY_POSITION) * COUNTS_SIZE;
+	}
+
+	private int getWordsStart(ByteBuffer totals) {
+		return getDaysStart(totals) + totals.getInt(DAY_CAPACITY_POSITION) * COUNTS_SIZE;
+	}
+
+	private long getTablesEnd(int hourCapacity, int dayCapacity, int wordCapacity) {
+		return HEADER_SIZE + ((long) hourCapacity + dayCapacity) * COUNTS_SIZE + (long) wordCapacity * WORD_ENTRY_SIZE;
+	}
+
+	/**
+	 * Helper method to find the entry of a word in a topic in the table of words,
+	 * or the empty entry where it would be placed.
+	 */
+	private int findWordEntry(ByteBuffer totals, int topicId, int wordId) {
+		int mask = totals.getInt(WORD_CAPACITY_POSITION) - 1;
+		int wordsStart = getWordsStart(totals);
+		long key = ((long) topicId << 32) | wordId;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (true) {
+			int position = wordsStart + slot * WORD_ENTRY_SIZE;
+			int topicKey = totals.getInt(position);
+			if (topicKey == 0 || (topicKey == topicId + 1 && totals.getInt(position + WORD_ID_OFFSET) == wordId)) {
+				return position;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Helper method to look up the number of a topic, giving it one if it has
+	 * none.
+	 */
+	private int getTopicId(String wordList) {
+		int topicId = dictionaryIO.findTopicId(wordList);
+		return topicId >= 0 ? topicId : dictionaryIO.getTopicId(wordList);
+	}
+
+	/**
+	 * Helper method to look up the number of a word, giving it one if it has none.
+	 */
+	private int getWordId(String word) {
+		int wordId = dictionaryIO.findWordId(word);
+		return wordId >= 0 ? wordId : dictionaryIO.getWordId(word);
+	}
+}
@@ -0,0 +1,261 @@
+package fileio;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+
+/**
+ * Records spelling attempts to the statistics file on a separate writer thread,
+ * so that the thread recording an attempt does not wait for the file to be
+ * written. Attempts wait in a queue, and the writer thread records them in
+ * batches once enough have been collected or the oldest has waited long enough.
+ *
+ * There is one StatisticsAppender for each statistics file. Any attempts still
+ * waiting are recorded when the application exits. The attempts of a batch
+ * that cannot be recorded, such as while the disk is full, are kept and tried
+ * again along with the attempts that arrive after them, leaving out those of
+ * the batch that were recorded so that none is recorded twice.
+ */
+public class StatisticsAppender {
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final int MAX_BATCH_SIZE = 64;
+	private static final long MAX_WAIT_MILLIS = 200;
+	private static final HashMap<String, StatisticsAppender> APPENDERS = new HashMap<>();
+	// Queued to wake the writer thread, which records everything queued before it
+	private static final SpellingAttempt FLUSH_MARKER = new SpellingAttempt(null, null, null, null, 0);
+
+	private String filepath;
+	private BlockingQueue<SpellingAttempt> queue;
+	private Thread writerThread;
+	private long queuedCount;
+	// Attempts the writer thread has tried to record, whether or not they were
+	private long triedCount;
+	private long writtenCount;
+	private boolean isClosed;
+
+	private StatisticsAppender(String filepath) {
+		this.filepath = filepath;
+		queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		writerThread = new Thread(this::writeAttempts, "statistics-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "statistics-writer-shutdown"));
+	}
+
+	/**
+	 * Returns the StatisticsAppender of a statistics file, starting its writer
+	 * thread if this is the first use.
+	 *
+	 * @param filepath A String object containing the filepath to the statistics
+	 *                 file.
+	 * @return The StatisticsAppender object for the file.
+	 */
+	public static synchronized StatisticsAppender getInstance(String filepath) {
+		StatisticsAppender appender = APPENDERS.get(filepath);
+		if (appender == null) {
+			appender = new StatisticsAppender(filepath);
+			APPENDERS.put(filepath, appender);
+		}
+		return appender;
+	}
+
+	/**
+	 * Queues a spelling attempt to be recorded to file by the writer thread. The
+	 * caller only waits if the queue is full, which happens if the writer thread
+	 * has fallen far behind. Once the application is exiting, the attempt is
+	 * recorded straight away instead.
+	 *
+	 * @param dateTime     An OffsetDateTime object recording when the attempt took
+	 *                     place.
+	 * @param word         A String containing the word attempted when spelt
+	 *                     correctly.
+	 * @param wordList     A String containing the topic that the word belongs to.
+	 * @param answerStatus An AnswerStatus enumeration representing whether the user
+	 *                     has mastered, faulted or failed the attempted word.
+	 * @param scoreEarned  An integer representing how much earning the user got
+	 *                     from the attempt.
+	 */
+	public void recordWordSpelling(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
+			int scoreEarned) {
+		recordWordSpelling(dateTime, word, wordList, answerStatus, scoreEarned, SpellingAttempt.UNKNOWN_LATENCY);
+	}
+
+	/**
+	 * Queues a spelling attempt to be recorded to file by the writer thread, along
+	 * with how long the user took to answer. See recordWordSpelling above.
+	 *
+	 * @param dateTime      An OffsetDateTime object recording when the attempt
+	 *                      took place.
+	 * @param word          A String containing the word attempted when spelt
+	 *                      correctly.
+	 * @param wordList      A String containing the topic that the word belongs
+	 *                      to.
+	 * @param answerStatus  An AnswerStatus enumeration representing whether the
+	 *                      user has mastered, faulted or failed the attempted
+	 *                      word.
+	 * @param scoreEarned   An integer representing how much earning the user got
+	 *                      from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds the user took
+	 *                      to answer, or SpellingAttempt.UNKNOWN_LATENCY.
+	 */
+	public void recordWordSpelling(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
+			int scoreEarned, int latencyMillis) {
+		SpellingAttempt attempt = new SpellingAttempt(dateTime, word, wordList, answerStatus, scoreEarned,
+				latencyMillis);
+		if (!enqueue(attempt)) {
+			ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+			attempts.add(attempt);
+			new StatisticsIO(filepath).recordWordSpellings(attempts);
+		}
+	}
+
+	/**
+	 * Helper method to add an attempt to the queue, waiting only if the queue is
+	 * full.
+	 */
+	private boolean enqueue(SpellingAttempt attempt) {
+		synchronized (this) {
+			if (isClosed) {
+				return false;
+			}
+			queuedCount++;
+			if (queue.offer(attempt)) {
+				return true;
+			}
+		}
+		try {
+			queue.put(attempt);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			synchronized (this) {
+				queuedCount--;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Waits until every attempt queued so far has been recorded to file, such as
+	 * before showing statistics that should include them. Attempts that could not
+	 * be recorded are not waited for again, and are tried again later.
+	 */
+	public synchronized void flush() {
+		long target = queuedCount;
+		if (triedCount >= target) {
+			return;
+		}
+		// If the queue is full, the writer thread is already busy recording
+		queue.offer(FLUSH_MARKER);
+		while (triedCount < target && writerThread.isAlive()) {
+			try {
+				wait(MAX_WAIT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Records any attempts still waiting and stops the writer thread. Attempts made
+	 * afterwards are recorded straight away.
+	 */
+	public void close() {
+		flush();
+		synchronized (this) {
+			isClosed = true;
+			queue.offer(FLUSH_MARKER);
+		}
+	}
+
+	/**
+	 * Runs on the writer thread, taking attempts from the queue in batches and
+	 * recording each batch to file. The attempts of a batch that could not be
+	 * recorded are kept, and the attempts collected next are added to them before
+	 * they are tried again.
+	 */
+	private void writeAttempts() {
+		ArrayList<SpellingAttempt> batch = new ArrayList<>();
+		int triedSize = 0;
+		while (!isClosedAndEmpty() || !batch.isEmpty()) {
+			try {
+				collectBatch(batch);
+			} catch (InterruptedException e) {
+				// Record what has been collected so far
+			}
+			if (batch.isEmpty()) {
+				continue;
+			}
+			int batchWrittenCount = writeBatch(batch);
+			synchronized (this) {
+				triedCount += batch.size() - triedSize;
+				writtenCount += batchWrittenCount;
+				notifyAll();
+			}
+			batch.subList(0, batchWrittenCount).clear();
+			triedSize = batch.size();
+		}
+	}
+
+	/**
+	 * Helper method to record a batch of attempts to file. The attempts recorded
+	 * are always the first ones of the batch. Attempts that reached the segments
+	 * before a failure count as recorded, as the running totals catch up with them
+	 * on the next read, so they are not written twice.
+	 *
+	 * @return An integer containing how many of the attempts were recorded,
+	 *         counted from the start of the batch.
+	 */
+	private int writeBatch(ArrayList<SpellingAttempt> batch) {
+		StatisticsIO statisticsIO;
+		try {
+			statisticsIO = new StatisticsIO(filepath);
+		} catch (RuntimeException e) {
+			// Keep the attempts, which are tried again with the next batch
+			return 0;
+		}
+		String lastDay = statisticsIO.getLastSegmentDay();
+		long lastLength = statisticsIO.getSegmentLength(lastDay);
+		try {
+			return statisticsIO.recordWordSpellings(batch);
+		} catch (RuntimeException e) {
+			return Math.min(batch.size(), statisticsIO.getAttemptCountAfter(lastDay, lastLength));
+		}
+	}
+
+	/**
+	 * Waits for attempts to arrive, then keeps collecting them until the batch is
+	 * full, the first attempt has waited long enough, or a flush is requested. A
+	 * batch kept from a failed write is only waited on for so long before it is
+	 * tried again.
+	 */
+	private void collectBatch(ArrayList<SpellingAttempt> batch) throws InterruptedException {
+		SpellingAttempt next = batch.isEmpty() ? queue.take() : queue.poll(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		if (next == null) {
+			return;
+		}
+		long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+		while (next != FLUSH_MARKER) {
+			batch.add(next);
+			long remaining = deadline - System.currentTimeMillis();
+			if (batch.size() >= MAX_BATCH_SIZE || remaining <= 0) {
+				return;
+			}
+			next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+			if (next == null) {
+				return;
+			}
+		}
+	}
+
+	private synchronized boolean isClosedAndEmpty() {
+		return isClosed && queue.isEmpty();
+	}
+}
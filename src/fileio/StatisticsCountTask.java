@@ -0,0 +1,74 @@
+package fileio;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import statistics.StatisticsAggregates;
+
+/**
+ * Counts a run of chunks of spelling attempts towards running totals of their
+ * own, splitting the run in half to be counted on other threads of a
+ * ForkJoinPool while it holds more than one chunk. The totals of the two halves
+ * are then added together, which gives the same totals as counting every chunk
+ * in order, since totals are sums and latest attempts are maximums.
+ */
+class StatisticsCountTask extends RecursiveTask<StatisticsAggregates> {
+	private static final long serialVersionUID = 1L;
+
+	private final StatisticsIO statisticsIO;
+	private final List<Chunk> chunks;
+	private final int first;
+	private final int end;
+
+	/**
+	 * Creates a StatisticsCountTask object.
+	 *
+	 * @param statisticsIO The StatisticsIO object that counts each chunk, whose
+	 *                     dictionary must already know every word and topic in
+	 *                     the chunks.
+	 * @param chunks       A List object storing the chunks.
+	 * @param first        An integer containing the position of the first chunk
+	 *                     to count.
+	 * @param end          An integer containing the position after the last chunk
+	 *                     to count.
+	 */
+	StatisticsCountTask(StatisticsIO statisticsIO, List<Chunk> chunks, int first, int end) {
+		this.statisticsIO = statisticsIO;
+		this.chunks = chunks;
+		this.first = first;
+		this.end = end;
+	}
+
+	@Override
+	protected StatisticsAggregates compute() {
+		if (end - first <= 1) {
+			StatisticsAggregates aggregates = new StatisticsAggregates();
+			if (first < end) {
+				Chunk chunk = chunks.get(first);
+				statisticsIO.addRecordsToAggregates(chunk.records, chunk.first, chunk.end, aggregates);
+			}
+			return aggregates;
+		}
+		int middle = (first + end) >>> 1;
+		StatisticsCountTask second = new StatisticsCountTask(statisticsIO, chunks, middle, end);
+		second.fork();
+		StatisticsAggregates aggregates = new StatisticsCountTask(statisticsIO, chunks, first, middle).compute();
+		aggregates.addAll(second.join());
+		return aggregates;
+	}
+
+	/**
+	 * A run of consecutive attempts in one segment.
+	 */
+	static class Chunk {
+		private final StatisticsRecords records;
+		private final int first;
+		private final int end;
+
+		Chunk(StatisticsRecords records, int first, int end) {
+			this.records = records;
+			this.first = first;
+			this.end = end;
+		}
+	}
+}
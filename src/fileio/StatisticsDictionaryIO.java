@@ -0,0 +1,283 @@
+package fileio;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reads from and writes to the file that gives every word and topic in the
+ * statistics file a number, so that attempts can refer to them by number.
+ *
+ * Each line assigns a number to either a word or a topic, such as
+ * "WORD 12 whero" or "TOPIC 1 Colours". Numbers are given out in order and
+ * never change once given. The file is read again when asked for a number that
+ * was given out after it was read, such as by another thread. Lines that
+ * cannot be read, such as one left half-written when the application stopped,
+ * are skipped.
+ *
+ * There is one StatisticsDictionaryIO for each file, shared by everything that
+ * reads the statistics, so the file is read once rather than on every screen
+ * and recording, and each word and topic is held as one String however many
+ * totals and attempts refer to it. Such shared names are equal when they are
+ * the same object, and keep their hash codes once worked out.
+ *
+ * Numbers are given out while holding the lock on the StatisticsDictionaryIO
+ * object. Names are looked up from their numbers without the lock, as the names
+ * are kept in arrays that are only added to, and each added name is published
+ * by the count of names that follows it.
+ */
+public class StatisticsDictionaryIO extends FileIO {
+	private static final HashMap<String, StatisticsDictionaryIO> INSTANCES = new HashMap<>();
+	private static final String WORD = "WORD";
+	private static final String TOPIC = "TOPIC";
+
+	private Names words;
+	private Names topics;
+
+	/**
+	 * Creates a StatisticsDictionaryIO object with the filepath to the file to
+	 * modify, and reads the numbers already given out from the file.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	private StatisticsDictionaryIO(String filepath) {
+		super(filepath);
+		words = new Names();
+		topics = new Names();
+		loadDictionary();
+	}
+
+	/**
+	 * Returns the StatisticsDictionaryIO of a dictionary file, reading the file
+	 * the first time it is asked for.
+	 *
+	 * @param filepath A String object containing the filepath to the file.
+	 * @return The StatisticsDictionaryIO object for the file.
+	 */
+	public static synchronized StatisticsDictionaryIO getInstance(String filepath) {
+		StatisticsDictionaryIO dictionaryIO = INSTANCES.get(filepath);
+		if (dictionaryIO == null) {
+			dictionaryIO = new StatisticsDictionaryIO(filepath);
+			INSTANCES.put(filepath, dictionaryIO);
+		}
+		return dictionaryIO;
+	}
+
+	/**
+	 * Reads the numbers already given out from the file. Numbers that already
+	 * have a name keep it, so that names handed out stay the same objects.
+	 */
+	private synchronized void loadDictionary() {
+		for (String line : readLines()) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] parts = getStringPartsFromLine(line);
+			int id;
+			try {
+				id = parts.length == 3 ? Integer.parseInt(parts[1]) : -1;
+			} catch (NumberFormatException e) {
+				id = -1;
+			}
+			if (id < 0) {
+				continue;
+			}
+			if (parts[0].equals(WORD) && words.find(id) == null) {
+				words.add(parts[2], id);
+			} else if (parts[0].equals(TOPIC) && topics.find(id) == null) {
+				topics.add(parts[2], id);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number given to a word, giving it a new number if it has none.
+	 *
+	 * @param word A CharSequence containing the word, with spaces replaced by
+	 *             dashes.
+	 * @return An integer containing the number of the word.
+	 */
+	public synchronized int getWordId(CharSequence word) {
+		return getId(WORD, word, words);
+	}
+
+	/**
+	 * Returns the number given to a topic, giving it a new number if it has none.
+	 *
+	 * @param topic A CharSequence containing the name of the topic.
+	 * @return An integer containing the number of the topic.
+	 */
+	public synchronized int getTopicId(CharSequence topic) {
+		return getId(TOPIC, topic, topics);
+	}
+
+	/**
+	 * Helper method to look up the number of a word or topic, saving a new number
+	 * to the file when it has none. Looking up a known word or topic creates no
+	 * objects.
+	 */
+	private int getId(String kind, CharSequence name, Names names) {
+		int id = names.ids.get(name);
+		if (id >= 0) {
+			return id;
+		}
+		int newId = names.count;
+		String newName = name.toString();
+		appendLine(kind + " " + newId + " " + newName);
+		names.add(newName, newId);
+		return newId;
+	}
+
+	/**
+	 * Returns the number given to a word without giving it one, reading the file
+	 * again in case it was given one since.
+	 *
+	 * @return An integer containing the number of the word, or -1 if it has none.
+	 */
+	synchronized int findWordId(CharSequence word) {
+		return findId(word, words);
+	}
+
+	/**
+	 * Returns the number given to a topic without giving it one, reading the file
+	 * again in case it was given one since.
+	 *
+	 * @return An integer containing the number of the topic, or -1 if it has none.
+	 */
+	synchronized int findTopicId(CharSequence topic) {
+		return findId(topic, topics);
+	}
+
+	private int findId(CharSequence name, Names names) {
+		int id = names.ids.get(name);
+		if (id < 0) {
+			loadDictionary();
+			id = names.ids.get(name);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the number given to a topic as far as is known, without reading the
+	 * file again or waiting for the lock. There are few topics, so they are
+	 * searched in order.
+	 *
+	 * @param topic A String containing the name of the topic.
+	 * @return An integer containing the number of the topic, or -1 if it is not
+	 *         known to have one.
+	 */
+	int findKnownTopicId(String topic) {
+		int count = topics.count;
+		String[] names = topics.names;
+		for (int id = 0; id < count; id++) {
+			if (topic.equals(names[id])) {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads the file again, so that numbers given out since it was last read are
+	 * known.
+	 */
+	void reloadDictionary() {
+		loadDictionary();
+	}
+
+	/**
+	 * Removes a line left half-written at the end of the file, so that the next
+	 * number given out starts on a line of its own. Do this before any numbers are
+	 * given out.
+	 *
+	 * @return A boolean that is true if a line was removed.
+	 */
+	synchronized boolean recoverTornLine() {
+		if (!removeTornLastLine()) {
+			return false;
+		}
+		loadDictionary();
+		return true;
+	}
+
+	/**
+	 * Returns the word that has been given a number.
+	 *
+	 * @param id An integer containing the number of the word.
+	 * @return A String containing the word, with spaces replaced by dashes, or null
+	 *         if no word has been given the number, such as for an attempt whose
+	 *         word was not saved in full.
+	 */
+	public String getWord(int id) {
+		String word = words.find(id);
+		if (word == null) {
+			loadDictionary();
+			word = words.find(id);
+		}
+		return word;
+	}
+
+	/**
+	 * Returns the topic that has been given a number.
+	 *
+	 * @param id An integer containing the number of the topic.
+	 * @return A String containing the name of the topic, or null if no topic has
+	 *         been given the number.
+	 */
+	public String getTopic(int id) {
+		String topic = topics.find(id);
+		if (topic == null) {
+			loadDictionary();
+			topic = topics.find(id);
+		}
+		return topic;
+	}
+
+	/**
+	 * Returns the word that has been given a number as far as is known, without
+	 * reading the file again or waiting for the lock.
+	 *
+	 * @param id An integer containing the number of the word.
+	 * @return A String containing the word, or null if it is not known.
+	 */
+	String findKnownWord(int id) {
+		return words.find(id);
+	}
+
+	/**
+	 * The names of words or topics at the index of their numbers, and the numbers
+	 * of the names. Names are only added while holding the lock on the
+	 * StatisticsDictionaryIO object.
+	 */
+	private static class Names {
+		// Grown into a new array, which is published before the count reaches it
+		private volatile String[] names = new String[64];
+		private volatile int count;
+		// Only used while holding the lock
+		private final StringIdTable ids = new StringIdTable();
+
+		/**
+		 * Stores the name given a number, which may be past the names already held.
+		 */
+		private void add(String name, int id) {
+			if (id >= names.length) {
+				names = Arrays.copyOf(names, Math.max(names.length * 2, id + 1));
+			}
+			names[id] = name;
+			ids.put(name, id);
+			// Written last, so a reader that sees the count sees the name
+			count = Math.max(count, id + 1);
+		}
+
+		/**
+		 * Returns the name given a number, or null if it is not known, without the
+		 * lock.
+		 */
+		private String find(int id) {
+			// The count is read first, as the names it reaches are published before it
+			int known = count;
+			String[] current = names;
+			return id >= 0 && id < known ? current[id] : null;
+		}
+	}
+}
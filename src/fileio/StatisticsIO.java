@@ -1,13 +1,31 @@
 package fileio;
 
-import java.time.DayOfWeek;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
 import enums.AnswerStatus;
+import statistics.FrequentWords;
+import statistics.LatencyHistogram;
 import statistics.ProportionsFeed;
+import statistics.SpellingAttempt;
+import statistics.SpellingPerformance;
+import statistics.StatisticsAggregates;
+import statistics.StatisticsPyramid;
+import statistics.StatisticsQuery;
+import statistics.TimeBuckets;
 import statistics.TimelineFeed;
 import statistics.VocabularyStatistics;
 
@@ -15,10 +33,58 @@ import statistics.VocabularyStatistics;
  * Reads from and writes to the file about the user's attempted spelling of
  * every word tested in the Games Module quiz.
  *
+ * Attempts are stored in binary, split into one segment per day by
+ * StatisticsSegmentsIO, with words and topics numbered by
+ * StatisticsDictionaryIO, which is shared by every StatisticsIO of the file so
+ * that each name is read once and held once. Timelines read only the attempts
+ * in their window of time, found through the segments and their indexes, and
+ * place each attempt into a bucket by its epoch second. Running totals of the
+ * attempts are kept in a separate mapped file, and are updated in place
+ * whenever an attempt is recorded, so that queries over the whole history do
+ * not read every attempt and the totals are not held on the heap. Old attempts
+ * can be compacted into daily counts, which keeps the statistics from growing
+ * without bound while the totals and the day-by-day timelines stay the same.
+ * Any other selection of attempts, by time, topic, answer status or word, can
+ * be read with a StatisticsQuery, which the timelines and totals are read
+ * through too.
+ *
+ * Timelines are drawn from counts per minute, hour, day, week and month where
+ * their buckets line up with one of these, and from the attempts otherwise. The
+ * counts are kept in another file and brought up to date with the segments
+ * when a timeline is next asked for, so recording an attempt does not wait for
+ * them.
+ *
  * @author Jared Daniel Recomendable
  *
  */
 public class StatisticsIO extends FileIO {
+	/**
+	 * The number of days that attempts are kept in full before being compacted,
+	 * unless another number is given.
+	 */
+	public static final int DEFAULT_RAW_RETENTION_DAYS = 30;
+	// Attempts of the current week are always kept in full, as the day and week
+	// timelines need them
+	private static final int MIN_RAW_RETENTION_DAYS = 8;
+	private static final Object COMPACTION_LOCK = new Object();
+	// Minutes are only kept for timelines of the recent past
+	private static final long MINUTE_RETENTION_SECONDS = 7 * 24 * 60 * 60;
+	// The counts of each statistics file, kept between timelines
+	private static final HashMap<String, StatisticsPyramid> PYRAMIDS = new HashMap<>();
+	// Smaller histories are counted faster on one thread than split up
+	private static final int PARALLEL_COUNT_THRESHOLD = 1 << 18;
+	private static final int COUNT_CHUNK_SIZE = 1 << 15;
+	// Counters kept for the most failed words of a window
+	private static final int TROUBLE_WORDS_CAPACITY = 1024;
+	// Statistics files already checked since the application started
+	private static final HashSet<String> RECOVERED = new HashSet<>();
+
+	private StatisticsLogIO legacyLogIO;
+	private StatisticsSegmentsIO segmentsIO;
+	private StatisticsDictionaryIO dictionaryIO;
+	private StatisticsAggregatesIO aggregatesIO;
+	private StatisticsPyramidIO pyramidIO;
+	private StatisticsQueryPlan allAttempts;
 
 	/**
 	 * Creates a StatisticsIO object with the filepath to the file to modify.
@@ -28,6 +94,66 @@ public class StatisticsIO extends FileIO {
 	 */
 	public StatisticsIO(String filepath) {
 		super(filepath);
+		legacyLogIO = new StatisticsLogIO(filepath);
+		segmentsIO = new StatisticsSegmentsIO(filepath + ".segments");
+		dictionaryIO = StatisticsDictionaryIO.getInstance(filepath + ".dictionary");
+		aggregatesIO = StatisticsAggregatesIO.getInstance(filepath + ".aggregates", filepath + ".dictionary");
+		pyramidIO = new StatisticsPyramidIO(filepath + ".pyramid");
+		allAttempts = new StatisticsQueryPlan(new StatisticsQuery(), dictionaryIO);
+		recoverOnce();
+		migrateIfLegacyFormat();
+	}
+
+	/**
+	 * Checks the statistics files for anything left half-written the first time a
+	 * statistics file is opened after the application starts.
+	 */
+	private void recoverOnce() {
+		synchronized (RECOVERED) {
+			if (RECOVERED.add(filepath)) {
+				recoverStatistics();
+			}
+		}
+	}
+
+	/**
+	 * Removes anything left half-written in the statistics files when the
+	 * application last stopped, and sets aside attempts that were not written in
+	 * full so that the rest can still be read. Only attempts added since the last
+	 * check are checked. The running totals are recounted if any attempts were set
+	 * aside, as the positions they refer to have changed.
+	 *
+	 * @return An integer containing the number of attempts and segments set aside.
+	 */
+	public int recoverStatistics() {
+		dictionaryIO.recoverTornLine();
+		int quarantinedCount = segmentsIO.recoverSegments();
+		if (quarantinedCount > 0) {
+			aggregatesIO.deleteAggregates();
+			VocabularyStatisticsCache.getInstance(filepath).invalidate();
+			getResultCache().invalidate();
+			synchronized (PYRAMIDS) {
+				PYRAMIDS.remove(filepath);
+				pyramidIO.deletePyramid();
+			}
+		}
+		return quarantinedCount;
+	}
+
+	/**
+	 * Moves attempts from the text statistics file of older versions of the
+	 * application into segments. The running totals are recounted afterwards, as
+	 * the positions they refer to have changed.
+	 */
+	private void migrateIfLegacyFormat() {
+		if (legacyLogIO.isTextFormat()) {
+			aggregatesIO.deleteAggregates();
+			pyramidIO.deletePyramid();
+			segmentsIO.migrateFrom(legacyLogIO, dictionaryIO);
+			if (!new File(filepath).exists()) {
+				rebuildAggregates();
+			}
+		}
 	}
 
 	/**
@@ -45,146 +171,619 @@ public class StatisticsIO extends FileIO {
 	 */
 	public void recordWordSpelling(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
 			int scoreEarned) {
-		String formatted = word.replace(' ', '-');
-		StringBuilder stringBuilder = new StringBuilder();
-		stringBuilder.append(dateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + " ");
-		stringBuilder.append(formatted + " ");
-		stringBuilder.append(wordList + " ");
-		stringBuilder.append(answerStatus.toString() + " ");
-		stringBuilder.append(scoreEarned);
-		appendLine(stringBuilder.toString());
+		recordWordSpelling(dateTime, word, wordList, answerStatus, scoreEarned, SpellingAttempt.UNKNOWN_LATENCY);
 	}
 
 	/**
-	 * Retrieves user performance about all words in a given wordlist, detailing
-	 * information about how many times the mastered, faulted and failed words in
-	 * the topic associated with the wordlist.
+	 * Records a spelling attempt to file, along with how long the user took to
+	 * answer.
 	 *
-	 * @param wordList A String containing the wordlist to retrieve on.
-	 * @return A VocabularyStatistics object containing information on words from
-	 *         the input wordlist.
+	 * @param dateTime      An OffsetDateTime object recording when the attempt
+	 *                      took place.
+	 * @param word          A String containing the word attempted when spelt
+	 *                      correctly.
+	 * @param wordList      A String containing the topic that the word belongs
+	 *                      to.
+	 * @param answerStatus  An AnswerStatus enumeration representing whether the
+	 *                      user has mastered, faulted or failed the attempted
+	 *                      word.
+	 * @param scoreEarned   An integer representing how much earning the user got
+	 *                      from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds the user took
+	 *                      to answer, or SpellingAttempt.UNKNOWN_LATENCY.
 	 */
-	public VocabularyStatistics getVocabularyStatistics(String wordList) {
-		VocabularyStatistics vocabularyStatistics = new VocabularyStatistics();
-		ArrayList<String> records = readLines();
-		for (String record : records) {
-			addRecordIfInTargetWordList(record, wordList, vocabularyStatistics);
+	public void recordWordSpelling(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
+			int scoreEarned, int latencyMillis) {
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		attempts.add(new SpellingAttempt(dateTime, word, wordList, answerStatus, scoreEarned, latencyMillis));
+		recordWordSpellings(attempts);
+	}
+
+	/**
+	 * Records spelling attempts to file, writing the attempts of each segment in
+	 * one write and adding them to the running totals once. If the attempts cannot
+	 * all be written, such as while the disk is full, the attempts written are the
+	 * first ones in the list, and the rest can be recorded again later.
+	 *
+	 * @param attempts A List object storing the SpellingAttempts to record, in the
+	 *                 order they took place.
+	 * @return An integer containing how many of the attempts were written, counted
+	 *         from the start of the list.
+	 */
+	public int recordWordSpellings(List<SpellingAttempt> attempts) {
+		if (attempts.isEmpty()) {
+			return 0;
+		}
+		// The totals are not brought up to date while the attempts are between the
+		// segments and the totals, so they are counted exactly once. Readers of the
+		// cached statistics do not wait for this.
+		synchronized (aggregatesIO) {
+			bringAggregatesUpToDate();
+			for (SpellingAttempt attempt : attempts) {
+				OffsetDateTime dateTime = attempt.getDateTime();
+				String formatted = attempt.getWord().replace(' ', '-');
+				int wordId = dictionaryIO.getWordId(formatted);
+				int topicId = dictionaryIO.getTopicId(attempt.getWordList());
+				if (!segmentsIO.bufferRecord(dateTime.toEpochSecond(), dateTime.getOffset().getTotalSeconds(), wordId,
+						topicId, attempt.getAnswerStatus(), attempt.getScoreEarned(), attempt.getLatencyMillis())) {
+					break;
+				}
+			}
+			int writtenCount = segmentsIO.flushBufferedRecords();
+
+			// The attempts are in their segments before the totals are updated, so if
+			// the application stops in between, the totals catch up on the next read.
+			StatisticsAggregates added = new StatisticsAggregates();
+			for (SpellingAttempt attempt : attempts.subList(0, writtenCount)) {
+				OffsetDateTime dateTime = attempt.getDateTime();
+				added.addAttempt(dateTime.toEpochSecond(), dateTime.getOffset().getTotalSeconds(),
+						attempt.getWord().replace(' ', '-'), attempt.getWordList(), attempt.getAnswerStatus());
+			}
+			String lastDay = segmentsIO.getLastSegmentDay();
+			added.setLogSegment(lastDay);
+			added.setLogLength(segmentsIO.getSegmentLength(lastDay));
+			int previousSequence = aggregatesIO.getSequence();
+			if (aggregatesIO.addAggregates(added)) {
+				VocabularyStatisticsCache.getInstance(filepath).publishAdded(previousSequence, added, aggregatesIO);
+			}
+			return writtenCount;
 		}
-		return vocabularyStatistics;
 	}
 
 	/**
-	 * Helper function to add word to VocabularyStatistics object when it belongs to
-	 * the target word list.
+	 * Retrieves a copy of the running totals of attempts, bringing them up to date
+	 * with the segments first. The totals themselves are kept in a mapped file,
+	 * and the copy is held on the heap, so screens should ask for the statistics
+	 * they show instead where they can.
+	 *
+	 * @return A StatisticsAggregates object that counts every attempt in the
+	 *         segments.
 	 */
-	private void addRecordIfInTargetWordList(String record, String targetWordList,
-			VocabularyStatistics vocabularyStatistics) {
-		String wordList = getStringPartFromLine(record, 2);
-		if (wordList.equals(targetWordList)) {
-			String word = getStringPartFromLine(record, 1);
-			String answerStatus = getStringPartFromLine(record, 3);
-			addToVocabularyStatistics(word, answerStatus, vocabularyStatistics);
+	public StatisticsAggregates getAggregates() {
+		synchronized (aggregatesIO) {
+			bringAggregatesUpToDate();
+			StatisticsAggregates aggregates = aggregatesIO.loadAggregates();
+			return aggregates != null ? aggregates : countAttempts(null);
 		}
+	}
 
+	/**
+	 * Brings the running totals in their file up to date with the segments, by
+	 * adding the attempts added since the totals were last updated. The totals are
+	 * rebuilt from the segments if they are missing, cannot be read, or count more
+	 * than the segments hold. Call this while holding the lock on the
+	 * StatisticsAggregatesIO object, so that the totals read next are up to date.
+	 */
+	void bringAggregatesUpToDate() {
+		if (!aggregatesIO.hasAggregates()) {
+			rebuildAggregates();
+			return;
+		}
+		String logSegment = aggregatesIO.getLogSegment();
+		long logLength = aggregatesIO.getLogLength();
+		if (isUpToDate(logSegment, logLength)) {
+			return;
+		}
+		if (!canCatchUp(logSegment, logLength)) {
+			rebuildAggregates();
+			return;
+		}
+		StatisticsAggregates added = new StatisticsAggregates();
+		addAttemptsAfter(logSegment, logLength, added);
+		if (!aggregatesIO.addAggregates(added)) {
+			rebuildAggregates();
+		}
+	}
+
+	/**
+	 * Returns the StatisticsAggregatesIO object holding the running totals, whose
+	 * lock is held while the totals are brought up to date and read.
+	 */
+	StatisticsAggregatesIO getAggregatesIO() {
+		return aggregatesIO;
 	}
 
 	/**
-	 * Determines if word is mastered, faulted or failed, then adds it appropriately
-	 * to the VocabularyStatistics.
+	 * Determines whether counts have counted every attempt in the segments, from
+	 * the position they have counted up to.
+	 *
+	 * @param countedDay    A String containing the day of the segment counted up
+	 *                      to, or null if no segment has been counted.
+	 * @param countedLength A long containing the number of bytes of that segment
+	 *                      counted.
 	 */
-	private void addToVocabularyStatistics(String word, String answerStatus,
-			VocabularyStatistics vocabularyStatistics) {
-		switch (answerStatus) {
-		case "MASTERED":
-			vocabularyStatistics.incrementMastered(word);
-			break;
-		case "FAULTED":
-			vocabularyStatistics.incrementFaulted(word);
-			break;
-		case "FAILED":
-			vocabularyStatistics.incrementFailed(word);
-			break;
-		default:
-			break;
+	boolean isUpToDate(String countedDay, long countedLength) {
+		String lastDay = segmentsIO.getLastSegmentDay();
+		if (lastDay == null) {
+			return countedDay == null;
 		}
+		return lastDay.equals(countedDay) && countedLength == segmentsIO.getSegmentLength(lastDay);
 	}
 
 	/**
-	 * Gets the timeline feed for mastered attempts for the current day.
+	 * Determines whether counts that are not up to date only lack attempts added
+	 * after the position they have counted up to, so that counting those attempts
+	 * brings them up to date.
 	 *
-	 * @return A TimelineFeed object containing information about mastered attempts.
+	 * @param countedDay    A String containing the day of the segment counted up
+	 *                      to, or null if no segment has been counted.
+	 * @param countedLength A long containing the number of bytes of that segment
+	 *                      counted.
 	 */
-	public TimelineFeed getMasteredTimelineFeedForDay() {
-		return getTimelineFeedForDay("MASTERED");
+	boolean canCatchUp(String countedDay, long countedLength) {
+		String lastDay = segmentsIO.getLastSegmentDay();
+		if (lastDay == null) {
+			return false;
+		}
+		return countedDay == null || (countedDay.compareTo(lastDay) <= 0
+				&& countedLength <= segmentsIO.getSegmentLength(countedDay));
 	}
 
 	/**
-	 * Gets the timeline feed for faulted attempts for the current day.
+	 * Counts the attempts added after a position in the segments towards running
+	 * totals, which are then marked as having counted up to the end of the
+	 * segments.
 	 *
-	 * @return A TimelineFeed object containing information about faulted attempts.
+	 * @param countedDay    A String containing the day of the segment counted up
+	 *                      to, or null to count from the first segment.
+	 * @param countedLength A long containing the number of bytes of that segment
+	 *                      already counted.
+	 * @param aggregates    The StatisticsAggregates object to count the attempts
+	 *                      towards.
 	 */
-	public TimelineFeed getFaultedTimelineFeedForDay() {
-		return getTimelineFeedForDay("FAULTED");
+	void addAttemptsAfter(String countedDay, long countedLength, StatisticsAggregates aggregates) {
+		for (String day : segmentsIO.getSegmentDays()) {
+			int firstIndex = getFirstIndexAfter(day, countedDay, countedLength);
+			if (firstIndex >= 0) {
+				addSegmentToAggregates(day, firstIndex, aggregates);
+			}
+		}
 	}
 
 	/**
-	 * Gets the timeline feed for failed attempts for the current day.
+	 * Finds when the earliest and latest of the attempts added after a position in
+	 * the segments took place.
 	 *
-	 * @return A TimelineFeed object containing information about failed attempts.
+	 * @param countedDay    A String containing the day of the segment counted up
+	 *                      to, or null to look from the first segment.
+	 * @param countedLength A long containing the number of bytes of that segment
+	 *                      already counted.
+	 * @return A long array holding the earliest and latest epoch second, or null
+	 *         if no attempts have been added.
 	 */
-	public TimelineFeed getFailedTimelineFeedForDay() {
-		return getTimelineFeedForDay("FAILED");
+	long[] getTimeRangeAfter(String countedDay, long countedLength) {
+		long[] timeRange = null;
+		for (String day : segmentsIO.getSegmentDays()) {
+			int firstIndex = getFirstIndexAfter(day, countedDay, countedLength);
+			if (firstIndex < 0) {
+				continue;
+			}
+			StatisticsRecords records = segmentsIO.mapSegment(day);
+			for (int i = firstIndex; i < records.size(); i++) {
+				long epochSecond = records.getEpochSecond(i);
+				if (timeRange == null) {
+					timeRange = new long[] { epochSecond, epochSecond };
+				}
+				timeRange[0] = Math.min(timeRange[0], epochSecond);
+				timeRange[1] = Math.max(timeRange[1], epochSecond);
+			}
+		}
+		return timeRange;
 	}
 
 	/**
-	 * Gets timeline feed for the day, taking mastered, faulted or failed depending
-	 * on the input answer status.
+	 * Returns the day of the newest segment, or null if there are no segments.
 	 */
-	private TimelineFeed getTimelineFeedForDay(String answerStatus) {
-		TimelineFeed timelineFeed = new TimelineFeed();
-		initialiseTimelineFeedForDay(timelineFeed);
-		OffsetDateTime currentDateTime = OffsetDateTime.now();
-		ArrayList<String> records = readLines();
-		for (String record : records) {
-			addRecordToTimelineIfSameDay(record, currentDateTime, timelineFeed, answerStatus);
+	String getLastSegmentDay() {
+		return segmentsIO.getLastSegmentDay();
+	}
+
+	/**
+	 * Returns the number of bytes in the segment of a day, or zero if the day is
+	 * null or has no segment.
+	 */
+	long getSegmentLength(String day) {
+		return day == null ? 0 : segmentsIO.getSegmentLength(day);
+	}
+
+	/**
+	 * Counts the attempts added after a position in the segments towards the
+	 * finest levels of counts per bucket, which are then marked as having counted
+	 * up to the end of the segments.
+	 */
+	private void addAttemptsAfter(String countedDay, long countedLength, StatisticsPyramid pyramid) {
+		for (String day : segmentsIO.getSegmentDays()) {
+			int firstIndex = getFirstIndexAfter(day, countedDay, countedLength);
+			if (firstIndex >= 0) {
+				addSegmentToPyramid(day, firstIndex, pyramid);
+			}
+		}
+	}
+
+	/**
+	 * Counts the attempts added after a position in the segments, such as to find
+	 * how many of a batch of attempts reached the segments before a failure.
+	 *
+	 * @param countedDay    A String containing the day of the segment counted up
+	 *                      to, or null to count from the first segment.
+	 * @param countedLength A long containing the number of bytes of that segment
+	 *                      already counted.
+	 * @return An integer containing the number of attempts added.
+	 */
+	int getAttemptCountAfter(String countedDay, long countedLength) {
+		int attemptCount = 0;
+		for (String day : segmentsIO.getSegmentDays()) {
+			int firstIndex = getFirstIndexAfter(day, countedDay, countedLength);
+			if (firstIndex >= 0) {
+				attemptCount += Math.max(0, segmentsIO.mapSegment(day).size() - firstIndex);
+			}
+		}
+		return attemptCount;
+	}
+
+	/**
+	 * Helper method to find the first attempt in the segment of a day that comes
+	 * after a position in the segments.
+	 *
+	 * @return An integer containing the position of the attempt in the segment, or
+	 *         -1 if the whole segment comes before the position.
+	 */
+	private int getFirstIndexAfter(String day, String countedDay, long countedLength) {
+		if (countedDay == null || day.compareTo(countedDay) > 0) {
+			return 0;
+		}
+		if (day.equals(countedDay)) {
+			return segmentsIO.getIndexAtFilePosition(day, countedLength);
+		}
+		return -1;
+	}
+
+	/**
+	 * Recounts the running totals from every attempt in the segments, and saves
+	 * them. Use this to recover the totals if they are lost or damaged.
+	 *
+	 * @return A StatisticsAggregates object that counts every attempt in the
+	 *         segments.
+	 */
+	public StatisticsAggregates rebuildAggregates() {
+		synchronized (aggregatesIO) {
+			StatisticsAggregates aggregates = countAttempts(null);
+			aggregatesIO.saveAggregates(aggregates);
+			return aggregates;
+		}
+	}
+
+	/**
+	 * Counts every attempt in the segments into new running totals, without saving
+	 * them. Attempts are split into chunks that are counted in parallel on the
+	 * threads of a pool, and the totals of the chunks are then added together,
+	 * which gives the same totals as counting on one thread.
+	 *
+	 * @param pool A ForkJoinPool object to count on, or null to count on the
+	 *             common pool if there are enough attempts and processors for it
+	 *             to be faster, and on this thread otherwise.
+	 * @return A StatisticsAggregates object that counts every attempt in the
+	 *         segments.
+	 */
+	public StatisticsAggregates countAttempts(ForkJoinPool pool) {
+		ArrayList<String> days = segmentsIO.getSegmentDays();
+		ArrayList<StatisticsRecords> segments = new ArrayList<>();
+		ArrayList<StatisticsRollups> dayRollups = new ArrayList<>();
+		long attemptCount = 0;
+		for (String day : days) {
+			StatisticsRecords records = segmentsIO.mapSegment(day);
+			StatisticsRollups rollups = segmentsIO.mapRollups(day);
+			if (rollups.getCoveredLength() > 0) {
+				// The day was compacted after its segment was mapped
+				records = new StatisticsRecords(ByteBuffer.allocate(0));
+			}
+			segments.add(records);
+			dayRollups.add(rollups);
+			attemptCount += records.size();
+		}
+		StatisticsAggregates aggregates;
+		if (pool == null && (attemptCount < PARALLEL_COUNT_THRESHOLD
+				|| Runtime.getRuntime().availableProcessors() < 2)) {
+			aggregates = new StatisticsAggregates();
+			for (StatisticsRecords records : segments) {
+				addRecordsToAggregates(records, 0, records.size(), aggregates);
+			}
+		} else {
+			ArrayList<StatisticsCountTask.Chunk> chunks = new ArrayList<>();
+			for (StatisticsRecords records : segments) {
+				for (int first = 0; first < records.size(); first += COUNT_CHUNK_SIZE) {
+					chunks.add(new StatisticsCountTask.Chunk(records, first,
+							Math.min(first + COUNT_CHUNK_SIZE, records.size())));
+				}
+			}
+			// The segments are mapped first, so the dictionary read now knows every
+			// word and topic in them and is not read again while counting
+			dictionaryIO.reloadDictionary();
+			if (pool == null) {
+				pool = ForkJoinPool.commonPool();
+			}
+			aggregates = pool.invoke(new StatisticsCountTask(this, chunks, 0, chunks.size()));
+		}
+		for (int i = 0; i < days.size(); i++) {
+			addRollupsToAggregates(dayRollups.get(i), aggregates);
+			aggregates.setLogSegment(days.get(i));
+			aggregates.setLogLength(segments.get(i).getEndFilePosition());
+		}
+		return aggregates;
+	}
+
+	/**
+	 * Helper method to count attempts in a segment, from the attempt at the input
+	 * position onwards, towards the running totals. Rollups of the day are counted
+	 * when counting from the start of the segment. The totals are then marked as
+	 * having counted up to the end of the segment.
+	 */
+	private void addSegmentToAggregates(String day, int firstIndex, StatisticsAggregates aggregates) {
+		if (firstIndex == 0) {
+			addRollupsToAggregates(segmentsIO.mapRollups(day), aggregates);
+		}
+		StatisticsRecords records = segmentsIO.mapSegment(day);
+		addRecordsToAggregates(records, firstIndex, records.size(), aggregates);
+		aggregates.setLogSegment(day);
+		aggregates.setLogLength(records.getEndFilePosition());
+	}
+
+	/**
+	 * Helper method to count the rollups of a day towards the running totals.
+	 */
+	private void addRollupsToAggregates(StatisticsRollups rollups, StatisticsAggregates aggregates) {
+		allAttempts.scanRollups(rollups, (epochSecond, offsetSeconds, word, wordList, answerStatus, count,
+				latencyMillis) -> aggregates.addRolledUpAttempts(epochSecond, offsetSeconds, word, wordList,
+						answerStatus, count));
+	}
+
+	/**
+	 * Counts a run of attempts in a segment towards running totals. This only
+	 * reads the segment and the dictionary, so runs can be counted on several
+	 * threads at once into totals of their own.
+	 */
+	void addRecordsToAggregates(StatisticsRecords records, int first, int end, StatisticsAggregates aggregates) {
+		allAttempts.scanRecords(records, first, end, (epochSecond, offsetSeconds, word, wordList, answerStatus,
+				count, latencyMillis) -> aggregates.addAttempt(epochSecond, offsetSeconds, word, wordList,
+						answerStatus));
+	}
+
+	/**
+	 * Helper method to count attempts in a segment, from the attempt at the input
+	 * position onwards, towards the finest levels of counts per bucket, in the
+	 * same way as addSegmentToAggregates.
+	 */
+	private void addSegmentToPyramid(String day, int firstIndex, StatisticsPyramid pyramid) {
+		if (firstIndex == 0) {
+			allAttempts.scanRollups(segmentsIO.mapRollups(day), (epochSecond, offsetSeconds, word, wordList,
+					answerStatus, count, latencyMillis) -> pyramid.addRolledUpAttempts(epochSecond, wordList,
+							answerStatus, count));
 		}
-		return timelineFeed;
+		StatisticsRecords records = segmentsIO.mapSegment(day);
+		allAttempts.scanRecords(records, firstIndex, records.size(), (epochSecond, offsetSeconds, word, wordList,
+				answerStatus, count, latencyMillis) -> pyramid.addAttempt(epochSecond, wordList, answerStatus));
+		pyramid.setLogSegment(day);
+		pyramid.setLogLength(records.getEndFilePosition());
 	}
 
 	/**
-	 * Fills in the TimelineFeed that will be returned with default values of zeros
-	 * for all hours in the day.
+	 * Helper method to return the counts per bucket of the statistics file, brought
+	 * up to date with the segments. The counts are kept in memory between calls,
+	 * read from file on first use, and counted again if the file is missing,
+	 * behind by more than new attempts, or for another time zone. Call this only
+	 * while holding the lock on PYRAMIDS.
 	 */
-	private void initialiseTimelineFeedForDay(TimelineFeed timelineFeed) {
-		for (int i = 0; i < 24; i++) {
-			String hourString = String.valueOf(i);
-			timelineFeed.addData(hourString + ":00", 0);
+	private StatisticsPyramid getPyramid() {
+		ZoneId zone = ZoneId.systemDefault();
+		long minuteCutoff = Instant.now().getEpochSecond() - MINUTE_RETENTION_SECONDS;
+		StatisticsPyramid pyramid = PYRAMIDS.get(filepath);
+		if (pyramid == null || !pyramid.getZone().equals(zone)) {
+			pyramid = pyramidIO.loadPyramid(zone);
 		}
+
+		if (pyramid != null && isUpToDate(pyramid.getLogSegment(), pyramid.getLogLength())) {
+			pyramid.discardMinutesBefore(minuteCutoff);
+		} else if (pyramid != null && canCatchUp(pyramid.getLogSegment(), pyramid.getLogLength())) {
+			StatisticsPyramid added = new StatisticsPyramid(zone, Math.max(minuteCutoff, pyramid.getMinuteCutoff()));
+			addAttemptsAfter(pyramid.getLogSegment(), pyramid.getLogLength(), added);
+			added.deriveCoarserLevels();
+			pyramid.addAll(added);
+			pyramid.discardMinutesBefore(minuteCutoff);
+			pyramidIO.savePyramid(pyramid);
+		} else {
+			pyramid = new StatisticsPyramid(zone, minuteCutoff);
+			addAttemptsAfter(null, 0, pyramid);
+			pyramid.deriveCoarserLevels();
+			pyramidIO.savePyramid(pyramid);
+		}
+		PYRAMIDS.put(filepath, pyramid);
+		return pyramid;
+	}
+
+	/**
+	 * Retrieves user performance about all words in a given wordlist, detailing
+	 * information about how many times the mastered, faulted and failed words in
+	 * the topic associated with the wordlist. The result is shared through a cache
+	 * and so should not be changed.
+	 *
+	 * @param wordList A String containing the wordlist to retrieve on.
+	 * @return A VocabularyStatistics object containing information on words from
+	 *         the input wordlist.
+	 */
+	public VocabularyStatistics getVocabularyStatistics(String wordList) {
+		return VocabularyStatisticsCache.getInstance(filepath).getVocabularyStatistics(wordList, this);
+	}
+
+	/**
+	 * Returns the cache that getVocabularyStatistics answers from, such as to check
+	 * how often it is used.
+	 *
+	 * @return The VocabularyStatisticsCache object of the statistics file.
+	 */
+	public VocabularyStatisticsCache getVocabularyStatisticsCache() {
+		return VocabularyStatisticsCache.getInstance(filepath);
+	}
+
+	/**
+	 * Retrieves the words failed or faulted most across every topic and the whole
+	 * history. These are kept up to date as attempts are recorded, counting only
+	 * the attempts added since they were last asked for, so they are quick to ask
+	 * for however long the history is.
+	 *
+	 * @param k An integer containing the most words to return.
+	 * @return An ArrayList object storing a FrequentWords.Entry for each word,
+	 *         most failed first.
+	 */
+	public ArrayList<FrequentWords.Entry> getMostFailedWords(int k) {
+		return VocabularyStatisticsCache.getInstance(filepath).getMostFailedWords(k, this);
 	}
 
 	/**
-	 * Determines whether an attempt is done on the current day. If so, add it to
-	 * the TimelineFeed to be returned.
+	 * Retrieves the words failed or faulted most across every topic in a window
+	 * of time, counted in one pass over the attempts in the window. Counts are
+	 * exact unless more words were failed in the window than are kept track of.
+	 * The result is kept in the StatisticsResultCache until attempts are recorded
+	 * in the window.
+	 *
+	 * @param k     An integer containing the most words to return.
+	 * @param start A long containing the first epoch second of the window.
+	 * @param end   A long containing the epoch second after the window.
+	 * @return An ArrayList object storing a FrequentWords.Entry for each word,
+	 *         most failed first.
 	 */
-	private void addRecordToTimelineIfSameDay(String record, OffsetDateTime currentDateTime, TimelineFeed timelineFeed,
-			String answerStatus) {
-		String dateTimeString = getStringPartFromLine(record, 0);
-		OffsetDateTime recordDateTime = OffsetDateTime.parse(dateTimeString);
-		if (currentDateTime.getYear() == recordDateTime.getYear()
-				&& currentDateTime.getDayOfYear() == recordDateTime.getDayOfYear()) {
-			addRecordToTimelineFeedForDay(record, recordDateTime, timelineFeed, answerStatus);
+	public ArrayList<FrequentWords.Entry> getMostFailedWords(int k, long start, long end) {
+		return getResultCache().getResult(getResultKey("mostFailedWords", k, start, end), start, end, k,
+				() -> countMostFailedWords(k, start, end), ArrayList::new, this);
+	}
+
+	/**
+	 * Helper method to count the words failed or faulted most in a window of time.
+	 */
+	private ArrayList<FrequentWords.Entry> countMostFailedWords(int k, long start, long end) {
+		FrequentWords troubleWords = new FrequentWords(Math.max(k * 4, TROUBLE_WORDS_CAPACITY));
+		query(new StatisticsQuery().between(start, end).withAnswerStatuses(AnswerStatus.FAILED, AnswerStatus.FAULTED),
+				(epochSecond, offsetSeconds, word, wordList, answerStatus, count, latencyMillis) -> troubleWords
+						.add(wordList, word, count));
+		return troubleWords.getTop(k);
+	}
+
+	/**
+	 * Counts how long the user took to answer the attempts that match a query,
+	 * such as the attempts at one word or in one topic. Only attempts recorded
+	 * with the time taken, and not yet compacted, are counted. The result is kept
+	 * in the StatisticsResultCache until attempts are recorded in the window of
+	 * the query.
+	 *
+	 * @param query A StatisticsQuery object describing the attempts to count.
+	 * @return A LatencyHistogram object of the times taken, from which the median
+	 *         and other percentiles can be read.
+	 */
+	public LatencyHistogram getAnswerLatency(StatisticsQuery query) {
+		List<Object> key = getResultKey("answerLatency", query.getKey());
+		return getResultCache().getResult(key, query.getStart(), query.getEnd(), LatencyHistogram.getBucketCount(),
+				() -> countAnswerLatency(query), LatencyHistogram::copy, this);
+	}
+
+	/**
+	 * Helper method to count how long the user took to answer the attempts that
+	 * match a query.
+	 */
+	private LatencyHistogram countAnswerLatency(StatisticsQuery query) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		query(query, (epochSecond, offsetSeconds, word, wordList, answerStatus, count, latencyMillis) -> {
+			if (latencyMillis != SpellingAttempt.UNKNOWN_LATENCY) {
+				histogram.recordValues(latencyMillis, count);
+			}
+		});
+		return histogram;
+	}
+
+	/**
+	 * Counts how long the user took to answer each word of a topic, in one pass
+	 * over the attempts. See getAnswerLatency.
+	 *
+	 * @param wordList A String containing the topic.
+	 * @return A TreeMap object mapping each word, with spaces replaced by dashes,
+	 *         to a LatencyHistogram of the times taken to answer it.
+	 */
+	public TreeMap<String, LatencyHistogram> getAnswerLatencyByWord(String wordList) {
+		TreeMap<String, LatencyHistogram> histograms = new TreeMap<>();
+		query(new StatisticsQuery().inTopics(wordList), (epochSecond, offsetSeconds, word, topic, answerStatus, count,
+				latencyMillis) -> addLatency(histograms, word, latencyMillis, count));
+		return histograms;
+	}
+
+	/**
+	 * Counts how long the user took to answer the words of each topic, in one pass
+	 * over the attempts. See getAnswerLatency.
+	 *
+	 * @return A TreeMap object mapping each topic to a LatencyHistogram of the
+	 *         times taken to answer its words.
+	 */
+	public TreeMap<String, LatencyHistogram> getAnswerLatencyByTopic() {
+		TreeMap<String, LatencyHistogram> histograms = new TreeMap<>();
+		query(new StatisticsQuery(), (epochSecond, offsetSeconds, word, wordList, answerStatus, count,
+				latencyMillis) -> addLatency(histograms, wordList, latencyMillis, count));
+		return histograms;
+	}
+
+	private void addLatency(TreeMap<String, LatencyHistogram> histograms, String key, int latencyMillis, int count) {
+		if (latencyMillis == SpellingAttempt.UNKNOWN_LATENCY) {
+			return;
 		}
+		LatencyHistogram histogram = histograms.get(key);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			histograms.put(key, histogram);
+		}
+		histogram.recordValues(latencyMillis, count);
+	}
+
+	/**
+	 * Gets the timeline feed for mastered attempts for the current day.
+	 *
+	 * @return A TimelineFeed object containing information about mastered attempts.
+	 */
+	public TimelineFeed getMasteredTimelineFeedForDay() {
+		return getSpellingPerformanceForDay().getMasteredTimelineFeed();
 	}
 
 	/**
-	 * Adds attempt to TimelineFeed to be returned if it was attempted on the
-	 * current day.
+	 * Gets the timeline feed for faulted attempts for the current day.
+	 *
+	 * @return A TimelineFeed object containing information about faulted attempts.
 	 */
-	private void addRecordToTimelineFeedForDay(String record, OffsetDateTime recordDateTime, TimelineFeed timelineFeed,
-			String answerStatus) {
-		int hour = recordDateTime.getHour();
-		String hourParsed = String.valueOf(hour) + ":00";
-		addRecordToTimelineFeed(record, hourParsed, timelineFeed, answerStatus);
+	public TimelineFeed getFaultedTimelineFeedForDay() {
+		return getSpellingPerformanceForDay().getFaultedTimelineFeed();
+	}
+
+	/**
+	 * Gets the timeline feed for failed attempts for the current day.
+	 *
+	 * @return A TimelineFeed object containing information about failed attempts.
+	 */
+	public TimelineFeed getFailedTimelineFeedForDay() {
+		return getSpellingPerformanceForDay().getFailedTimelineFeed();
 	}
 
 	/**
@@ -193,7 +792,7 @@ public class StatisticsIO extends FileIO {
 	 * @return A TimelineFeed object containing information about mastered attempts.
 	 */
 	public TimelineFeed getMasteredTimelineFeedForWeek() {
-		return getTimelineFeedForWeek("MASTERED");
+		return getSpellingPerformanceForWeek().getMasteredTimelineFeed();
 	}
 
 	/**
@@ -202,7 +801,7 @@ public class StatisticsIO extends FileIO {
 	 * @return A TimelineFeed object containing information about fautled attempts.
 	 */
 	public TimelineFeed getFaultedTimelineFeedForWeek() {
-		return getTimelineFeedForWeek("FAULTED");
+		return getSpellingPerformanceForWeek().getFaultedTimelineFeed();
 	}
 
 	/**
@@ -211,197 +810,321 @@ public class StatisticsIO extends FileIO {
 	 * @return A TimelineFeed object containing information about failed attempts.
 	 */
 	public TimelineFeed getFailedTimelineFeedForWeek() {
-		return getTimelineFeedForWeek("FAILED");
+		return getSpellingPerformanceForWeek().getFailedTimelineFeed();
 	}
 
 	/**
-	 * Gets timeline feed for the week, taking mastered, faulted or failed depending
-	 * on the input answer status.
+	 * Retrieves the proportions of mastered, faulted and failed attempts in the
+	 * day.
+	 *
+	 * @return A ProportionsFeed object containing information about the mastered,
+	 *         faulted and failed attempts in the day.
 	 */
-	private TimelineFeed getTimelineFeedForWeek(String answerStatus) {
-		TimelineFeed timelineFeed = new TimelineFeed();
-		initialiseTimelineFeedForWeek(timelineFeed);
-		OffsetDateTime currentDateTime = OffsetDateTime.now();
-		ArrayList<String> records = readLines();
-		for (String record : records) {
-			addRecordToTimelineIfSameWeek(record, currentDateTime, timelineFeed, answerStatus);
-		}
-		return timelineFeed;
+	public ProportionsFeed getProportionsFeedForDay() {
+		return getSpellingPerformanceForDay().getProportionsFeed();
 	}
 
 	/**
-	 * Fills in the TimelineFeed that will be returned with default values of zeros
-	 * for all days in the week.
+	 * Retrieves the proportions of mastered, faulted and failed attempts in the
+	 * week.
+	 *
+	 * @return A ProportionsFeed object containing information about the mastered,
+	 *         faulted and failed attempts in the week.
 	 */
-	private void initialiseTimelineFeedForWeek(TimelineFeed timelineFeed) {
-		timelineFeed.addData("Monday", 0);
-		timelineFeed.addData("Tuesday", 0);
-		timelineFeed.addData("Wednesday", 0);
-		timelineFeed.addData("Thursday", 0);
-		timelineFeed.addData("Friday", 0);
-		timelineFeed.addData("Saturday", 0);
-		timelineFeed.addData("Sunday", 0);
+	public ProportionsFeed getProportionsFeedForWeek() {
+		return getSpellingPerformanceForWeek().getProportionsFeed();
 	}
 
 	/**
-	 * Determines whether an attempt is done on the current week. If so, add it to
-	 * the TimelineFeed to be returned.
+	 * Retrieves the mastered, faulted and failed timelines of the current day by
+	 * hour, along with their proportions.
+	 *
+	 * @return A SpellingPerformance object containing the timeline feeds and
+	 *         proportions feed for the current day.
 	 */
-	private void addRecordToTimelineIfSameWeek(String record, OffsetDateTime currentDateTime, TimelineFeed timelineFeed,
-			String answerStatus) {
-		String dateTimeString = getStringPartFromLine(record, 0);
-		OffsetDateTime recordDateTime = OffsetDateTime.parse(dateTimeString);
-		int currentWeekOfYear = getWeekOfYear(currentDateTime);
-		int recordWeekOfYear = getWeekOfYear(recordDateTime);
-		if (currentDateTime.getYear() == recordDateTime.getYear() && currentWeekOfYear == recordWeekOfYear) {
-			addRecordToTimelineFeedForWeek(record, recordDateTime, timelineFeed, answerStatus);
-		}
+	public SpellingPerformance getSpellingPerformanceForDay() {
+		return getSpellingPerformance(TimeBuckets.forDay(LocalDate.now(), ZoneId.systemDefault()));
 	}
 
 	/**
-	 * Adds attempt to TimelineFeed to be returned if it was attempted on the
-	 * current week.
+	 * Retrieves the mastered, faulted and failed timelines of the current week,
+	 * from Monday to Sunday, by day, along with their proportions.
+	 *
+	 * @return A SpellingPerformance object containing the timeline feeds and
+	 *         proportions feed for the current week.
 	 */
-	private void addRecordToTimelineFeedForWeek(String record, OffsetDateTime recordDateTime, TimelineFeed timelineFeed,
-			String answerStatus) {
-		DayOfWeek dayOfWeek = recordDateTime.getDayOfWeek();
-		String dayOfWeekParsed;
-		switch (dayOfWeek) {
-		case MONDAY:
-			dayOfWeekParsed = "Monday";
-			break;
-		case TUESDAY:
-			dayOfWeekParsed = "Tuesday";
-			break;
-		case WEDNESDAY:
-			dayOfWeekParsed = "Wednesday";
-			break;
-		case THURSDAY:
-			dayOfWeekParsed = "Thursday";
-			break;
-		case FRIDAY:
-			dayOfWeekParsed = "Friday";
-			break;
-		case SATURDAY:
-			dayOfWeekParsed = "Saturday";
-			break;
-		default:
-			dayOfWeekParsed = "Sunday";
-			break;
-		}
-		addRecordToTimelineFeed(record, dayOfWeekParsed, timelineFeed, answerStatus);
+	public SpellingPerformance getSpellingPerformanceForWeek() {
+		return getSpellingPerformance(TimeBuckets.forWeek(LocalDate.now(), ZoneId.systemDefault()));
 	}
 
 	/**
-	 * Helper method to add a record to the input timeline feed.
+	 * Retrieves the mastered, faulted and failed timelines over a window of time,
+	 * with one category for each bucket of the window, along with their
+	 * proportions. See getSpellingPerformance(TimeBuckets, String).
+	 *
+	 * @param timeBuckets A TimeBuckets object dividing the window into buckets.
+	 * @return A SpellingPerformance object containing the timeline feeds and
+	 *         proportions feed for the window.
 	 */
-	private void addRecordToTimelineFeed(String record, String category, TimelineFeed timelineFeed,
-			String answerStatus) {
-		String answerStatusString = getStringPartFromLine(record, 3);
-		if (answerStatus.equals(answerStatusString)) {
-			timelineFeed.addData(category, 1);
-		}
+	public SpellingPerformance getSpellingPerformance(TimeBuckets timeBuckets) {
+		return getSpellingPerformance(timeBuckets, null);
 	}
 
 	/**
-	 * Retrieves the proportions of mastered, faulted and failed attempts in the
-	 * day.
+	 * Retrieves the mastered, faulted and failed timelines of a topic over a window
+	 * of time, with one category for each bucket of the window, along with their
+	 * proportions. Windows whose buckets line up with minutes of the past week, or
+	 * with hours, days, weeks or months, are drawn from counts per bucket, and take
+	 * the same time however long the history is. Other windows read the attempts
+	 * in the segments that overlap the window.
 	 *
-	 * @return A ProportionsFeed object containing information about the mastered,
-	 *         faulted and failed attempts in the day.
+	 * Compacted attempts are placed at the start of their day in the time zone of
+	 * the computer when they were compacted, so they count towards the right day,
+	 * week or month but not the right hour.
+	 *
+	 * The result is kept in the StatisticsResultCache until attempts are recorded
+	 * in the window, so switching between time scales or between the timelines and
+	 * proportions does not count again.
+	 *
+	 * @param timeBuckets A TimeBuckets object dividing the window into buckets.
+	 * @param wordList    A String containing the topic to count, or null to count
+	 *                    every topic.
+	 * @return A SpellingPerformance object containing the timeline feeds and
+	 *         proportions feed for the window.
 	 */
-	public ProportionsFeed getProportionsFeedForDay() {
-		ProportionsFeed proportionsFeed = new ProportionsFeed();
-		OffsetDateTime currentDateTime = OffsetDateTime.now();
-		ArrayList<String> records = readLines();
-		for (String record : records) {
-			addRecordToProportionsIfSameDay(record, currentDateTime, proportionsFeed);
+	public SpellingPerformance getSpellingPerformance(TimeBuckets timeBuckets, String wordList) {
+		List<Object> key = getResultKey("spellingPerformance", timeBuckets.getBucketSize(), timeBuckets.getStart(),
+				timeBuckets.getEnd(), timeBuckets.getBucketCount(), wordList);
+		return getResultCache().getResult(key, timeBuckets.getStart(), timeBuckets.getEnd(),
+				timeBuckets.getBucketCount(), () -> countSpellingPerformance(timeBuckets, wordList),
+				SpellingPerformance::copy, this);
+	}
+
+	/**
+	 * Returns the cache that query results are kept in, such as to check how often
+	 * it is used.
+	 *
+	 * @return The StatisticsResultCache object of the statistics file.
+	 */
+	public StatisticsResultCache getResultCache() {
+		return StatisticsResultCache.getInstance(filepath);
+	}
+
+	/**
+	 * Helper method to make the key that the result of a query is kept under in
+	 * the StatisticsResultCache, from the name of the query and each of its
+	 * inputs, which must not change.
+	 */
+	private static List<Object> getResultKey(Object... parts) {
+		return Collections.unmodifiableList(Arrays.asList(parts));
+	}
+
+	/**
+	 * Helper method to count the timelines of a window from the counts per bucket
+	 * where they line up, or from the attempts in the segments otherwise.
+	 */
+	private SpellingPerformance countSpellingPerformance(TimeBuckets timeBuckets, String wordList) {
+		SpellingPerformance spellingPerformance;
+		synchronized (PYRAMIDS) {
+			spellingPerformance = getPyramid().getSpellingPerformance(timeBuckets, wordList);
 		}
-		return proportionsFeed;
+		if (spellingPerformance == null) {
+			spellingPerformance = scanSpellingPerformance(timeBuckets, wordList);
+		}
+		return spellingPerformance;
 	}
 
 	/**
-	 * Determine if a record falls on the same day. If so, include it in the
-	 * ProportionsFeed.
+	 * Helper method to count the timelines of a window from the attempts in the
+	 * segments that overlap the window.
 	 */
-	private void addRecordToProportionsIfSameDay(String record, OffsetDateTime currentDateTime,
-			ProportionsFeed proportionsFeed) {
-		String dateTimeString = getStringPartFromLine(record, 0);
-		OffsetDateTime recordDateTime = OffsetDateTime.parse(dateTimeString);
-		if (currentDateTime.getYear() == recordDateTime.getYear()
-				&& currentDateTime.getDayOfYear() == recordDateTime.getDayOfYear()) {
-			addRecordToProportionsFeed(record, proportionsFeed);
+	private SpellingPerformance scanSpellingPerformance(TimeBuckets timeBuckets, String wordList) {
+		SpellingPerformance spellingPerformance = new SpellingPerformance(timeBuckets);
+		StatisticsQuery query = new StatisticsQuery().between(timeBuckets.getStart(), timeBuckets.getEnd());
+		if (wordList != null) {
+			query.inTopics(wordList);
 		}
+		query(query, (epochSecond, offsetSeconds, word, topic, answerStatus, count, latencyMillis) -> {
+			int bucket = timeBuckets.getBucketIndex(epochSecond);
+			if (bucket >= 0) {
+				spellingPerformance.add(bucket, answerStatus, count);
+			}
+		});
+		return spellingPerformance;
 	}
 
 	/**
-	 * Retrieves the proportions of mastered, faulted and failed attempts in the
-	 * week.
+	 * Reads the spelling attempts that match a query, in one pass over the
+	 * segments and rollups that overlap its window of time. Segments are entered
+	 * at the start of the window through their indexes, and each attempt is
+	 * checked by its epoch second and answer status before its topic and word, so
+	 * that attempts which do not match are passed over without looking up any
+	 * names. Attempts are passed to the visitor in the order they were recorded
+	 * within each day, followed by the rollups of that day.
 	 *
-	 * @return A ProportionsFeed object containing information about the mastered,
-	 *         faulted and failed attempts in the week.
+	 * @param query   A StatisticsQuery object describing the attempts to read.
+	 * @param visitor The StatisticsQueryVisitor object to pass each match to.
 	 */
-	public ProportionsFeed getProportionsFeedForWeek() {
-		ProportionsFeed proportionsFeed = new ProportionsFeed();
-		OffsetDateTime currentDateTime = OffsetDateTime.now();
-		ArrayList<String> records = readLines();
-		for (String record : records) {
-			addRecordToProportionsIfSameWeek(record, currentDateTime, proportionsFeed);
+	public void query(StatisticsQuery query, StatisticsQueryVisitor visitor) {
+		StatisticsQueryPlan plan = new StatisticsQueryPlan(query, dictionaryIO);
+		if (plan.matchesNothing()) {
+			return;
+		}
+		ArrayList<String> unorderedDays = segmentsIO.getUnorderedDays();
+		for (String day : getSegmentDaysBetween(plan.getStart(), plan.getEnd())) {
+			StatisticsRecords records = segmentsIO.mapSegment(day);
+			StatisticsRollups rollups = segmentsIO.mapRollups(day);
+			if (rollups.getCoveredLength() > 0) {
+				// The day was compacted after its segment was mapped, and its rollups
+				// now count the attempts
+				records = new StatisticsRecords(ByteBuffer.allocate(0));
+			}
+			int first = 0;
+			if (plan.getStart() != Long.MIN_VALUE) {
+				first = segmentsIO.findFirstRecordAtOrAfter(day, records, plan.getStart());
+			}
+			// A segment that is not in time order can hold attempts of the window
+			// after an attempt past its end
+			int end = records.size();
+			if (plan.getEnd() != Long.MAX_VALUE && !unorderedDays.contains(day)) {
+				end = segmentsIO.findFirstRecordAtOrAfter(day, records, plan.getEnd());
+			}
+			plan.scanRecords(records, first, end, visitor);
+			plan.scanRollups(rollups, visitor);
 		}
-		return proportionsFeed;
 	}
 
 	/**
-	 * Determine if a record falls on the same week. If so, include it in the
-	 * ProportionsFeed.
+	 * Returns the days with a segment that may hold attempts from one epoch second
+	 * up to another. The day after is included too, as rollups of a day can start
+	 * on the UTC day before. Every day is returned for a window without a start or
+	 * an end.
 	 */
-	private void addRecordToProportionsIfSameWeek(String record, OffsetDateTime currentDateTime,
-			ProportionsFeed proportionsFeed) {
-		String dateTimeString = getStringPartFromLine(record, 0);
-		OffsetDateTime recordDateTime = OffsetDateTime.parse(dateTimeString);
-		int currentWeekOfYear = getWeekOfYear(currentDateTime);
-		int recordWeekOfYear = getWeekOfYear(recordDateTime);
-		if (currentDateTime.getYear() == recordDateTime.getYear() && currentWeekOfYear == recordWeekOfYear) {
-			addRecordToProportionsFeed(record, proportionsFeed);
+	private ArrayList<String> getSegmentDaysBetween(long windowStart, long windowEnd) {
+		if (windowStart == Long.MIN_VALUE || windowEnd == Long.MAX_VALUE) {
+			return segmentsIO.getSegmentDays();
 		}
+		LocalDate firstDay = StatisticsSegmentsIO.getUtcDay(windowStart);
+		LocalDate lastDay = StatisticsSegmentsIO.getUtcDay(windowEnd - 1).plusDays(1);
+		return segmentsIO.getSegmentDaysBetween(firstDay, lastDay);
 	}
 
 	/**
-	 * Get the week number for the input OffsetDateTime object.
+	 * Compacts attempts that are older than a number of days into counts per day in
+	 * the time zone of the computer, word and answer status. The attempts of the
+	 * current week are always kept. The totals and the day, week and month
+	 * timelines are unchanged by compaction, and it can be safely stopped part way
+	 * and run again.
+	 *
+	 * @param rawRetentionDays An integer containing the number of days that
+	 *                         attempts are kept in full.
+	 * @return An integer containing the number of days compacted.
 	 */
-	private int getWeekOfYear(OffsetDateTime dateTime) {
-		Calendar calendar = Calendar.getInstance();
-		int year = dateTime.getYear();
-		int monthValue = dateTime.getMonthValue();
-		int dayOfMonth = dateTime.getDayOfMonth();
-		calendar.set(year, monthValue - 1, dayOfMonth);
-		return calendar.get(Calendar.WEEK_OF_YEAR);
+	public int compactStatistics(int rawRetentionDays) {
+		int retentionDays = Math.max(rawRetentionDays, MIN_RAW_RETENTION_DAYS);
+		LocalDate firstKeptDay = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+		ZoneId zone = ZoneId.systemDefault();
+		synchronized (COMPACTION_LOCK) {
+			int compactedCount = 0;
+			for (String day : segmentsIO.getSegmentDaysToCompact(firstKeptDay)) {
+				// The running totals and counts per bucket are brought up to date while
+				// holding these locks, so they count a day either from its attempts or
+				// from its rollups, and never both or neither
+				synchronized (aggregatesIO) {
+					synchronized (PYRAMIDS) {
+						if (segmentsIO.compactSegment(day, zone)) {
+							compactedCount++;
+						}
+					}
+				}
+			}
+			// Compacted attempts move to the start of their day, which can change the
+			// hours that results count them in
+			if (compactedCount > 0) {
+				getResultCache().invalidate();
+			}
+			return compactedCount;
+		}
 	}
 
 	/**
-	 * Helper function to add a record to the input ProportionsFeed object.
+	 * Compacts attempts that are older than a number of days on a background
+	 * thread, so that the application does not wait for it. See
+	 * compactStatistics.
+	 *
+	 * @param rawRetentionDays An integer containing the number of days that
+	 *                         attempts are kept in full.
+	 * @return The Thread object doing the compaction.
 	 */
-	private void addRecordToProportionsFeed(String record, ProportionsFeed proportionsFeed) {
-		String answerStatus = getStringPartFromLine(record, 3);
-		switch (answerStatus) {
-		case "MASTERED":
-			proportionsFeed.incrementMastered();
-			break;
-		case "FAULTED":
-			proportionsFeed.incrementFaulted();
-			break;
-		case "FAILED":
-			proportionsFeed.incrementFailed();
-			break;
-		default:
-			break;
+	public Thread compactStatisticsInBackground(int rawRetentionDays) {
+		Thread thread = new Thread(() -> compactStatistics(rawRetentionDays), "statistics-compaction");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Merges the attempts of other statistics files, such as those of other
+	 * kiosks, into this one, so that it holds the history of every file in time
+	 * order. Attempts found in more than one file are kept once. See
+	 * StatisticsMerger.
+	 *
+	 * The merged segments are built alongside the segments of this file, and take
+	 * their place once complete, so the attempts of this file are kept if the
+	 * merge stops part way or cannot write every attempt. The other files are only read: their segments and
+	 * dictionaries are opened as they are, without recovering or converting them,
+	 * and attempts left half-written in them are skipped. A file from an older
+	 * version of the application that still holds its attempts as text has no
+	 * segments, so it needs to be opened by this version once before it is
+	 * merged. Merging a file again drops both its attempts and its compacted days
+	 * as duplicates. The running totals are recounted the next time they are
+	 * read.
+	 *
+	 * @param otherFilepaths A List object storing a String filepath to each
+	 *                       statistics file to merge in.
+	 * @return The StatisticsMerger object that merged the files, which counts the
+	 *         attempts merged and dropped.
+	 */
+	public StatisticsMerger mergeStatistics(List<String> otherFilepaths) {
+		StatisticsSegmentsIO mergedSegmentsIO = new StatisticsSegmentsIO(filepath + ".segments.merge");
+		StatisticsMerger merger = new StatisticsMerger(mergedSegmentsIO, dictionaryIO);
+		merger.addSource(segmentsIO, dictionaryIO);
+		for (String otherFilepath : otherFilepaths) {
+			merger.addSource(new StatisticsSegmentsIO(otherFilepath + ".segments"),
+					StatisticsDictionaryIO.getInstance(otherFilepath + ".dictionary"));
+		}
+		synchronized (COMPACTION_LOCK) {
+			synchronized (aggregatesIO) {
+				mergedSegmentsIO.resetSegments();
+				if (merger.merge() && segmentsIO.replaceWith(mergedSegmentsIO)) {
+					aggregatesIO.deleteAggregates();
+				} else {
+					mergedSegmentsIO.resetSegments();
+				}
+			}
 		}
+		VocabularyStatisticsCache.getInstance(filepath).invalidate();
+		getResultCache().invalidate();
+		synchronized (PYRAMIDS) {
+			PYRAMIDS.remove(filepath);
+			pyramidIO.deletePyramid();
+		}
+		return merger;
 	}
 
 	/**
 	 * Remove all records about attempts from the file.
 	 */
 	public void resetStatistics() {
-		clearFile();
+		synchronized (aggregatesIO) {
+			segmentsIO.resetSegments();
+			aggregatesIO.saveAggregates(new StatisticsAggregates());
+		}
+		VocabularyStatisticsCache.getInstance(filepath).invalidate();
+		getResultCache().invalidate();
+		synchronized (PYRAMIDS) {
+			PYRAMIDS.remove(filepath);
+			pyramidIO.deletePyramid();
+		}
 	}
 }
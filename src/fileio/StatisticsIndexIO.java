@@ -0,0 +1,179 @@
+package fileio;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads from and writes to the index of a segment of spelling attempts, which
+ * holds an entry for every sixty-fourth attempt in the segment. A search
+ * through the small index finds the stretch of the segment that a time falls
+ * in, so that a query can start reading there instead of at the first attempt.
+ *
+ * The index is a list of eight-byte epoch seconds, where the n-th entry holds
+ * the latest time of the attempts up to and including the attempt at position
+ * n * 64 in the segment. This is the time of that attempt while the segment is
+ * in time order, and the entries still rise if the clock went back, so the
+ * search works either way. It is rebuilt from the segment whenever it is
+ * missing or does not match the segment.
+ */
+public class StatisticsIndexIO extends FileIO {
+	static final int INTERVAL = 64;
+	private static final int ENTRY_SIZE = 8;
+
+	/**
+	 * Creates a StatisticsIndexIO object with the filepath to the file to modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsIndexIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Adds an entry for an attempt that has just been added to the segment, if the
+	 * attempt is one that the index keeps. Nothing is written if the index is
+	 * already behind the segment, as it is then rebuilt when next read.
+	 *
+	 * @param recordIndex An integer containing the position of the attempt in the
+	 *                    segment.
+	 * @param epochSecond A long containing the latest time of the attempts up to
+	 *                    and including the attempt.
+	 */
+	public void addRecord(int recordIndex, long epochSecond) {
+		if (recordIndex % INTERVAL != 0 || getFileLength() != (long) recordIndex / INTERVAL * ENTRY_SIZE) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE);
+		buffer.putLong(epochSecond);
+		buffer.flip();
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			file.getChannel().write(buffer, file.length());
+		} catch (IOException e) {
+			// Keep empty, as the index is rebuilt when next read
+		}
+	}
+
+	/**
+	 * Finds the first attempt in the segment that took place at or after a time.
+	 * Every attempt before it took place before the time, though attempts after it
+	 * can too if the segment is not in time order.
+	 *
+	 * @param records     The StatisticsRecords object of the segment.
+	 * @param epochSecond A long containing the time to search for.
+	 * @return An integer containing the position of the first such attempt, or the
+	 *         number of attempts in the segment if there are none.
+	 */
+	public int findFirstRecordAtOrAfter(StatisticsRecords records, long epochSecond) {
+		ByteBuffer entries = loadEntries(records);
+		int entryCount = entries.limit() / ENTRY_SIZE;
+
+		// Find the last entry before the time, as no attempt up to it is at or after
+		// the time
+		int low = 0;
+		int high = entryCount - 1;
+		int start = 0;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (entries.getLong(middle * ENTRY_SIZE) < epochSecond) {
+				start = middle * INTERVAL;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		int index = start;
+		while (index < records.size() && records.getEpochSecond(index) < epochSecond) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the latest time of any attempt in the segment, which is the time of
+	 * its last attempt only while the segment is in time order.
+	 *
+	 * @param records The StatisticsRecords object of the segment.
+	 * @return A long containing the epoch second of the latest attempt, or
+	 *         Long.MIN_VALUE if the segment has no attempts.
+	 */
+	public long getLatestEpochSecond(StatisticsRecords records) {
+		ByteBuffer entries = loadEntries(records);
+		int entryCount = entries.limit() / ENTRY_SIZE;
+		if (entryCount == 0) {
+			return Long.MIN_VALUE;
+		}
+		long latest = entries.getLong((entryCount - 1) * ENTRY_SIZE);
+		for (int i = (entryCount - 1) * INTERVAL + 1; i < records.size(); i++) {
+			latest = Math.max(latest, records.getEpochSecond(i));
+		}
+		return latest;
+	}
+
+	/**
+	 * Reads the entries of the index, rebuilding the index first if it does not
+	 * match the segment.
+	 */
+	private ByteBuffer loadEntries(StatisticsRecords records) {
+		int expectedCount = (records.size() + INTERVAL - 1) / INTERVAL;
+		if (getFileLength() == (long) expectedCount * ENTRY_SIZE) {
+			try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+				ByteBuffer entries = ByteBuffer.allocate(expectedCount * ENTRY_SIZE);
+				file.getChannel().read(entries, 0);
+				entries.flip();
+				if (isMatchingLastEntry(entries, records)) {
+					return entries;
+				}
+			} catch (IOException e) {
+				// Rebuild the index below
+			}
+		}
+		return rebuildIndex(records);
+	}
+
+	/**
+	 * Determines whether the last entry of the index agrees with the segment.
+	 */
+	private boolean isMatchingLastEntry(ByteBuffer entries, StatisticsRecords records) {
+		int entryCount = entries.limit() / ENTRY_SIZE;
+		if (entryCount == 0) {
+			return true;
+		}
+		int lastIndexed = (entryCount - 1) * INTERVAL;
+		long latest = records.getEpochSecond(lastIndexed);
+		if (entryCount > 1) {
+			latest = Math.max(latest, entries.getLong((entryCount - 2) * ENTRY_SIZE));
+			for (int i = lastIndexed - INTERVAL + 1; i < lastIndexed; i++) {
+				latest = Math.max(latest, records.getEpochSecond(i));
+			}
+		}
+		return entries.getLong((entryCount - 1) * ENTRY_SIZE) == latest;
+	}
+
+	/**
+	 * Writes the index again from the attempts in the segment.
+	 */
+	private ByteBuffer rebuildIndex(StatisticsRecords records) {
+		int entryCount = (records.size() + INTERVAL - 1) / INTERVAL;
+		ByteBuffer entries = ByteBuffer.allocate(entryCount * ENTRY_SIZE);
+		long latest = Long.MIN_VALUE;
+		for (int i = 0; i < records.size(); i++) {
+			latest = Math.max(latest, records.getEpochSecond(i));
+			if (i % INTERVAL == 0) {
+				entries.putLong(latest);
+			}
+		}
+		entries.flip();
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			FileChannel channel = file.getChannel();
+			channel.truncate(0);
+			channel.write(entries.duplicate(), 0);
+		} catch (IOException e) {
+			// Keep empty, as the entries can still be used for this query
+		}
+		return entries;
+	}
+}
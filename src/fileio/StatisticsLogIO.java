@@ -0,0 +1,284 @@
+package fileio;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.zip.CRC32;
+
+import enums.AnswerStatus;
+
+/**
+ * Reads from and writes to a file of spelling attempts, which stores each
+ * attempt in the same number of bytes so that any attempt can be found from its
+ * position alone. The statistics are split into one such file per day by
+ * StatisticsSegmentsIO.
+ *
+ * The file begins with an eight-byte header holding "KKST" and the format
+ * version. Each attempt then takes twenty-eight bytes: the epoch second (8
+ * bytes), the word number (4), the topic number (2), the offset from UTC in
+ * quarter hours (1), the answer status (1), the score (4), the time taken to
+ * answer in milliseconds, or -1 if it is not known (4), and a CRC-32 checksum
+ * of the bytes before it (4). Word and topic numbers are given by
+ * StatisticsDictionaryIO. The checksum lets an attempt that was only partly
+ * written, such as when the computer lost power, be told apart from a whole one.
+ *
+ * Older versions of the application stored one attempt per line as text in a
+ * single file. Such a file is converted once by StatisticsSegmentsIO.
+ */
+public class StatisticsLogIO extends FileIO {
+	static final int MAGIC = 0x4B4B5354;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int RECORD_SIZE = 28;
+	static final int EPOCH_SECOND_POSITION = 0;
+	static final int WORD_ID_POSITION = 8;
+	static final int TOPIC_ID_POSITION = 12;
+	static final int OFFSET_POSITION = 14;
+	static final int STATUS_POSITION = 15;
+	static final int SCORE_POSITION = 16;
+	static final int LATENCY_POSITION = 20;
+	static final int CHECKSUM_POSITION = 24;
+	static final int OFFSET_UNIT_SECONDS = 15 * 60;
+
+	/**
+	 * Creates a StatisticsLogIO object with the filepath to the file to modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsLogIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Adds an attempt to the end of the file, starting the file if it is empty.
+	 *
+	 * @param dateTime     An OffsetDateTime object recording when the attempt took
+	 *                     place.
+	 * @param wordId       An integer containing the number of the word.
+	 * @param topicId      An integer containing the number of the topic.
+	 * @param answerStatus An AnswerStatus enumeration for the attempt.
+	 * @param scoreEarned  An integer representing how much earning the user got
+	 *                     from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds taken to
+	 *                      answer, or SpellingAttempt.UNKNOWN_LATENCY.
+	 */
+	public void appendRecord(OffsetDateTime dateTime, int wordId, int topicId, AnswerStatus answerStatus,
+			int scoreEarned, int latencyMillis) {
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+		putRecord(buffer, dateTime.toEpochSecond(), dateTime.getOffset().getTotalSeconds(), wordId, topicId,
+				answerStatus, scoreEarned, latencyMillis);
+		buffer.flip();
+		appendRecords(buffer);
+	}
+
+	/**
+	 * Adds attempts already laid out in binary to the end of the file, starting the
+	 * file if it is empty.
+	 *
+	 * @param records A ByteBuffer object holding whole attempts between its
+	 *                position and limit.
+	 */
+	public void appendRecords(ByteBuffer records) {
+		long fileLength = getFileLength();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if (fileLength < HEADER_SIZE) {
+			fileLength = 0;
+			putHeader(header);
+		}
+		header.flip();
+		// Drop any partly written attempt, so that new attempts stay in line
+		long partialBytes = Math.max(0, fileLength - HEADER_SIZE) % RECORD_SIZE;
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			FileChannel channel = file.getChannel();
+			channel.truncate(fileLength - partialBytes);
+			channel.position(fileLength - partialBytes);
+			channel.write(new ByteBuffer[] { header, records });
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+
+	/**
+	 * Returns the number of complete attempts in the file, which is also the
+	 * position that the next attempt added takes.
+	 *
+	 * @return An integer containing the number of attempts.
+	 */
+	public int getRecordCount() {
+		long recordBytes = Math.max(0, getFileLength() - HEADER_SIZE);
+		return (int) (recordBytes / RECORD_SIZE);
+	}
+
+	/**
+	 * Returns when the last attempt in the file took place, reading only that
+	 * attempt.
+	 *
+	 * @return A long containing the epoch second of the last attempt, or
+	 *         Long.MIN_VALUE if the file has no attempts or its last attempt was
+	 *         not written in full.
+	 */
+	public long getLastEpochSecond() {
+		int recordCount = getRecordCount();
+		if (recordCount == 0) {
+			return Long.MIN_VALUE;
+		}
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+			file.getChannel().read(record, HEADER_SIZE + (long) (recordCount - 1) * RECORD_SIZE);
+		} catch (IOException e) {
+			return Long.MIN_VALUE;
+		}
+		if (record.hasRemaining() || record.getInt(CHECKSUM_POSITION) != getChecksum(record, 0)) {
+			return Long.MIN_VALUE;
+		}
+		return record.getLong(EPOCH_SECOND_POSITION);
+	}
+
+	/**
+	 * Returns the position in the file of the first attempt at or after a byte
+	 * position, which is used to continue from where a previous read stopped.
+	 *
+	 * @param filePosition A long containing the byte position.
+	 * @return An integer containing the position of the attempt.
+	 */
+	public int getIndexAtFilePosition(long filePosition) {
+		long recordBytes = Math.max(0, filePosition - HEADER_SIZE);
+		return (int) ((recordBytes + RECORD_SIZE - 1) / RECORD_SIZE);
+	}
+
+	/**
+	 * Removes any partly written attempt from the end of the file, along with a
+	 * header that was only partly written.
+	 *
+	 * @return A boolean that is true if anything was removed.
+	 */
+	public boolean removePartialRecord() {
+		long fileLength = getFileLength();
+		long partialBytes;
+		if (fileLength < HEADER_SIZE) {
+			partialBytes = fileLength;
+		} else {
+			partialBytes = (fileLength - HEADER_SIZE) % RECORD_SIZE;
+		}
+		if (partialBytes == 0) {
+			return false;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "rw")) {
+			file.getChannel().truncate(fileLength - partialBytes);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Replaces the whole file in one step, so that the file holds either its old or
+	 * its new contents if the application stops while saving.
+	 *
+	 * @param contents A ByteBuffer object holding the header and attempts between
+	 *                 its position and limit.
+	 * @return A boolean that is true if the file now holds the new contents.
+	 */
+	public boolean replaceContents(ByteBuffer contents) {
+		String temporary = filepath + ".tmp";
+		try (FileOutputStream outputStream = new FileOutputStream(temporary, false)) {
+			outputStream.getChannel().write(contents);
+		} catch (IOException e) {
+			return false;
+		}
+		return replaceFile(Paths.get(temporary), Paths.get(filepath));
+	}
+
+	/**
+	 * Maps the file into memory so that its attempts can be read.
+	 *
+	 * @return A StatisticsRecords object giving access to every complete attempt in
+	 *         the file.
+	 */
+	public StatisticsRecords mapRecords() {
+		if (getFileLength() <= HEADER_SIZE) {
+			return new StatisticsRecords(ByteBuffer.allocate(0));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+			FileChannel channel = file.getChannel();
+			return new StatisticsRecords(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			return new StatisticsRecords(ByteBuffer.allocate(0));
+		}
+	}
+
+	/**
+	 * Removes all attempts from the file.
+	 */
+	public void resetRecords() {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+		putHeader(buffer);
+		buffer.flip();
+		try (FileOutputStream outputStream = new FileOutputStream(filepath, false)) {
+			outputStream.getChannel().write(buffer);
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+
+	/**
+	 * Determines whether the file still holds attempts as lines of text, from
+	 * before attempts were stored in binary.
+	 *
+	 * @return A boolean that is true if the file needs to be converted.
+	 */
+	public boolean isTextFormat() {
+		if (getFileLength() < 4) {
+			return getFileLength() > 0;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+			return file.readInt() != MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void putHeader(ByteBuffer buffer) {
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+
+	/**
+	 * Lays out an attempt in binary at the position of the buffer.
+	 */
+	static void putRecord(ByteBuffer buffer, long epochSecond, int offsetSeconds, int wordId, int topicId,
+			AnswerStatus answerStatus, int scoreEarned, int latencyMillis) {
+		int start = buffer.position();
+		buffer.putLong(epochSecond);
+		buffer.putInt(wordId);
+		buffer.putShort((short) topicId);
+		buffer.put((byte) (offsetSeconds / OFFSET_UNIT_SECONDS));
+		buffer.put((byte) answerStatus.ordinal());
+		buffer.putInt(scoreEarned);
+		buffer.putInt(latencyMillis);
+		buffer.putInt(getChecksum(buffer, start));
+	}
+
+	/**
+	 * Returns the checksum of the bytes of an attempt that come before its
+	 * checksum.
+	 *
+	 * @param buffer   A ByteBuffer object holding the attempt.
+	 * @param position An integer containing the position of the attempt in the
+	 *                 buffer.
+	 * @return An integer containing the CRC-32 checksum.
+	 */
+	static int getChecksum(ByteBuffer buffer, int position) {
+		ByteBuffer checked = buffer.duplicate();
+		checked.limit(position + CHECKSUM_POSITION);
+		checked.position(position);
+		CRC32 checksum = new CRC32();
+		checksum.update(checked);
+		return (int) checksum.getValue();
+	}
+}
@@ -0,0 +1,66 @@
+package fileio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Reads from and writes to the list of rollup files whose counts have been
+ * merged into the segments of spelling attempts, so that merging the same
+ * compacted days again does not count them twice. Rollups count attempts
+ * rather than record each one, so they cannot be told apart from alike rollups
+ * one at a time, and whole rollup files are compared by their checksum instead.
+ *
+ * The file holds one rollup file per line, given by its day and the CRC-32
+ * checksum of its rollups in hexadecimal, such as "2021-10-18 1c291ca3".
+ */
+public class StatisticsMergedIO extends FileIO {
+
+	/**
+	 * Creates a StatisticsMergedIO object with the filepath to the file to
+	 * modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsMergedIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Returns the rollup files whose counts have been merged.
+	 *
+	 * @return An ArrayList object storing Strings, where each String contains the
+	 *         day and checksum of a rollup file, as given by getKey.
+	 */
+	public ArrayList<String> getMergedRollups() {
+		ArrayList<String> keys = new ArrayList<>();
+		for (String line : readLines()) {
+			if (!line.isEmpty()) {
+				keys.add(line);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Saves the rollup files whose counts have been merged, in place of those saved
+	 * before.
+	 *
+	 * @param keys A Collection object storing Strings, where each String contains
+	 *             the day and checksum of a rollup file, as given by getKey.
+	 */
+	public void saveMergedRollups(Collection<String> keys) {
+		overwriteLinesAtomically(new ArrayList<>(keys));
+	}
+
+	/**
+	 * Returns how a rollup file is listed.
+	 *
+	 * @param day     A String containing the day of the rollups.
+	 * @param rollups The StatisticsRollups object of the rollup file.
+	 * @return A String containing the day and the checksum of the rollups.
+	 */
+	public static String getKey(String day, StatisticsRollups rollups) {
+		return day + " " + Integer.toHexString(rollups.getChecksum());
+	}
+}
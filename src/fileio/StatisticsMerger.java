@@ -0,0 +1,423 @@
+package fileio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import enums.AnswerStatus;
+
+/**
+ * Merges the spelling attempts of several statistics files, such as those of
+ * different kiosks, into one set of segments in time order, numbering their
+ * words and topics with one dictionary.
+ *
+ * The segments of each file are in time order unless its clock has gone back,
+ * so they are merged as they are read rather than sorted: each file has a
+ * cursor at its next attempt, the cursors are kept in a heap ordered by the
+ * time of that attempt, and the earliest attempt is written and its cursor
+ * moved on. Only one segment of each file is mapped at a time, so the memory
+ * used depends on the number of files and not on the number of attempts.
+ * Attempts at the same second are taken from the files in the order the files
+ * are given, and an attempt out of time order is written when its cursor
+ * reaches it.
+ *
+ * An attempt is dropped as a duplicate if an attempt already written at the
+ * same second has the same word, topic, offset, answer status, score and
+ * latency, such as when a file is merged twice or kiosks hold copies of the same
+ * attempts. Only attempts of the same second are kept to compare against, so
+ * duplicates are found without holding every attempt written. Attempts that
+ * were not written in full, or whose word or topic has no name in the
+ * dictionary of their file, are skipped.
+ *
+ * Days that have been compacted into rollups are merged by keeping the rollups
+ * of every file. Rollups count attempts rather than record each one, so
+ * duplicates are found a rollup file at a time instead: the merged segments
+ * list the checksum of every rollup file merged into them (see
+ * StatisticsMergedIO), and a rollup file is dropped if another file lists it,
+ * or if an alike rollup file of the same day has already been merged. Merging a
+ * file again therefore counts its compacted days once, like its attempts.
+ */
+public class StatisticsMerger {
+	private static final int UNKNOWN_ID = -1;
+
+	private StatisticsSegmentsIO mergedSegmentsIO;
+	private StatisticsDictionaryIO mergedDictionaryIO;
+	private ArrayList<Cursor> cursors;
+	// Keys of the attempts written at the current second, two longs per attempt
+	private long currentSecond;
+	private long[] currentKeys;
+	private int currentKeyCount;
+	private long mergedCount;
+	private long duplicateCount;
+	private long skippedCount;
+	private long rollupCount;
+	private long duplicateRollupCount;
+	private boolean isWriteFailed;
+
+	/**
+	 * Creates a StatisticsMerger object that writes merged attempts to segments.
+	 *
+	 * @param mergedSegmentsIO   The StatisticsSegmentsIO object of the segments to
+	 *                           write to, which should hold no attempts yet.
+	 * @param mergedDictionaryIO The StatisticsDictionaryIO object to number the
+	 *                           words and topics of the merged attempts with.
+	 */
+	StatisticsMerger(StatisticsSegmentsIO mergedSegmentsIO, StatisticsDictionaryIO mergedDictionaryIO) {
+		this.mergedSegmentsIO = mergedSegmentsIO;
+		this.mergedDictionaryIO = mergedDictionaryIO;
+		currentSecond = Long.MIN_VALUE;
+		currentKeys = new long[32];
+		cursors = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a statistics file to be merged, after the files already added. The
+	 * file is only read.
+	 *
+	 * @param segmentsIO   The StatisticsSegmentsIO object of the segments of the
+	 *                     file.
+	 * @param dictionaryIO The StatisticsDictionaryIO object that numbers the words
+	 *                     and topics of the file.
+	 */
+	void addSource(StatisticsSegmentsIO segmentsIO, StatisticsDictionaryIO dictionaryIO) {
+		cursors.add(new Cursor(segmentsIO, dictionaryIO, cursors.size()));
+	}
+
+	/**
+	 * Merges the attempts and rollups of the statistics files added into the
+	 * segments. The merge stops at the first attempt or rollup that cannot be
+	 * written, such as while the disk is full.
+	 *
+	 * @return A boolean that is true if every attempt and rollup to keep was
+	 *         written.
+	 */
+	boolean merge() {
+		mergeRecords();
+		if (!isWriteFailed) {
+			mergeRollups();
+		}
+		return !isWriteFailed;
+	}
+
+	/**
+	 * Helper method to write the attempts of every cursor in time order.
+	 */
+	private void mergeRecords() {
+		PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, cursors.size()),
+				(first, second) -> first.epochSecond != second.epochSecond
+						? Long.compare(first.epochSecond, second.epochSecond)
+						: Integer.compare(first.order, second.order));
+		for (Cursor cursor : cursors) {
+			if (cursor.next()) {
+				heap.add(cursor);
+			}
+		}
+		while (!heap.isEmpty() && !isWriteFailed) {
+			Cursor cursor = heap.poll();
+			writeRecord(cursor);
+			if (cursor.next()) {
+				heap.add(cursor);
+			}
+		}
+		if (mergedSegmentsIO.flushBufferedRecords() < mergedCount) {
+			isWriteFailed = true;
+		}
+	}
+
+	/**
+	 * Helper method to write the attempt a cursor is at, unless an attempt just
+	 * like it has been written at the same second.
+	 */
+	private void writeRecord(Cursor cursor) {
+		StatisticsRecords records = cursor.records;
+		int index = cursor.index;
+		if (!records.isIntact(index)) {
+			skippedCount++;
+			return;
+		}
+		long epochSecond = cursor.epochSecond;
+		int offsetSeconds = records.getOffsetSeconds(index);
+		int wordId = cursor.getMergedWordId(records.getWordId(index));
+		int topicId = cursor.getMergedTopicId(records.getTopicId(index));
+		AnswerStatus answerStatus = records.getAnswerStatus(index);
+		if (wordId == UNKNOWN_ID || topicId == UNKNOWN_ID || answerStatus == null) {
+			// The name was not saved in full, as the file was not recovered
+			skippedCount++;
+			return;
+		}
+		int score = records.getScore(index);
+		int latencyMillis = records.getLatencyMillis(index);
+		long nameKey = ((long) wordId << 32) | ((topicId & 0xFFFFL) << 16)
+				| ((offsetSeconds / StatisticsLogIO.OFFSET_UNIT_SECONDS & 0xFFL) << 8) | answerStatus.ordinal();
+		long valueKey = ((long) score << 32) | (latencyMillis & 0xFFFFFFFFL);
+		if (isDuplicate(epochSecond, nameKey, valueKey)) {
+			duplicateCount++;
+			return;
+		}
+		if (!mergedSegmentsIO.bufferRecord(epochSecond, offsetSeconds, wordId, topicId, answerStatus, score,
+				latencyMillis)) {
+			isWriteFailed = true;
+			return;
+		}
+		mergedCount++;
+	}
+
+	/**
+	 * Helper method to determine whether an attempt has already been written at
+	 * the same second, remembering it if not.
+	 */
+	private boolean isDuplicate(long epochSecond, long nameKey, long valueKey) {
+		if (epochSecond != currentSecond) {
+			currentSecond = epochSecond;
+			currentKeyCount = 0;
+		}
+		for (int i = 0; i < currentKeyCount; i += 2) {
+			if (currentKeys[i] == nameKey && currentKeys[i + 1] == valueKey) {
+				return true;
+			}
+		}
+		if (currentKeyCount == currentKeys.length) {
+			currentKeys = Arrays.copyOf(currentKeys, currentKeys.length * 2);
+		}
+		currentKeys[currentKeyCount++] = nameKey;
+		currentKeys[currentKeyCount++] = valueKey;
+		return false;
+	}
+
+	/**
+	 * Helper method to write the rollups of every day that any cursor has rollups
+	 * for, one day at a time, leaving out rollup files that have been merged
+	 * before.
+	 */
+	private void mergeRollups() {
+		TreeSet<String> days = new TreeSet<>();
+		// The rollup files already counted by each file, and by the merged file
+		ArrayList<HashSet<String>> counted = new ArrayList<>();
+		TreeSet<String> mergedRollups = new TreeSet<>();
+		for (Cursor cursor : cursors) {
+			days.addAll(cursor.days);
+			HashSet<String> keys = new HashSet<>(cursor.segmentsIO.getMergedRollups());
+			counted.add(keys);
+			mergedRollups.addAll(keys);
+		}
+		for (String day : days) {
+			ArrayList<StatisticsRollups> dayRollups = new ArrayList<>();
+			int size = 0;
+			for (Cursor cursor : cursors) {
+				StatisticsRollups rollups = cursor.segmentsIO.mapRollups(day);
+				dayRollups.add(rollups);
+				size += rollups.size();
+			}
+			if (size == 0) {
+				continue;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(size * StatisticsRollupIO.RECORD_SIZE);
+			HashSet<String> included = new HashSet<>();
+			for (int i = 0; i < cursors.size(); i++) {
+				Cursor cursor = cursors.get(i);
+				StatisticsRollups rollups = dayRollups.get(i);
+				if (rollups.size() == 0) {
+					continue;
+				}
+				String key = StatisticsMergedIO.getKey(day, rollups);
+				mergedRollups.add(key);
+				if (included.contains(key) || isCountedByAnother(counted, i, key)) {
+					duplicateRollupCount += rollups.size();
+					continue;
+				}
+				included.add(key);
+				for (int j = 0; j < rollups.size(); j++) {
+					int wordId = cursor.getMergedWordId(rollups.getWordId(j));
+					int topicId = cursor.getMergedTopicId(rollups.getTopicId(j));
+					AnswerStatus answerStatus = rollups.getAnswerStatus(j);
+					if (wordId == UNKNOWN_ID || topicId == UNKNOWN_ID || answerStatus == null) {
+						// Rollups have no checksum, so one that cannot be read is left out
+						skippedCount++;
+						continue;
+					}
+					StatisticsRollupIO.putRollup(buffer, rollups.getEpochSecond(j), rollups.getOffsetSeconds(j),
+							wordId, topicId, answerStatus, rollups.getCount(j), rollups.getScore(j));
+					rollupCount++;
+				}
+			}
+			if (buffer.position() > 0) {
+				buffer.flip();
+				if (!mergedSegmentsIO.addRollups(day, buffer)) {
+					isWriteFailed = true;
+					return;
+				}
+			}
+		}
+		if (!mergedRollups.isEmpty()) {
+			mergedSegmentsIO.saveMergedRollups(mergedRollups);
+		}
+	}
+
+	/**
+	 * Helper method to determine whether a rollup file of one cursor is counted
+	 * by the rollups of another cursor, as it was merged into that file before.
+	 */
+	private boolean isCountedByAnother(ArrayList<HashSet<String>> counted, int cursorIndex, String key) {
+		for (int i = 0; i < counted.size(); i++) {
+			if (i != cursorIndex && counted.get(i).contains(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether every attempt and rollup to keep was written to the merged
+	 * segments, which only then take the place of the segments merged into.
+	 */
+	public boolean isComplete() {
+		return !isWriteFailed;
+	}
+
+	/**
+	 * Returns how many attempts were written to the merged segments.
+	 */
+	public long getMergedCount() {
+		return mergedCount;
+	}
+
+	/**
+	 * Returns how many attempts were dropped for being just like an attempt
+	 * already written.
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * Returns how many rollups were dropped for being in a rollup file that had
+	 * been merged before.
+	 */
+	public long getDuplicateRollupCount() {
+		return duplicateRollupCount;
+	}
+
+	/**
+	 * Returns how many attempts and rollups were skipped for not being written in
+	 * full, or for holding a word, topic or answer status that was never
+	 * recorded.
+	 */
+	public long getSkippedCount() {
+		return skippedCount;
+	}
+
+	/**
+	 * Returns how many rollups of compacted days were written to the merged
+	 * segments.
+	 */
+	public long getRollupCount() {
+		return rollupCount;
+	}
+
+	/**
+	 * The next attempt of one statistics file, moving through its segments a day
+	 * at a time, along with the numbers its words and topics have in the merged
+	 * dictionary.
+	 */
+	private class Cursor {
+		private final StatisticsSegmentsIO segmentsIO;
+		private final StatisticsDictionaryIO dictionaryIO;
+		private final int order;
+		private final ArrayList<String> days;
+		private int dayIndex;
+		private StatisticsRecords records;
+		private int index;
+		private long epochSecond;
+		// Merged number of each word and topic at the index of its number in the
+		// file, or UNKNOWN_ID if it has not been looked up yet
+		private int[] wordIds;
+		private int[] topicIds;
+
+		private Cursor(StatisticsSegmentsIO segmentsIO, StatisticsDictionaryIO dictionaryIO, int order) {
+			this.segmentsIO = segmentsIO;
+			this.dictionaryIO = dictionaryIO;
+			this.order = order;
+			days = segmentsIO.getSegmentDays();
+			dayIndex = -1;
+			index = -1;
+			wordIds = new int[0];
+			topicIds = new int[0];
+		}
+
+		/**
+		 * Moves to the next attempt, mapping the segment of the next day once the
+		 * attempts of a day run out.
+		 *
+		 * @return A boolean that is true if there is another attempt.
+		 */
+		private boolean next() {
+			index++;
+			while (records == null || index >= records.size()) {
+				// The segment is let go before the next is mapped
+				records = null;
+				dayIndex++;
+				if (dayIndex >= days.size()) {
+					return false;
+				}
+				records = segmentsIO.mapSegment(days.get(dayIndex));
+				index = 0;
+			}
+			epochSecond = records.getEpochSecond(index);
+			return true;
+		}
+
+		/**
+		 * Returns the merged number of a word of the file, or UNKNOWN_ID if the file
+		 * gives no word that number.
+		 */
+		private int getMergedWordId(int wordId) {
+			if (wordId < 0) {
+				return UNKNOWN_ID;
+			}
+			if (wordId >= wordIds.length) {
+				wordIds = grow(wordIds, wordId);
+			}
+			if (wordIds[wordId] == UNKNOWN_ID) {
+				String word = dictionaryIO.getWord(wordId);
+				if (word == null) {
+					return UNKNOWN_ID;
+				}
+				wordIds[wordId] = mergedDictionaryIO.getWordId(word);
+			}
+			return wordIds[wordId];
+		}
+
+		/**
+		 * Returns the merged number of a topic of the file, or UNKNOWN_ID if the file
+		 * gives no topic that number.
+		 */
+		private int getMergedTopicId(int topicId) {
+			if (topicId < 0) {
+				return UNKNOWN_ID;
+			}
+			if (topicId >= topicIds.length) {
+				topicIds = grow(topicIds, topicId);
+			}
+			if (topicIds[topicId] == UNKNOWN_ID) {
+				String topic = dictionaryIO.getTopic(topicId);
+				if (topic == null) {
+					return UNKNOWN_ID;
+				}
+				topicIds[topicId] = mergedDictionaryIO.getTopicId(topic);
+			}
+			return topicIds[topicId];
+		}
+
+		/**
+		 * Helper method to make room for a number in a table of merged numbers.
+		 */
+		private int[] grow(int[] ids, int id) {
+			int[] grown = Arrays.copyOf(ids, Math.max(ids.length * 2, id + 1));
+			Arrays.fill(grown, ids.length, grown.length, UNKNOWN_ID);
+			return grown;
+		}
+	}
+}
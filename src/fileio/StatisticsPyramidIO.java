@@ -0,0 +1,119 @@
+package fileio;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+
+import enums.AnswerStatus;
+import enums.BucketSize;
+import statistics.StatisticsPyramid;
+
+/**
+ * Reads from and writes to the file holding the counts of the user's spelling
+ * attempts per minute, hour, day, week and month, which is kept alongside the
+ * statistics file.
+ *
+ * The first lines record the newest segment of the statistics that has been
+ * counted and how many of its bytes have been counted, such as
+ * "LOG_POSITION 2021-10-18 2008", the time zone that the buckets follow, such as
+ * "ZONE Pacific/Auckland", and the epoch second from which minutes are kept,
+ * such as "MINUTES_FROM 1634000000". Each line after holds the counts of one
+ * topic in one bucket, such as "HOUR 1634518800 Colours 4 1 0", where the
+ * bucket is named by its size and the epoch second it starts at, and the
+ * numbers are the mastered, faulted and failed counts.
+ */
+public class StatisticsPyramidIO extends FileIO {
+	private static final String LOG_POSITION = "LOG_POSITION";
+	private static final String ZONE = "ZONE";
+	private static final String MINUTES_FROM = "MINUTES_FROM";
+	private static final String NO_SEGMENT = "-";
+	// Saves from different threads share the same temporary file, so take turns
+	private static final Object SAVE_LOCK = new Object();
+
+	/**
+	 * Creates a StatisticsPyramidIO object with the filepath to the file to
+	 * modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsPyramidIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Retrieves the counts from the file.
+	 *
+	 * @param zone A ZoneId object for the time zone that the counts should follow.
+	 * @return A StatisticsPyramid object with the counts in the file, or null if
+	 *         the file is missing, cannot be understood, or follows another time
+	 *         zone.
+	 */
+	public StatisticsPyramid loadPyramid(ZoneId zone) {
+		ArrayList<String> lines = readLines();
+		if (lines.size() < 3) {
+			return null;
+		}
+		try {
+			String[] position = getStringPartsFromLine(lines.get(0));
+			String[] zoneLine = getStringPartsFromLine(lines.get(1));
+			String[] minutesLine = getStringPartsFromLine(lines.get(2));
+			if (!position[0].equals(LOG_POSITION) || !zoneLine[0].equals(ZONE)
+					|| !zoneLine[1].equals(zone.getId()) || !minutesLine[0].equals(MINUTES_FROM)) {
+				return null;
+			}
+			StatisticsPyramid pyramid = new StatisticsPyramid(zone, Long.parseLong(minutesLine[1]));
+			if (!position[1].equals(NO_SEGMENT)) {
+				pyramid.setLogSegment(position[1]);
+			}
+			pyramid.setLogLength(Long.parseLong(position[2]));
+			for (int i = 3; i < lines.size(); i++) {
+				String[] parts = getStringPartsFromLine(lines.get(i));
+				BucketSize level = BucketSize.valueOf(parts[0]);
+				long bucketStart = Long.parseLong(parts[1]);
+				pyramid.addCount(level, bucketStart, parts[2], AnswerStatus.MASTERED, Integer.parseInt(parts[3]));
+				pyramid.addCount(level, bucketStart, parts[2], AnswerStatus.FAULTED, Integer.parseInt(parts[4]));
+				pyramid.addCount(level, bucketStart, parts[2], AnswerStatus.FAILED, Integer.parseInt(parts[5]));
+			}
+			return pyramid;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the counts to the file. The file is replaced in one step, so that it
+	 * still holds the previous counts if the application stops while saving.
+	 *
+	 * @param pyramid The StatisticsPyramid object to save to file.
+	 */
+	public void savePyramid(StatisticsPyramid pyramid) {
+		ArrayList<String> lines = new ArrayList<>();
+		String logSegment = pyramid.getLogSegment();
+		if (logSegment == null) {
+			logSegment = NO_SEGMENT;
+		}
+		lines.add(LOG_POSITION + " " + logSegment + " " + pyramid.getLogLength());
+		lines.add(ZONE + " " + pyramid.getZone().getId());
+		lines.add(MINUTES_FROM + " " + pyramid.getMinuteCutoff());
+		for (BucketSize level : BucketSize.values()) {
+			for (long bucketStart : pyramid.getBucketStarts(level)) {
+				for (String wordList : pyramid.getWordLists(level, bucketStart)) {
+					lines.add(level + " " + bucketStart + " " + wordList + " "
+							+ pyramid.getCount(level, bucketStart, wordList, AnswerStatus.MASTERED) + " "
+							+ pyramid.getCount(level, bucketStart, wordList, AnswerStatus.FAULTED) + " "
+							+ pyramid.getCount(level, bucketStart, wordList, AnswerStatus.FAILED));
+				}
+			}
+		}
+		synchronized (SAVE_LOCK) {
+			overwriteLinesAtomically(lines);
+		}
+	}
+
+	/**
+	 * Removes the file, so that the counts are recounted on the next read.
+	 */
+	public void deletePyramid() {
+		deleteFile();
+	}
+}
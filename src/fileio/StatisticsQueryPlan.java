@@ -0,0 +1,176 @@
+package fileio;
+
+import java.util.Set;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.StatisticsQuery;
+
+/**
+ * A StatisticsQuery turned into checks on the numbers stored in segments and
+ * rollups, so that attempts can be matched without reading their words and
+ * topics from the dictionary. Topics and words become tables of the numbers
+ * that match, looked up by number.
+ *
+ * Each attempt is checked against the cheapest parts first: its epoch second,
+ * then its answer status, then its topic and then its word. Only attempts that
+ * pass every check have their offset read and their word and topic looked up.
+ * Attempts and rollups holding an answer status, word or topic that was never
+ * recorded, such as ones that were not written in full, are skipped, so that
+ * one of them does not stop the rest from being read.
+ */
+class StatisticsQueryPlan {
+	private static final int ANSWER_STATUS_COUNT = AnswerStatus.values().length;
+
+	private final StatisticsDictionaryIO dictionaryIO;
+	private final long start;
+	private final long end;
+	// Each table is null to match everything
+	private final boolean[] answerStatuses;
+	private final boolean[] topicIds;
+	private final boolean[] wordIds;
+
+	/**
+	 * Creates a StatisticsQueryPlan object.
+	 *
+	 * @param query        The StatisticsQuery object to match attempts against.
+	 * @param dictionaryIO The StatisticsDictionaryIO object that numbers the words
+	 *                     and topics of the segments.
+	 */
+	StatisticsQueryPlan(StatisticsQuery query, StatisticsDictionaryIO dictionaryIO) {
+		this.dictionaryIO = dictionaryIO;
+		start = query.getStart();
+		end = query.getEnd();
+		if (query.getAnswerStatuses() == null) {
+			answerStatuses = null;
+		} else {
+			answerStatuses = new boolean[ANSWER_STATUS_COUNT];
+			for (AnswerStatus answerStatus : query.getAnswerStatuses()) {
+				answerStatuses[answerStatus.ordinal()] = true;
+			}
+		}
+		topicIds = getIdTable(query.getWordLists(), true);
+		wordIds = getIdTable(query.getWords(), false);
+	}
+
+	/**
+	 * Helper method to mark the numbers of the input names, leaving out names that
+	 * have never been given a number, as no attempt can refer to them.
+	 */
+	private boolean[] getIdTable(Set<String> names, boolean isTopics) {
+		if (names == null) {
+			return null;
+		}
+		int[] ids = new int[names.size()];
+		int maxId = -1;
+		int i = 0;
+		for (String name : names) {
+			ids[i] = isTopics ? dictionaryIO.findTopicId(name) : dictionaryIO.findWordId(name);
+			maxId = Math.max(maxId, ids[i]);
+			i++;
+		}
+		boolean[] table = new boolean[maxId + 1];
+		for (int id : ids) {
+			if (id >= 0) {
+				table[id] = true;
+			}
+		}
+		return table;
+	}
+
+	long getStart() {
+		return start;
+	}
+
+	long getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns whether no attempt can match, such as when the window is empty or
+	 * none of the topics or words have been recorded.
+	 */
+	boolean matchesNothing() {
+		return start >= end || (topicIds != null && topicIds.length == 0)
+				|| (wordIds != null && wordIds.length == 0);
+	}
+
+	/**
+	 * Passes the matching attempts in a run of a segment to a visitor. Attempts
+	 * outside the window are passed over rather than ending the run, as a segment
+	 * is not in time order if the clock has gone back.
+	 *
+	 * @param records The StatisticsRecords object of the segment.
+	 * @param first   An integer containing the position of the first attempt to
+	 *                check.
+	 * @param end     An integer containing the position after the last attempt to
+	 *                check.
+	 * @param visitor The StatisticsQueryVisitor object to pass each match to.
+	 */
+	void scanRecords(StatisticsRecords records, int first, int end, StatisticsQueryVisitor visitor) {
+		for (int i = first; i < end; i++) {
+			long epochSecond = records.getEpochSecond(i);
+			if (epochSecond < start || epochSecond >= this.end) {
+				continue;
+			}
+			AnswerStatus answerStatus = records.getAnswerStatus(i);
+			if (answerStatus == null || !matches(answerStatuses, answerStatus.ordinal())) {
+				continue;
+			}
+			int topicId = records.getTopicId(i);
+			if (!matches(topicIds, topicId)) {
+				continue;
+			}
+			int wordId = records.getWordId(i);
+			if (!matches(wordIds, wordId)) {
+				continue;
+			}
+			String word = dictionaryIO.getWord(wordId);
+			String wordList = dictionaryIO.getTopic(topicId);
+			if (word == null || wordList == null) {
+				continue;
+			}
+			visitor.visitAttempts(epochSecond, records.getOffsetSeconds(i), word, wordList, answerStatus, 1,
+					records.getLatencyMillis(i));
+		}
+	}
+
+	/**
+	 * Passes the matching rollups of a day to a visitor, with the number of
+	 * attempts each counts.
+	 *
+	 * @param rollups The StatisticsRollups object of the day.
+	 * @param visitor The StatisticsQueryVisitor object to pass each match to.
+	 */
+	void scanRollups(StatisticsRollups rollups, StatisticsQueryVisitor visitor) {
+		for (int i = 0; i < rollups.size(); i++) {
+			long epochSecond = rollups.getEpochSecond(i);
+			if (epochSecond < start || epochSecond >= end) {
+				continue;
+			}
+			AnswerStatus answerStatus = rollups.getAnswerStatus(i);
+			if (answerStatus == null || !matches(answerStatuses, answerStatus.ordinal())) {
+				continue;
+			}
+			int topicId = rollups.getTopicId(i);
+			if (!matches(topicIds, topicId)) {
+				continue;
+			}
+			int wordId = rollups.getWordId(i);
+			if (!matches(wordIds, wordId)) {
+				continue;
+			}
+			String word = dictionaryIO.getWord(wordId);
+			String wordList = dictionaryIO.getTopic(topicId);
+			if (word == null || wordList == null) {
+				continue;
+			}
+			visitor.visitAttempts(epochSecond, rollups.getOffsetSeconds(i), word, wordList, answerStatus,
+					rollups.getCount(i), SpellingAttempt.UNKNOWN_LATENCY);
+		}
+	}
+
+	private static boolean matches(boolean[] table, int id) {
+		return table == null || (id >= 0 && id < table.length && table[id]);
+	}
+}
@@ -0,0 +1,30 @@
+package fileio;
+
+import enums.AnswerStatus;
+
+/**
+ * Receives the spelling attempts that match a StatisticsQuery. Attempts that
+ * have been rolled up are received together, with the number of attempts they
+ * count, and without the time taken to answer.
+ */
+public interface StatisticsQueryVisitor {
+
+	/**
+	 * Receives one or more spelling attempts that took place together.
+	 *
+	 * @param epochSecond   A long containing when the attempts took place, or the
+	 *                      start of their day if they have been rolled up.
+	 * @param offsetSeconds An integer containing the offset from UTC that the
+	 *                      attempts were recorded in.
+	 * @param word          A String containing the word, with spaces replaced by
+	 *                      dashes.
+	 * @param wordList      A String containing the topic of the word.
+	 * @param answerStatus  An AnswerStatus enumeration for the attempts.
+	 * @param count         An integer containing the number of attempts.
+	 * @param latencyMillis An integer containing the milliseconds taken to
+	 *                      answer, or SpellingAttempt.UNKNOWN_LATENCY if it is
+	 *                      not known.
+	 */
+	void visitAttempts(long epochSecond, int offsetSeconds, String word, String wordList, AnswerStatus answerStatus,
+			int count, int latencyMillis);
+}
@@ -0,0 +1,27 @@
+package fileio;
+
+import enums.AnswerStatus;
+
+/**
+ * Receives spelling attempts one at a time as they are read from statistics.
+ * The word and topic are only valid during the call, as the characters behind
+ * them are reused for the next attempt; call toString on them to keep them.
+ */
+public interface StatisticsRecordVisitor {
+
+	/**
+	 * Receives one spelling attempt.
+	 *
+	 * @param epochSecond   A long containing when the attempt took place.
+	 * @param offsetSeconds An integer containing the offset from UTC that the
+	 *                      attempt was recorded in.
+	 * @param word          A CharSequence containing the word, with spaces
+	 *                      replaced by dashes.
+	 * @param wordList      A CharSequence containing the topic of the word.
+	 * @param answerStatus  An AnswerStatus enumeration for the attempt.
+	 * @param scoreEarned   An integer representing how much earning the user got
+	 *                      from the attempt.
+	 */
+	void visitRecord(long epochSecond, int offsetSeconds, CharSequence word, CharSequence wordList,
+			AnswerStatus answerStatus, int scoreEarned);
+}
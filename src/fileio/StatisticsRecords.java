@@ -0,0 +1,139 @@
+package fileio;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import enums.AnswerStatus;
+
+/**
+ * Gives access to the spelling attempts in the statistics file, where any
+ * attempt can be read directly by its position without reading the ones before
+ * it. See StatisticsLogIO for the layout of each attempt.
+ */
+public class StatisticsRecords {
+	private static final AnswerStatus[] ANSWER_STATUSES = AnswerStatus.values();
+
+	private ByteBuffer buffer;
+	private int size;
+
+	/**
+	 * Creates a StatisticsRecords object over the contents of the statistics file.
+	 *
+	 * @param buffer A ByteBuffer object holding the statistics file, including its
+	 *               header.
+	 */
+	StatisticsRecords(ByteBuffer buffer) {
+		this.buffer = buffer;
+		long recordBytes = Math.max(0, buffer.limit() - StatisticsLogIO.HEADER_SIZE);
+		size = (int) (recordBytes / StatisticsLogIO.RECORD_SIZE);
+	}
+
+	/**
+	 * Returns the number of complete attempts in the file.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public long getEpochSecond(int index) {
+		return buffer.getLong(getPosition(index) + StatisticsLogIO.EPOCH_SECOND_POSITION);
+	}
+
+	public int getWordId(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsLogIO.WORD_ID_POSITION);
+	}
+
+	public int getTopicId(int index) {
+		return buffer.getShort(getPosition(index) + StatisticsLogIO.TOPIC_ID_POSITION);
+	}
+
+	public int getOffsetSeconds(int index) {
+		return buffer.get(getPosition(index) + StatisticsLogIO.OFFSET_POSITION) * StatisticsLogIO.OFFSET_UNIT_SECONDS;
+	}
+
+	/**
+	 * Returns the answer status of the attempt.
+	 *
+	 * @return An AnswerStatus enumeration, or null if the attempt holds a number
+	 *         that is not an answer status, such as when it was not written in
+	 *         full.
+	 */
+	public AnswerStatus getAnswerStatus(int index) {
+		int ordinal = buffer.get(getPosition(index) + StatisticsLogIO.STATUS_POSITION);
+		return ordinal >= 0 && ordinal < ANSWER_STATUSES.length ? ANSWER_STATUSES[ordinal] : null;
+	}
+
+	public int getScore(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsLogIO.SCORE_POSITION);
+	}
+
+	/**
+	 * Returns how long the user took to answer.
+	 *
+	 * @return An integer containing the milliseconds taken, or
+	 *         SpellingAttempt.UNKNOWN_LATENCY if they were not recorded.
+	 */
+	public int getLatencyMillis(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsLogIO.LATENCY_POSITION);
+	}
+
+	/**
+	 * Determines whether an attempt was written in full, by checking it against
+	 * its checksum.
+	 *
+	 * @return A boolean that is true if the attempt can be read.
+	 */
+	public boolean isIntact(int index) {
+		int position = getPosition(index);
+		int checksum = buffer.getInt(position + StatisticsLogIO.CHECKSUM_POSITION);
+		return checksum == StatisticsLogIO.getChecksum(buffer, position);
+	}
+
+	/**
+	 * Returns when the attempt took place, in the offset it was recorded in.
+	 */
+	public OffsetDateTime getDateTime(int index) {
+		Instant instant = Instant.ofEpochSecond(getEpochSecond(index));
+		ZoneOffset offset = ZoneOffset.ofTotalSeconds(getOffsetSeconds(index));
+		return OffsetDateTime.ofInstant(instant, offset);
+	}
+
+	/**
+	 * Returns the byte position in the file just after the attempts in this
+	 * object. This is zero if the file has not been started, the same as the length
+	 * of a segment that does not exist, so that a day holding only rollups is
+	 * counted up to the same position whichever way it is measured.
+	 */
+	public long getEndFilePosition() {
+		if (buffer.limit() < StatisticsLogIO.HEADER_SIZE) {
+			return 0;
+		}
+		return StatisticsLogIO.HEADER_SIZE + (long) size * StatisticsLogIO.RECORD_SIZE;
+	}
+
+	/**
+	 * Returns the bytes of the header of the file.
+	 */
+	ByteBuffer getHeaderBytes() {
+		ByteBuffer header = buffer.duplicate();
+		header.limit(StatisticsLogIO.HEADER_SIZE);
+		header.position(0);
+		return header;
+	}
+
+	/**
+	 * Returns the bytes of an attempt as they are laid out in the file.
+	 */
+	ByteBuffer getRecordBytes(int index) {
+		ByteBuffer record = buffer.duplicate();
+		record.limit(getPosition(index) + StatisticsLogIO.RECORD_SIZE);
+		record.position(getPosition(index));
+		return record;
+	}
+
+	private int getPosition(int index) {
+		return StatisticsLogIO.HEADER_SIZE + index * StatisticsLogIO.RECORD_SIZE;
+	}
+}
@@ -0,0 +1,72 @@
+package fileio;
+
+import java.util.ArrayList;
+
+/**
+ * Reads from and writes to the file recording how far the segments of spelling
+ * attempts have been checked for attempts that were not written in full, so
+ * that each attempt is only checked once. Segments only ever grow at their end,
+ * so the attempts before this position do not need to be checked again.
+ *
+ * The file holds a single line with the day of the newest segment checked and
+ * how many of its bytes were checked, such as "VERIFIED 2021-10-18 2008".
+ */
+public class StatisticsRecoveryIO extends FileIO {
+	private static final String VERIFIED = "VERIFIED";
+
+	private String verifiedDay;
+	private long verifiedLength;
+
+	/**
+	 * Creates a StatisticsRecoveryIO object with the filepath to the file to
+	 * modify, and reads the position from the file.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsRecoveryIO(String filepath) {
+		super(filepath);
+		ArrayList<String> lines = readLines();
+		if (!lines.isEmpty()) {
+			String[] parts = getStringPartsFromLine(lines.get(0));
+			try {
+				if (parts.length == 3 && parts[0].equals(VERIFIED)) {
+					verifiedLength = Long.parseLong(parts[2]);
+					verifiedDay = parts[1];
+				}
+			} catch (NumberFormatException e) {
+				// Check every segment again
+			}
+		}
+	}
+
+	/**
+	 * Returns the day of the newest segment checked, or null if no segment has
+	 * been checked.
+	 */
+	public String getVerifiedDay() {
+		return verifiedDay;
+	}
+
+	/**
+	 * Returns the number of bytes of the newest segment checked that have been
+	 * checked.
+	 */
+	public long getVerifiedLength() {
+		return verifiedLength;
+	}
+
+	/**
+	 * Saves how far the segments have been checked.
+	 *
+	 * @param day    A String containing the day of the newest segment checked.
+	 * @param length A long containing the number of bytes of it checked.
+	 */
+	public void saveVerifiedPosition(String day, long length) {
+		verifiedDay = day;
+		verifiedLength = length;
+		ArrayList<String> lines = new ArrayList<>();
+		lines.add(VERIFIED + " " + day + " " + length);
+		overwriteLinesAtomically(lines);
+	}
+}
@@ -0,0 +1,283 @@
+package fileio;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the results of statistics queries in memory once worked out, so that
+ * showing the same timeline, proportions or other result again, such as when
+ * switching between tabs or time scales, does not read the statistics file
+ * again.
+ *
+ * Each result is kept under a key describing the query, along with the window
+ * of time it counts. Keys are compared with equals, so they must not change
+ * once given, and every caller is given its own copy of a result, so a caller
+ * changing what it is given cannot change the result kept. Like VocabularyStatisticsCache, the cache is kept for the
+ * position in the segments that its results have counted up to. When attempts
+ * have been recorded since, only the results whose window holds one of those
+ * attempts are dropped, so recording an attempt today keeps the results of
+ * earlier weeks. If the segments no longer continue from the position, such as
+ * after a reset, every result is dropped.
+ *
+ * The cache holds a limited number of results, and a limited total weight,
+ * being roughly the number of counts the results hold. The result used least
+ * recently is dropped first to make room.
+ *
+ * Results are looked up without locking in a copy of the cache that is never
+ * changed once shared, and is put in place of the old copy whenever the cache
+ * changes. Each copy is made at a sequence number of the running totals, which
+ * changes whenever attempts are recorded, so a result found in a copy made at
+ * the current sequence number is up to date without reading any file. Showing
+ * it never waits for attempts being recorded, or for another result being
+ * worked out.
+ *
+ * There is one StatisticsResultCache for each statistics file.
+ */
+public class StatisticsResultCache {
+	private static final HashMap<String, StatisticsResultCache> CACHES = new HashMap<>();
+	private static final int MAX_ENTRY_COUNT = 64;
+	private static final long MAX_WEIGHT = 64 * 1024;
+
+	private HashMap<Object, Entry> entries;
+	private long totalWeight;
+	private boolean isLoaded;
+	private String countedDay;
+	private long countedLength;
+	private int countedSequence;
+	// Copy of the cache read without locking, or null until it is loaded
+	private volatile Snapshot snapshot;
+	// Ticks on every use, so the result used least recently has the lowest tick
+	private AtomicLong useClock;
+	private AtomicLong hitCount;
+	private AtomicLong missCount;
+	private AtomicLong evictionCount;
+
+	private StatisticsResultCache() {
+		entries = new HashMap<>();
+		useClock = new AtomicLong();
+		hitCount = new AtomicLong();
+		missCount = new AtomicLong();
+		evictionCount = new AtomicLong();
+	}
+
+	/**
+	 * Returns the StatisticsResultCache of a statistics file.
+	 *
+	 * @param filepath A String object containing the filepath to the statistics
+	 *                 file.
+	 * @return The StatisticsResultCache object for the file.
+	 */
+	public static synchronized StatisticsResultCache getInstance(String filepath) {
+		StatisticsResultCache cache = CACHES.get(filepath);
+		if (cache == null) {
+			cache = new StatisticsResultCache();
+			CACHES.put(filepath, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns a copy of the result of a query, bringing the cache up to date with
+	 * the statistics file first and working the result out if it is not cached.
+	 *
+	 * @param key          An object describing the query that cannot be changed,
+	 *                     which equals the key of every query with the same
+	 *                     result.
+	 * @param start        A long containing the first epoch second that the result
+	 *                     counts.
+	 * @param end          A long containing the epoch second after the last that
+	 *                     the result counts.
+	 * @param weight       An integer containing roughly the number of counts the
+	 *                     result holds.
+	 * @param query        The Supplier object that works out the result.
+	 * @param copier       The UnaryOperator object that copies a result.
+	 * @param statisticsIO The StatisticsIO object of the statistics file.
+	 * @return A copy of the result of the query, which the caller may change.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T getResult(Object key, long start, long end, int weight, Supplier<T> query, UnaryOperator<T> copier,
+			StatisticsIO statisticsIO) {
+		Snapshot current = snapshot;
+		if (current != null && current.sequence == statisticsIO.getAggregatesIO().getSequence()) {
+			Entry entry = current.entries.get(key);
+			if (entry != null) {
+				entry.lastUsed = useClock.incrementAndGet();
+				hitCount.incrementAndGet();
+				return copier.apply((T) entry.result);
+			}
+		}
+		return copier.apply(getResultLocked(key, start, end, weight, query, statisticsIO));
+	}
+
+	/**
+	 * Helper method to return the result of a query while holding the lock,
+	 * bringing the cache up to date first and working the result out if it is
+	 * not cached. The result returned is the one kept, and so is copied before it
+	 * is given to the caller.
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized <T> T getResultLocked(Object key, long start, long end, int weight, Supplier<T> query,
+			StatisticsIO statisticsIO) {
+		bringUpToDate(statisticsIO);
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			entry.lastUsed = useClock.incrementAndGet();
+			hitCount.incrementAndGet();
+			publishSnapshot();
+			return (T) entry.result;
+		}
+		missCount.incrementAndGet();
+		// Attempts recorded while the result is worked out are checked against its
+		// window the next time the cache is brought up to date
+		T result = query.get();
+		if (weight <= MAX_WEIGHT) {
+			entry = new Entry(result, start, end, weight);
+			entry.lastUsed = useClock.incrementAndGet();
+			entries.put(key, entry);
+			totalWeight += weight;
+			evictLeastRecentlyUsed();
+		}
+		publishSnapshot();
+		return result;
+	}
+
+	/**
+	 * Helper method to drop the results used least recently until the cache is
+	 * within its limits.
+	 */
+	private void evictLeastRecentlyUsed() {
+		while (entries.size() > MAX_ENTRY_COUNT || totalWeight > MAX_WEIGHT) {
+			Object leastRecentKey = null;
+			long leastRecentUse = Long.MAX_VALUE;
+			for (Map.Entry<Object, Entry> entry : entries.entrySet()) {
+				if (entry.getValue().lastUsed < leastRecentUse) {
+					leastRecentKey = entry.getKey();
+					leastRecentUse = entry.getValue().lastUsed;
+				}
+			}
+			totalWeight -= entries.remove(leastRecentKey).weight;
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Helper method to share a copy of the cache as it is now, for results to be
+	 * looked up in without locking.
+	 */
+	private void publishSnapshot() {
+		Snapshot current = snapshot;
+		if (current != null && current.sequence == countedSequence && current.entries.equals(entries)) {
+			return;
+		}
+		snapshot = new Snapshot(countedSequence, new HashMap<>(entries));
+	}
+
+	/**
+	 * Helper method to drop the results whose window holds an attempt recorded
+	 * since the cache was last brought up to date, or every result if the
+	 * segments no longer continue from where it was.
+	 */
+	private void bringUpToDate(StatisticsIO statisticsIO) {
+		// Read before the segments, so that attempts recorded after they are read
+		// change the sequence number from the one the copy is made at
+		countedSequence = statisticsIO.getAggregatesIO().getSequence();
+		String lastDay = statisticsIO.getLastSegmentDay();
+		long lastLength = statisticsIO.getSegmentLength(lastDay);
+		if (isLoaded && Objects.equals(lastDay, countedDay) && lastLength == countedLength) {
+			return;
+		}
+		if (isLoaded && statisticsIO.canCatchUp(countedDay, countedLength)) {
+			long[] timeRange = statisticsIO.getTimeRangeAfter(countedDay, countedLength);
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (timeRange != null && iterator.hasNext()) {
+				Entry entry = iterator.next();
+				if (entry.start <= timeRange[1] && timeRange[0] < entry.end) {
+					totalWeight -= entry.weight;
+					iterator.remove();
+				}
+			}
+		} else {
+			entries.clear();
+			totalWeight = 0;
+		}
+		isLoaded = true;
+		countedDay = lastDay;
+		countedLength = lastLength;
+	}
+
+	/**
+	 * Drops every result, so that the next request for each works it out again.
+	 */
+	public synchronized void invalidate() {
+		entries.clear();
+		totalWeight = 0;
+		isLoaded = false;
+		snapshot = null;
+	}
+
+	/**
+	 * Returns how many requests were answered from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns how many requests had their result worked out.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns how many results were dropped to keep the cache within its limits.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Returns the number of results held.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * A result and the window of time it counts.
+	 */
+	private static class Entry {
+		private Object result;
+		private long start;
+		private long end;
+		private int weight;
+		// Set by readers without the lock, so read the latest use when evicting
+		private volatile long lastUsed;
+
+		private Entry(Object result, long start, long end, int weight) {
+			this.result = result;
+			this.start = start;
+			this.end = end;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * A copy of the results held at a sequence number of the running totals, which
+	 * is never changed once shared.
+	 */
+	private static class Snapshot {
+		private final int sequence;
+		private final HashMap<Object, Entry> entries;
+
+		private Snapshot(int sequence, HashMap<Object, Entry> entries) {
+			this.sequence = sequence;
+			this.entries = entries;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package fileio;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+
+import enums.AnswerStatus;
+
+/**
+ * Reads from and writes to the rolled up attempts of a day, which replace the
+ * segment of the day once it is old enough. See StatisticsSegmentsIO.
+ *
+ * The file begins with a sixteen-byte header holding "KKSR", the format version
+ * and the number of bytes of the segment of the day that the file covers, or
+ * zero if the segment still holds attempts that the file does not count. Each
+ * rollup then takes twenty-four bytes: the epoch second at which the day of its
+ * attempts started (8 bytes), the word number (4), the topic number (2), the
+ * offset from UTC in quarter hours that the attempts were recorded in (1), the
+ * answer status (1), the number of attempts (4) and their total score (4).
+ */
+public class StatisticsRollupIO extends FileIO {
+	static final int MAGIC = 0x4B4B5352;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int COVERED_LENGTH_POSITION = 8;
+	static final int RECORD_SIZE = 24;
+	static final int EPOCH_SECOND_POSITION = 0;
+	static final int WORD_ID_POSITION = 8;
+	static final int TOPIC_ID_POSITION = 12;
+	static final int OFFSET_POSITION = 14;
+	static final int STATUS_POSITION = 15;
+	static final int COUNT_POSITION = 16;
+	static final int SCORE_POSITION = 20;
+
+	/**
+	 * Creates a StatisticsRollupIO object with the filepath to the file to modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsRollupIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Maps the file into memory so that its rollups can be read.
+	 *
+	 * @return A StatisticsRollups object giving access to every rollup in the file,
+	 *         which is empty if the file is missing or not a rollup file.
+	 */
+	public StatisticsRollups mapRollups() {
+		if (getFileLength() < HEADER_SIZE) {
+			return new StatisticsRollups(ByteBuffer.allocate(0));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC) {
+				return new StatisticsRollups(ByteBuffer.allocate(0));
+			}
+			return new StatisticsRollups(buffer);
+		} catch (IOException e) {
+			return new StatisticsRollups(ByteBuffer.allocate(0));
+		}
+	}
+
+	/**
+	 * Replaces the file with new rollups in one step. The rollups are written to a
+	 * temporary file first, so the file holds either its old or its new rollups
+	 * if the application stops while saving.
+	 *
+	 * @param rollups       A ByteBuffer object holding whole rollups between its
+	 *                      position and limit.
+	 * @param coveredLength A long containing the number of bytes of the segment
+	 *                      that the rollups count.
+	 * @return A boolean that is true if the file now holds the new rollups.
+	 */
+	public boolean saveRollups(ByteBuffer rollups, long coveredLength) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(coveredLength);
+		header.flip();
+		String temporaryFilepath = filepath + ".tmp";
+		try (FileOutputStream outputStream = new FileOutputStream(temporaryFilepath, false)) {
+			FileChannel channel = outputStream.getChannel();
+			channel.write(new ByteBuffer[] { header, rollups });
+			channel.force(true);
+		} catch (IOException e) {
+			return false;
+		}
+		return replaceFile(Paths.get(temporaryFilepath), Paths.get(filepath));
+	}
+
+	/**
+	 * Lays out a rollup in binary at the position of the buffer.
+	 */
+	static void putRollup(ByteBuffer buffer, long epochSecond, int offsetSeconds, int wordId, int topicId,
+			AnswerStatus answerStatus, int count, int score) {
+		buffer.putLong(epochSecond);
+		buffer.putInt(wordId);
+		buffer.putShort((short) topicId);
+		buffer.put((byte) (offsetSeconds / StatisticsLogIO.OFFSET_UNIT_SECONDS));
+		buffer.put((byte) answerStatus.ordinal());
+		buffer.putInt(count);
+		buffer.putInt(score);
+	}
+}
@@ -0,0 +1,107 @@
+package fileio;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import enums.AnswerStatus;
+
+/**
+ * Gives access to the rolled up attempts of a day, where each rollup counts the
+ * attempts at one word in one topic with the same offset and answer status on
+ * the same day. See StatisticsRollupIO for the layout of each rollup.
+ */
+public class StatisticsRollups {
+	private static final AnswerStatus[] ANSWER_STATUSES = AnswerStatus.values();
+
+	private ByteBuffer buffer;
+	private int size;
+
+	/**
+	 * Creates a StatisticsRollups object over the contents of a rollup file.
+	 *
+	 * @param buffer A ByteBuffer object holding the rollup file, including its
+	 *               header.
+	 */
+	StatisticsRollups(ByteBuffer buffer) {
+		this.buffer = buffer;
+		long recordBytes = Math.max(0, buffer.limit() - StatisticsRollupIO.HEADER_SIZE);
+		size = (int) (recordBytes / StatisticsRollupIO.RECORD_SIZE);
+	}
+
+	/**
+	 * Returns the number of rollups in the file.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes of the segment of the day that the rollups count,
+	 * which is zero if the attempts in the segment are not counted.
+	 */
+	public long getCoveredLength() {
+		if (buffer.limit() < StatisticsRollupIO.HEADER_SIZE) {
+			return 0;
+		}
+		return buffer.getLong(StatisticsRollupIO.COVERED_LENGTH_POSITION);
+	}
+
+	/**
+	 * Returns the epoch second at which the day of the attempts started.
+	 */
+	public long getEpochSecond(int index) {
+		return buffer.getLong(getPosition(index) + StatisticsRollupIO.EPOCH_SECOND_POSITION);
+	}
+
+	public int getWordId(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsRollupIO.WORD_ID_POSITION);
+	}
+
+	public int getTopicId(int index) {
+		return buffer.getShort(getPosition(index) + StatisticsRollupIO.TOPIC_ID_POSITION);
+	}
+
+	public int getOffsetSeconds(int index) {
+		return buffer.get(getPosition(index) + StatisticsRollupIO.OFFSET_POSITION)
+				* StatisticsLogIO.OFFSET_UNIT_SECONDS;
+	}
+
+	/**
+	 * Returns the answer status of the rollup.
+	 *
+	 * @return An AnswerStatus enumeration, or null if the rollup holds a number
+	 *         that is not an answer status.
+	 */
+	public AnswerStatus getAnswerStatus(int index) {
+		int ordinal = buffer.get(getPosition(index) + StatisticsRollupIO.STATUS_POSITION);
+		return ordinal >= 0 && ordinal < ANSWER_STATUSES.length ? ANSWER_STATUSES[ordinal] : null;
+	}
+
+	public int getCount(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsRollupIO.COUNT_POSITION);
+	}
+
+	public int getScore(int index) {
+		return buffer.getInt(getPosition(index) + StatisticsRollupIO.SCORE_POSITION);
+	}
+
+	/**
+	 * Returns a checksum of the rollups, which tells whether two rollup files hold
+	 * the same counts without comparing them rollup by rollup.
+	 *
+	 * @return An integer containing the CRC-32 checksum of every rollup, without
+	 *         the header.
+	 */
+	public int getChecksum() {
+		ByteBuffer checked = buffer.duplicate();
+		checked.limit(getPosition(size));
+		checked.position(getPosition(0));
+		CRC32 checksum = new CRC32();
+		checksum.update(checked);
+		return (int) checksum.getValue();
+	}
+
+	private int getPosition(int index) {
+		return StatisticsRollupIO.HEADER_SIZE + index * StatisticsRollupIO.RECORD_SIZE;
+	}
+}
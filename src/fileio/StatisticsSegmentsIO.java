@@ -0,0 +1,875 @@
+package fileio;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+
+/**
+ * Reads from and writes to the spelling attempts, which are split into one
+ * segment file per day so that a query over a day or a week only needs to open
+ * the segments of those days. Segments are named after their day in UTC, such
+ * as "2021-10-18.seg", and each is laid out as described in StatisticsLogIO.
+ *
+ * The manifest file lists the days that have a segment, oldest first, one day
+ * per line. A day is added to the manifest before its segment is first written.
+ * Attempts are recorded at the time they took place, and an attempt from a day
+ * before the newest segment, such as after the clock has gone back, is added
+ * to the newest segment, so only the newest segment ever grows. A segment that
+ * is then no longer in time order is listed in the file "unordered" (see
+ * StatisticsUnorderedIO).
+ *
+ * Each segment has an index alongside it, such as "2021-10-18.idx", which is
+ * used to find where a time falls in the segment. See StatisticsIndexIO.
+ *
+ * Segments older than a number of days can be compacted, which rolls their
+ * attempts up into a count per day in a time zone, word, topic, offset and
+ * answer status, kept in a file such as "2021-10-18.sum" (see
+ * StatisticsRollupIO). The day stays in the manifest. The rollups are saved
+ * before the segment is removed, and record how much of the segment they count,
+ * so the attempts of a segment are skipped once rollups cover it and compaction
+ * can be stopped and started again at any point.
+ *
+ * If the application stops while adding attempts, the newest segment can end
+ * with an attempt that was only partly written. recoverSegments removes such
+ * attempts, and sets aside any attempt that fails its checksum in a file such as
+ * "2021-10-18.quarantine", so that the rest can still be read.
+ */
+public class StatisticsSegmentsIO extends FileIO {
+	private static final String SEGMENT_EXTENSION = ".seg";
+	private static final String INDEX_EXTENSION = ".idx";
+	private static final String ROLLUP_EXTENSION = ".sum";
+	private static final String QUARANTINE_EXTENSION = ".quarantine";
+	private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+	private static final int BATCH_SIZE = 4096;
+
+	private String directory;
+	private ByteBuffer batch;
+	private String batchDay;
+	// The latest time recorded in the segment of batchDay before the batch
+	private long segmentEpochSecond;
+	// The time an attempt must not be before to keep the segment of batchDay in
+	// time order, which takes in the batch and the start of the day
+	private long batchEpochSecond;
+	private boolean batchUnordered;
+	// Attempts written since flushBufferedRecords was last called, and whether any
+	// could not be written
+	private int writtenCount;
+	private boolean isWriteFailed;
+
+	/**
+	 * Creates a StatisticsSegmentsIO object for the segments kept in a directory.
+	 *
+	 * @param directory A String object containing the path to the directory that
+	 *                  holds the segments and the manifest.
+	 */
+	public StatisticsSegmentsIO(String directory) {
+		super(directory + File.separator + "manifest");
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the days that have a segment, oldest first.
+	 *
+	 * @return An ArrayList object storing Strings, where each String contains a
+	 *         day such as "2021-10-18".
+	 */
+	public ArrayList<String> getSegmentDays() {
+		ArrayList<String> days = new ArrayList<>();
+		for (String line : readLines()) {
+			if (!line.isEmpty()) {
+				days.add(line);
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Returns the newest day that has a segment.
+	 *
+	 * @return A String containing the day, or null if there are no segments.
+	 */
+	public String getLastSegmentDay() {
+		ArrayList<String> days = getSegmentDays();
+		if (days.isEmpty()) {
+			return null;
+		}
+		return days.get(days.size() - 1);
+	}
+
+	/**
+	 * Returns the UTC day that an attempt belongs to.
+	 *
+	 * @param epochSecond A long containing when the attempt took place.
+	 * @return A String containing the day, such as "2021-10-18".
+	 */
+	public static String getSegmentDay(long epochSecond) {
+		return getUtcDay(epochSecond).toString();
+	}
+
+	/**
+	 * Adds an attempt to the end of the segment for its day, or to the end of the
+	 * newest segment if the clock has gone back.
+	 *
+	 * @param dateTime     An OffsetDateTime object recording when the attempt took
+	 *                     place.
+	 * @param wordId       An integer containing the number of the word.
+	 * @param topicId      An integer containing the number of the topic.
+	 * @param answerStatus An AnswerStatus enumeration for the attempt.
+	 * @param scoreEarned  An integer representing how much earning the user got
+	 *                     from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds taken to
+	 *                      answer, or SpellingAttempt.UNKNOWN_LATENCY.
+	 * @return A boolean that is true if the attempt was written.
+	 */
+	public boolean appendRecord(OffsetDateTime dateTime, int wordId, int topicId, AnswerStatus answerStatus,
+			int scoreEarned, int latencyMillis) {
+		bufferRecord(dateTime.toEpochSecond(), dateTime.getOffset().getTotalSeconds(), wordId, topicId, answerStatus,
+				scoreEarned, latencyMillis);
+		return flushBufferedRecords() == 1;
+	}
+
+	/**
+	 * Determines the segment to add an attempt on a day to, adding a new segment
+	 * to the manifest if needed.
+	 */
+	private String getDayToAppendTo(String day) {
+		String lastDay = getLastSegmentDay();
+		if (lastDay != null && lastDay.compareTo(day) >= 0) {
+			return lastDay;
+		}
+		createDirectory(directory);
+		appendLine(day);
+		return day;
+	}
+
+	/**
+	 * Helper method to find the latest time of the attempts in the segment of a
+	 * day, which only needs the last attempt while the segment is in time order.
+	 */
+	private long getLatestEpochSecond(String day) {
+		StatisticsLogIO segment = getSegment(directory, day);
+		if (!getUnorderedIO().isUnordered(day)) {
+			return segment.getLastEpochSecond();
+		}
+		return getIndex(day).getLatestEpochSecond(segment.mapRecords());
+	}
+
+	/**
+	 * Returns the days whose segments are not in time order, such as after the
+	 * clock has gone back. Such a segment can hold an attempt before an attempt
+	 * ahead of it, or before its day.
+	 *
+	 * @return An ArrayList object storing Strings, where each String contains a
+	 *         day such as "2021-10-18".
+	 */
+	public ArrayList<String> getUnorderedDays() {
+		return getUnorderedIO().getUnorderedDays();
+	}
+
+	/**
+	 * Returns the size of the segment of a day.
+	 *
+	 * @param day A String containing the day of the segment.
+	 * @return A long containing the number of bytes in the segment, or zero if the
+	 *         day has no segment.
+	 */
+	public long getSegmentLength(String day) {
+		return getSegment(directory, day).getFileLength();
+	}
+
+	/**
+	 * Returns the position in the segment of a day of the first attempt at or
+	 * after a byte position, which is used to continue from where a previous read
+	 * stopped.
+	 *
+	 * @param day          A String containing the day of the segment.
+	 * @param filePosition A long containing the byte position.
+	 * @return An integer containing the position of the attempt.
+	 */
+	public int getIndexAtFilePosition(String day, long filePosition) {
+		return getSegment(directory, day).getIndexAtFilePosition(filePosition);
+	}
+
+	/**
+	 * Maps the segment of a day into memory so that its attempts can be read.
+	 *
+	 * @param day A String containing the day of the segment.
+	 * @return A StatisticsRecords object giving access to the attempts in the
+	 *         segment, which is empty if the day has no segment or its attempts
+	 *         have been rolled up.
+	 */
+	public StatisticsRecords mapSegment(String day) {
+		// The segment is mapped before the rollups are checked, so that a segment
+		// removed by compaction in between is never missed
+		StatisticsRecords records = getSegment(directory, day).mapRecords();
+		if (getRollup(day).mapRollups().getCoveredLength() > 0) {
+			return new StatisticsRecords(ByteBuffer.allocate(0));
+		}
+		return records;
+	}
+
+	/**
+	 * Maps the rolled up attempts of a day into memory so that they can be read.
+	 *
+	 * @param day A String containing the day of the segment.
+	 * @return A StatisticsRollups object giving access to the rollups of the day,
+	 *         which is empty if the day has not been compacted.
+	 */
+	public StatisticsRollups mapRollups(String day) {
+		return getRollup(day).mapRollups();
+	}
+
+	/**
+	 * Finds the first attempt in the segment of a day that took place at or after a
+	 * time, using the index of the segment.
+	 *
+	 * @param day         A String containing the day of the segment.
+	 * @param records     The StatisticsRecords object of the segment.
+	 * @param epochSecond A long containing the time to search for.
+	 * @return An integer containing the position of the first such attempt, or the
+	 *         number of attempts in the segment if there are none.
+	 */
+	public int findFirstRecordAtOrAfter(String day, StatisticsRecords records, long epochSecond) {
+		return getIndex(day).findFirstRecordAtOrAfter(records, epochSecond);
+	}
+
+	/**
+	 * Returns the days that have a segment from one UTC day to another, by checking
+	 * only the days in between rather than the whole manifest. Later days whose
+	 * segments are not in time order are included too, as they can hold attempts
+	 * from these days.
+	 *
+	 * @param firstDay A LocalDate object containing the first UTC day to include.
+	 * @param lastDay  A LocalDate object containing the last UTC day to include.
+	 * @return An ArrayList object storing Strings, where each String contains a
+	 *         day with a segment, oldest first.
+	 */
+	public ArrayList<String> getSegmentDaysBetween(LocalDate firstDay, LocalDate lastDay) {
+		ArrayList<String> days = new ArrayList<>();
+		for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+			if (getSegmentPath(directory, day.toString()).toFile().exists()
+					|| getRollupPath(day.toString()).toFile().exists()) {
+				days.add(day.toString());
+			}
+		}
+		String last = lastDay.toString();
+		ArrayList<String> unorderedDays = getUnorderedDays();
+		unorderedDays.sort(null);
+		for (String day : unorderedDays) {
+			if (day.compareTo(last) > 0 && !days.contains(day)) {
+				days.add(day);
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Returns the UTC day that an attempt at an epoch second falls in.
+	 *
+	 * @param epochSecond A long containing the epoch second.
+	 * @return A LocalDate object containing the UTC day.
+	 */
+	public static LocalDate getUtcDay(long epochSecond) {
+		return LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+	}
+
+	/**
+	 * Returns the days before a UTC day whose segments can be compacted. The
+	 * newest segment is never compacted, as attempts are still added to it.
+	 *
+	 * @param firstKeptDay A LocalDate object containing the first UTC day whose
+	 *                     segment keeps its attempts.
+	 * @return An ArrayList object storing Strings, where each String contains a
+	 *         day such as "2021-10-18", oldest first.
+	 */
+	public ArrayList<String> getSegmentDaysToCompact(LocalDate firstKeptDay) {
+		ArrayList<String> days = getSegmentDays();
+		String firstKept = firstKeptDay.toString();
+		ArrayList<String> compactable = new ArrayList<>();
+		for (int i = 0; i < days.size() - 1 && days.get(i).compareTo(firstKept) < 0; i++) {
+			compactable.add(days.get(i));
+		}
+		return compactable;
+	}
+
+	/**
+	 * Rolls up the attempts of the segment of a day along with any rollups the day
+	 * already has, then removes the segment. A segment whose rollups were saved by
+	 * an earlier, interrupted compaction is only removed.
+	 *
+	 * @param day  A String containing the day of the segment.
+	 * @param zone A ZoneId object for the time zone whose days the attempts are
+	 *             rolled up into.
+	 * @return A boolean that is true if the segment was compacted.
+	 */
+	public boolean compactSegment(String day, ZoneId zone) {
+		Path segmentPath = getSegmentPath(directory, day);
+		if (!segmentPath.toFile().exists()) {
+			return false;
+		}
+		StatisticsRollups rollups = mapRollups(day);
+		if (rollups.getCoveredLength() == 0) {
+			long segmentLength = getSegmentLength(day);
+			StatisticsRecords records = getSegment(directory, day).mapRecords();
+			if (!getRollup(day).saveRollups(rollUp(records, rollups, zone), segmentLength)) {
+				return false;
+			}
+		}
+		try {
+			Files.deleteIfExists(segmentPath);
+			Files.deleteIfExists(Paths.get(directory, day + INDEX_EXTENSION));
+		} catch (IOException e) {
+			// The attempts are skipped from now on, and removal is tried again later
+		}
+		return true;
+	}
+
+	/**
+	 * Helper method to count the attempts of a segment and existing rollups by day
+	 * in the time zone, word, topic, offset and answer status, laid out as rollups
+	 * in time order.
+	 */
+	private ByteBuffer rollUp(StatisticsRecords records, StatisticsRollups rollups, ZoneId zone) {
+		// Keyed by the start of the local day, then by the other parts of the rollup
+		TreeMap<Long, TreeMap<Long, int[]>> counts = new TreeMap<>();
+		for (int i = 0; i < rollups.size(); i++) {
+			addToRollup(counts, rollups.getEpochSecond(i), rollups.getOffsetSeconds(i), rollups.getWordId(i),
+					rollups.getTopicId(i), rollups.getAnswerStatus(i), rollups.getCount(i), rollups.getScore(i));
+		}
+		// Attempts are mostly in time order, so the bounds of a day are only worked
+		// out again once an attempt falls outside them
+		long dayStart = 0;
+		long dayEnd = 0;
+		for (int i = 0; i < records.size(); i++) {
+			long epochSecond = records.getEpochSecond(i);
+			if (epochSecond < dayStart || epochSecond >= dayEnd) {
+				LocalDate date = Instant.ofEpochSecond(epochSecond).atZone(zone).toLocalDate();
+				dayStart = date.atStartOfDay(zone).toEpochSecond();
+				dayEnd = date.plusDays(1).atStartOfDay(zone).toEpochSecond();
+			}
+			addToRollup(counts, dayStart, records.getOffsetSeconds(i), records.getWordId(i), records.getTopicId(i),
+					records.getAnswerStatus(i), 1, records.getScore(i));
+		}
+
+		int rollupCount = 0;
+		for (TreeMap<Long, int[]> dayCounts : counts.values()) {
+			rollupCount += dayCounts.size();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(rollupCount * StatisticsRollupIO.RECORD_SIZE);
+		AnswerStatus[] answerStatuses = AnswerStatus.values();
+		for (Map.Entry<Long, TreeMap<Long, int[]>> dayEntry : counts.entrySet()) {
+			for (Map.Entry<Long, int[]> entry : dayEntry.getValue().entrySet()) {
+				long key = entry.getKey();
+				StatisticsRollupIO.putRollup(buffer, dayEntry.getKey(),
+						(byte) (key >> 8) * StatisticsLogIO.OFFSET_UNIT_SECONDS, (int) (key >>> 32),
+						(short) (key >> 16), answerStatuses[(int) (key & 0xFF)], entry.getValue()[0],
+						entry.getValue()[1]);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Helper method to add attempts to their rollup, unless they hold an answer
+	 * status that could not have been recorded.
+	 */
+	private void addToRollup(TreeMap<Long, TreeMap<Long, int[]>> counts, long dayStart, int offsetSeconds,
+			int wordId, int topicId, AnswerStatus answerStatus, int count, int score) {
+		if (answerStatus == null) {
+			return;
+		}
+		TreeMap<Long, int[]> dayCounts = counts.get(dayStart);
+		if (dayCounts == null) {
+			dayCounts = new TreeMap<>();
+			counts.put(dayStart, dayCounts);
+		}
+		long key = ((long) wordId << 32) | ((topicId & 0xFFFFL) << 16)
+				| ((offsetSeconds / StatisticsLogIO.OFFSET_UNIT_SECONDS & 0xFFL) << 8) | answerStatus.ordinal();
+		int[] total = dayCounts.get(key);
+		if (total == null) {
+			total = new int[2];
+			dayCounts.put(key, total);
+		}
+		total[0] += count;
+		total[1] += score;
+	}
+
+	/**
+	 * Checks the attempts added to the segments since they were last checked,
+	 * removing any attempt at the end of a segment that was only partly written
+	 * and setting aside any attempt that was not written in full. A segment that
+	 * does not begin with a segment header is set aside as a whole. A line of the
+	 * manifest that was only partly written is removed too. Attempts set aside are
+	 * copied byte for byte into the quarantine file of their day and removed from
+	 * the segment, which changes the positions of the attempts after them.
+	 *
+	 * @return An integer containing the number of attempts and segments set aside.
+	 */
+	public int recoverSegments() {
+		removeTornLastLine();
+		StatisticsRecoveryIO recoveryIO = new StatisticsRecoveryIO(Paths.get(directory, "verified").toString());
+		String verifiedDay = recoveryIO.getVerifiedDay();
+		int quarantinedCount = 0;
+		for (String day : getSegmentDays()) {
+			if (verifiedDay != null && day.compareTo(verifiedDay) < 0) {
+				continue;
+			}
+			StatisticsLogIO segment = getSegment(directory, day);
+			long firstPosition = 0;
+			if (day.equals(verifiedDay) && recoveryIO.getVerifiedLength() <= segment.getFileLength()) {
+				firstPosition = recoveryIO.getVerifiedLength();
+			}
+			quarantinedCount += recoverSegment(day, segment, firstPosition);
+		}
+		String lastDay = getLastSegmentDay();
+		if (lastDay != null) {
+			recoveryIO.saveVerifiedPosition(lastDay, getSegmentLength(lastDay));
+		}
+		return quarantinedCount;
+	}
+
+	/**
+	 * Helper method to check the attempts of a segment from a byte position
+	 * onwards, setting aside those that were not written in full.
+	 */
+	private int recoverSegment(String day, StatisticsLogIO segment, long firstPosition) {
+		// A segment covered by rollups is no longer read, and is removed by compaction
+		if (segment.getFileLength() == 0 || getRollup(day).mapRollups().getCoveredLength() > 0) {
+			return 0;
+		}
+		if (segment.getFileLength() >= StatisticsLogIO.HEADER_SIZE && segment.isTextFormat()) {
+			try {
+				quarantine(day, ByteBuffer.wrap(Files.readAllBytes(getSegmentPath(directory, day))));
+			} catch (IOException e) {
+				return 0;
+			}
+			deleteSegment(day);
+			return 1;
+		}
+		segment.removePartialRecord();
+
+		StatisticsRecords records = segment.mapRecords();
+		ArrayList<Integer> corrupt = new ArrayList<>();
+		for (int i = segment.getIndexAtFilePosition(firstPosition); i < records.size(); i++) {
+			if (!records.isIntact(i)) {
+				corrupt.add(i);
+			}
+		}
+		if (corrupt.isEmpty()) {
+			return 0;
+		}
+		int intactCount = records.size() - corrupt.size();
+		ByteBuffer contents = ByteBuffer
+				.allocate(StatisticsLogIO.HEADER_SIZE + intactCount * StatisticsLogIO.RECORD_SIZE);
+		ByteBuffer corruptBytes = ByteBuffer.allocate(corrupt.size() * StatisticsLogIO.RECORD_SIZE);
+		contents.put(records.getHeaderBytes());
+		int nextCorrupt = 0;
+		for (int i = 0; i < records.size(); i++) {
+			if (nextCorrupt < corrupt.size() && corrupt.get(nextCorrupt) == i) {
+				corruptBytes.put(records.getRecordBytes(i));
+				nextCorrupt++;
+			} else {
+				contents.put(records.getRecordBytes(i));
+			}
+		}
+		corruptBytes.flip();
+		contents.flip();
+		// The attempts are set aside before they are removed, so none are lost if
+		// the application stops in between
+		quarantine(day, corruptBytes);
+		if (!segment.replaceContents(contents)) {
+			return 0;
+		}
+		try {
+			Files.deleteIfExists(Paths.get(directory, day + INDEX_EXTENSION));
+		} catch (IOException e) {
+			// The index no longer matches the segment, so it is rebuilt when next read
+		}
+		return corrupt.size();
+	}
+
+	/**
+	 * Helper method to add bytes to the end of the quarantine file of a day.
+	 */
+	private void quarantine(String day, ByteBuffer bytes) {
+		try (FileOutputStream outputStream = new FileOutputStream(
+				Paths.get(directory, day + QUARANTINE_EXTENSION).toFile(), true)) {
+			outputStream.getChannel().write(bytes);
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+
+	/**
+	 * Helper method to remove the segment of a day and its index.
+	 */
+	private void deleteSegment(String day) {
+		try {
+			Files.deleteIfExists(getSegmentPath(directory, day));
+			Files.deleteIfExists(Paths.get(directory, day + INDEX_EXTENSION));
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+
+	/**
+	 * Removes all segments and the manifest.
+	 */
+	public void resetSegments() {
+		deleteDirectory(Paths.get(directory));
+	}
+
+	/**
+	 * Moves the attempts of a statistics file from an older version of the
+	 * application into segments, ahead of any attempts already in segments. The
+	 * segments are built in a temporary directory which takes the place of the
+	 * segments directory once complete. The old file is kept with the ".txt"
+	 * extension afterwards, so the conversion starts again from scratch if the
+	 * application stops part way through.
+	 *
+	 * @param legacyLogIO  The StatisticsLogIO object of the old statistics file,
+	 *                     holding one attempt per line as text.
+	 * @param dictionaryIO The StatisticsDictionaryIO object to number the words and
+	 *                     topics with.
+	 */
+	public void migrateFrom(StatisticsLogIO legacyLogIO, StatisticsDictionaryIO dictionaryIO) {
+		String temporaryDirectory = directory + ".tmp";
+		deleteDirectory(Paths.get(temporaryDirectory));
+		createDirectory(temporaryDirectory);
+		StatisticsSegmentsIO temporarySegmentsIO = new StatisticsSegmentsIO(temporaryDirectory);
+		try {
+			temporarySegmentsIO.copyTextRecords(legacyLogIO, dictionaryIO);
+			// Keep any attempts that were already recorded into segments
+			for (String day : getSegmentDays()) {
+				temporarySegmentsIO.copyRecords(mapSegment(day));
+			}
+			for (String day : getSegmentDays()) {
+				temporarySegmentsIO.copyRollups(day, mapRollups(day));
+			}
+			deleteDirectory(Paths.get(directory));
+			Files.move(Paths.get(temporaryDirectory), Paths.get(directory), StandardCopyOption.ATOMIC_MOVE);
+			Files.move(Paths.get(legacyLogIO.filepath), Paths.get(legacyLogIO.filepath + ".txt"),
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			// Keep the old file, so the conversion is tried again later
+		}
+	}
+
+	/**
+	 * Helper method to copy attempts stored as lines of text into segments. An
+	 * IOException is thrown if an attempt could not be written.
+	 */
+	private void copyTextRecords(StatisticsLogIO legacyLogIO, StatisticsDictionaryIO dictionaryIO)
+			throws IOException {
+		StatisticsTextParser parser = new StatisticsTextParser();
+		int[] parsedCount = new int[1];
+		parser.parseFile(legacyLogIO.filepath, (epochSecond, offsetSeconds, word, wordList, answerStatus,
+				scoreEarned) -> {
+			parsedCount[0]++;
+			bufferRecord(epochSecond, offsetSeconds, dictionaryIO.getWordId(word), dictionaryIO.getTopicId(wordList),
+					answerStatus, scoreEarned, SpellingAttempt.UNKNOWN_LATENCY);
+		});
+		if (flushBufferedRecords() < parsedCount[0]) {
+			throw new IOException("Not every attempt could be written");
+		}
+		if (!parser.getSkippedLines().isEmpty()) {
+			Files.write(Paths.get(directory, "legacy" + QUARANTINE_EXTENSION), parser.getSkippedLines(),
+					Charset.defaultCharset());
+		}
+	}
+
+	/**
+	 * Helper method to copy attempts already stored in binary into segments,
+	 * leaving out attempts with an answer status that could not have been
+	 * recorded. An IOException is thrown if an attempt could not be written.
+	 */
+	private void copyRecords(StatisticsRecords records) throws IOException {
+		int copiedCount = 0;
+		for (int i = 0; i < records.size(); i++) {
+			if (records.getAnswerStatus(i) == null) {
+				continue;
+			}
+			copiedCount++;
+			bufferRecord(records.getEpochSecond(i), records.getOffsetSeconds(i), records.getWordId(i),
+					records.getTopicId(i), records.getAnswerStatus(i), records.getScore(i),
+					records.getLatencyMillis(i));
+		}
+		if (flushBufferedRecords() < copiedCount) {
+			throw new IOException("Not every attempt could be written");
+		}
+	}
+
+	/**
+	 * Helper method to copy the rollups of a day, which count alongside any
+	 * attempts that the day has in the new segments, leaving out rollups with an
+	 * answer status that could not have been recorded. An IOException is thrown if
+	 * the rollups could not be saved.
+	 */
+	private void copyRollups(String day, StatisticsRollups rollups) throws IOException {
+		if (rollups.size() == 0) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(rollups.size() * StatisticsRollupIO.RECORD_SIZE);
+		for (int i = 0; i < rollups.size(); i++) {
+			if (rollups.getAnswerStatus(i) == null) {
+				continue;
+			}
+			StatisticsRollupIO.putRollup(buffer, rollups.getEpochSecond(i), rollups.getOffsetSeconds(i),
+					rollups.getWordId(i), rollups.getTopicId(i), rollups.getAnswerStatus(i), rollups.getCount(i),
+					rollups.getScore(i));
+		}
+		buffer.flip();
+		if (!addRollups(day, buffer)) {
+			throw new IOException("Rollups could not be saved");
+		}
+	}
+
+	/**
+	 * Saves rollups of a day that count alongside any attempts the day has in the
+	 * segments, adding the day to the manifest if it has no segment.
+	 *
+	 * @param day     A String containing the day of the rollups.
+	 * @param rollups A ByteBuffer object holding the rollups, laid out as in
+	 *                StatisticsRollupIO, without the header.
+	 * @return A boolean that is true if the rollups were saved.
+	 */
+	boolean addRollups(String day, ByteBuffer rollups) {
+		if (!getRollup(day).saveRollups(rollups, 0)) {
+			return false;
+		}
+		if (!getSegmentDays().contains(day)) {
+			ArrayList<String> days = getSegmentDays();
+			days.add(day);
+			days.sort(null);
+			overwriteLinesAtomically(days);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the rollup files of other statistics files whose counts have been
+	 * merged into these segments. See StatisticsMergedIO.
+	 *
+	 * @return An ArrayList object storing Strings, where each String contains the
+	 *         day and checksum of a rollup file.
+	 */
+	ArrayList<String> getMergedRollups() {
+		return getMergedIO().getMergedRollups();
+	}
+
+	/**
+	 * Saves the rollup files of other statistics files whose counts have been
+	 * merged into these segments.
+	 *
+	 * @param keys A Collection object storing Strings, where each String contains
+	 *             the day and checksum of a rollup file.
+	 */
+	void saveMergedRollups(Collection<String> keys) {
+		createDirectory(directory);
+		getMergedIO().saveMergedRollups(keys);
+	}
+
+	/**
+	 * Puts segments built in another directory in place of these segments. The
+	 * segments replaced are moved aside before the new ones are moved in, and are
+	 * only removed once the new ones are in place.
+	 *
+	 * @param replacement The StatisticsSegmentsIO object of the segments to put in
+	 *                    place, whose directory is moved.
+	 * @return A boolean that is true if the segments were replaced.
+	 */
+	boolean replaceWith(StatisticsSegmentsIO replacement) {
+		Path current = Paths.get(directory);
+		Path replaced = Paths.get(directory + ".old");
+		deleteDirectory(replaced);
+		try {
+			if (current.toFile().exists()) {
+				Files.move(current, replaced, StandardCopyOption.ATOMIC_MOVE);
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		try {
+			Files.move(Paths.get(replacement.directory), current, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			try {
+				Files.move(replaced, current, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException restoreException) {
+				// The segments replaced are left aside, to be put back by hand
+			}
+			return false;
+		}
+		deleteDirectory(replaced);
+		return true;
+	}
+
+	/**
+	 * Collects an attempt to be written to its segment along with the attempts
+	 * around it, writing out the collected attempts whenever the day changes or
+	 * there are too many. Call flushBufferedRecords once the last attempt has been
+	 * collected. Once collected attempts could not be written, such as while the
+	 * disk is full, no more are collected until flushBufferedRecords is called, so
+	 * that the attempts written always come before those that are not. An attempt
+	 * from before the latest attempt of the newest segment
+	 * or before its day, such as after the clock has gone back, is still recorded
+	 * at the time it took place, and the segment is listed as not in time order
+	 * before it is written.
+	 *
+	 * @param epochSecond   A long containing when the attempt took place.
+	 * @param offsetSeconds An integer containing the offset from UTC that the
+	 *                      attempt was recorded in.
+	 * @param wordId        An integer containing the number of the word.
+	 * @param topicId       An integer containing the number of the topic.
+	 * @param answerStatus  An AnswerStatus enumeration for the attempt.
+	 * @param scoreEarned   An integer representing how much earning the user got
+	 *                      from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds taken to
+	 *                      answer, or SpellingAttempt.UNKNOWN_LATENCY.
+	 * @return A boolean that is true if the attempt was collected, or false if
+	 *         attempts collected before it could not be written.
+	 */
+	public boolean bufferRecord(long epochSecond, int offsetSeconds, int wordId, int topicId,
+			AnswerStatus answerStatus, int scoreEarned, int latencyMillis) {
+		if (isWriteFailed) {
+			return false;
+		}
+		if (batch == null) {
+			batch = ByteBuffer.allocate(BATCH_SIZE * StatisticsLogIO.RECORD_SIZE);
+		}
+		String day = getSegmentDay(epochSecond);
+		if (batchDay == null || day.compareTo(batchDay) > 0 || !batch.hasRemaining()) {
+			writeBufferedRecords();
+			if (isWriteFailed) {
+				return false;
+			}
+			batchDay = getDayToAppendTo(day);
+			segmentEpochSecond = getLatestEpochSecond(batchDay);
+			batchEpochSecond = Math.max(segmentEpochSecond, LocalDate.parse(batchDay).toEpochDay() * SECONDS_PER_DAY);
+			batchUnordered = getUnorderedIO().isUnordered(batchDay);
+		}
+		if (epochSecond < batchEpochSecond && !batchUnordered) {
+			getUnorderedIO().addUnorderedDay(batchDay);
+			batchUnordered = true;
+		}
+		batchEpochSecond = Math.max(batchEpochSecond, epochSecond);
+		StatisticsLogIO.putRecord(batch, epochSecond, offsetSeconds, wordId, topicId, answerStatus, scoreEarned,
+				latencyMillis);
+		return true;
+	}
+
+	/**
+	 * Writes out the attempts still collected, and starts collecting again.
+	 *
+	 * @return An integer containing the number of attempts collected since the
+	 *         last call that were written. These are the first attempts
+	 *         collected, and any after them were not written.
+	 */
+	public int flushBufferedRecords() {
+		writeBufferedRecords();
+		int written = writtenCount;
+		writtenCount = 0;
+		isWriteFailed = false;
+		return written;
+	}
+
+	/**
+	 * Helper method to write out the attempts collected for a segment in one
+	 * write, and add the entries for those written to the index of the segment.
+	 */
+	private void writeBufferedRecords() {
+		if (batch != null && batchDay != null && batch.position() > 0) {
+			batch.flip();
+			StatisticsLogIO segment = getSegment(directory, batchDay);
+			int firstIndex = segment.getRecordCount();
+			segment.appendRecords(batch);
+			// A write that failed part way can leave some of the attempts behind it
+			int collected = batch.limit() / StatisticsLogIO.RECORD_SIZE;
+			int written = Math.max(0, Math.min(collected, segment.getRecordCount() - firstIndex));
+			writtenCount += written;
+			if (written < collected) {
+				isWriteFailed = true;
+			}
+			StatisticsIndexIO index = getIndex(batchDay);
+			long latest = segmentEpochSecond;
+			for (int i = 0; i < written; i++) {
+				latest = Math.max(latest, batch.getLong(i * StatisticsLogIO.RECORD_SIZE));
+				if ((firstIndex + i) % StatisticsIndexIO.INTERVAL == 0) {
+					index.addRecord(firstIndex + i, latest);
+				}
+			}
+		}
+		if (batch != null) {
+			batch.clear();
+		}
+		// The segment is looked up again for the next attempt, in case it has been
+		// removed in the meantime
+		batchDay = null;
+	}
+
+	private static StatisticsLogIO getSegment(String directory, String day) {
+		return new StatisticsLogIO(getSegmentPath(directory, day).toString());
+	}
+
+	private StatisticsMergedIO getMergedIO() {
+		return new StatisticsMergedIO(Paths.get(directory, "merged").toString());
+	}
+
+	private StatisticsUnorderedIO getUnorderedIO() {
+		return new StatisticsUnorderedIO(Paths.get(directory, "unordered").toString());
+	}
+
+	private StatisticsIndexIO getIndex(String day) {
+		return new StatisticsIndexIO(Paths.get(directory, day + INDEX_EXTENSION).toString());
+	}
+
+	private StatisticsRollupIO getRollup(String day) {
+		return new StatisticsRollupIO(getRollupPath(day).toString());
+	}
+
+	private Path getRollupPath(String day) {
+		return Paths.get(directory, day + ROLLUP_EXTENSION);
+	}
+
+	private static Path getSegmentPath(String directory, String day) {
+		return Paths.get(directory, day + SEGMENT_EXTENSION);
+	}
+
+	private static void createDirectory(String directory) {
+		try {
+			Files.createDirectories(Paths.get(directory));
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+
+	private static void deleteDirectory(Path directory) {
+		if (!directory.toFile().exists()) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		} catch (IOException e) {
+			// Keep empty
+		}
+	}
+}
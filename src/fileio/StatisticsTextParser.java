@@ -0,0 +1,472 @@
+package fileio;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+
+import enums.AnswerStatus;
+
+/**
+ * Reads spelling attempts stored one per line as text, the format used by older
+ * versions of the application, such as
+ * "2021-10-18T13:05:42.123+13:00 whero Colours MASTERED 150".
+ *
+ * The file is mapped into memory a window at a time, and the end of each line
+ * is found eight bytes at a time by DelimiterScanner. Lines that are only
+ * printable ASCII, which are most of them, have their fields found the same way
+ * and are copied into a reused buffer of characters as they are. Only lines
+ * with other characters are decoded and split one character at a time. Files in
+ * a charset that does not keep ASCII characters as they are, such as UTF-16,
+ * are decoded whole instead.
+ *
+ * Lines are split without creating Strings, and the timestamp is read directly
+ * into an epoch second and offset, so that reading a file creates a fixed
+ * number of objects however long it is. Each attempt is passed to a
+ * StatisticsRecordVisitor. Lines that are not valid attempts, such as a last
+ * line left half-written when the application stopped, are skipped and kept so
+ * that they can be set aside.
+ *
+ * A StatisticsTextParser object is not safe to share between threads.
+ */
+public class StatisticsTextParser {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+	private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+	private static final AnswerStatus[] ANSWER_STATUSES = AnswerStatus.values();
+	private static final char[][] ANSWER_STATUS_NAMES = getAnswerStatusNames();
+
+	private ByteBuffer bytes;
+	private CharBuffer chars;
+	private CharsetDecoder decoder;
+	private boolean isAsciiCompatible;
+	private CharSlice word;
+	private CharSlice wordList;
+	private int[] fieldStarts;
+	private int[] fieldEnds;
+	private long epochSecond;
+	private int offsetSeconds;
+	private ArrayList<String> skippedLines;
+
+	/**
+	 * Creates a StatisticsTextParser object, reading files in the default charset
+	 * that they were written in.
+	 */
+	public StatisticsTextParser() {
+		bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		chars = CharBuffer.allocate(BUFFER_SIZE);
+		decoder = Charset.defaultCharset().newDecoder();
+		decoder.onMalformedInput(CodingErrorAction.REPLACE);
+		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		isAsciiCompatible = DelimiterScanner.isAsciiCompatible(decoder.charset());
+		word = new CharSlice();
+		wordList = new CharSlice();
+		fieldStarts = new int[5];
+		fieldEnds = new int[5];
+		skippedLines = new ArrayList<>();
+	}
+
+	/**
+	 * Reads every attempt in a file, in order, skipping lines that are not valid
+	 * attempts.
+	 *
+	 * @param filepath A String containing the filepath of the file to read.
+	 * @param visitor  The StatisticsRecordVisitor object to pass each attempt to.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public void parseFile(String filepath, StatisticsRecordVisitor visitor) throws IOException {
+		skippedLines.clear();
+		if (!isAsciiCompatible) {
+			decodeFile(filepath, visitor);
+			return;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+			FileChannel channel = file.getChannel();
+			long fileLength = channel.size();
+			long windowStart = 0;
+			while (windowStart < fileLength) {
+				int windowLength = (int) Math.min(WINDOW_SIZE, fileLength - windowStart);
+				ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+				boolean isLastWindow = windowStart + windowLength == fileLength;
+				int lineStart = parseWindow(window, isLastWindow, visitor);
+				if (lineStart == 0 && !isLastWindow) {
+					throw new IllegalArgumentException("Line is longer than " + WINDOW_SIZE + " bytes");
+				}
+				windowStart += isLastWindow ? windowLength : lineStart;
+			}
+		}
+	}
+
+	/**
+	 * Helper method to read every whole line in a window of the file, along with
+	 * the rest of the window if it reaches the end of the file.
+	 *
+	 * @return An integer containing the position in the window after the last line
+	 *         read.
+	 */
+	private int parseWindow(ByteBuffer window, boolean isLastWindow, StatisticsRecordVisitor visitor) {
+		int limit = window.limit();
+		int lineStart = 0;
+		while (lineStart < limit) {
+			int lineEnd = DelimiterScanner.indexOf(window, lineStart, limit, (byte) '\n');
+			if (lineEnd < 0) {
+				if (!isLastWindow) {
+					break;
+				}
+				lineEnd = limit;
+			}
+			parseBytes(window, lineStart, lineEnd, visitor);
+			lineStart = lineEnd + 1;
+		}
+		return Math.min(lineStart, limit);
+	}
+
+	/**
+	 * Helper method to read a single attempt from the bytes of one line, copying
+	 * them into the buffer of characters as they are if they are all printable
+	 * ASCII.
+	 */
+	private void parseBytes(ByteBuffer window, int start, int end, StatisticsRecordVisitor visitor) {
+		// Lines written on Windows end with a carriage return, which is whitespace
+		if (end > start && window.get(end - 1) == '\r') {
+			end--;
+		}
+		char[] array = chars.array();
+		int length = end - start;
+		if (length > array.length) {
+			throw new IllegalArgumentException("Line is longer than " + BUFFER_SIZE + " characters");
+		}
+		if (DelimiterScanner.isPrintableAscii(window, start, end)) {
+			byte[] lineBytes = bytes.array();
+			window.position(start);
+			window.get(lineBytes, 0, length);
+			for (int i = 0; i < length; i++) {
+				array[i] = (char) lineBytes[i];
+			}
+			try {
+				parseFields(array, splitFields(window, start, end), visitor);
+			} catch (IllegalArgumentException e) {
+				skippedLines.add(new String(array, 0, length));
+			}
+			return;
+		}
+		window.limit(end).position(start);
+		chars.clear();
+		decoder.reset();
+		decoder.decode(window, chars, true);
+		decoder.flush(chars);
+		window.limit(window.capacity());
+		parseLineOrSkip(array, 0, chars.position(), visitor);
+	}
+
+	/**
+	 * Helper method to find the fields of a line of printable ASCII at its spaces,
+	 * storing their positions from the start of the line.
+	 *
+	 * @return An integer containing the number of fields.
+	 */
+	private int splitFields(ByteBuffer window, int start, int end) {
+		int fieldCount = 0;
+		int i = start;
+		while (i < end) {
+			while (i < end && window.get(i) == ' ') {
+				i++;
+			}
+			if (i == end) {
+				break;
+			}
+			if (fieldCount == fieldStarts.length) {
+				throw new IllegalArgumentException("Too many fields in line");
+			}
+			int fieldEnd = DelimiterScanner.indexOf(window, i, end, (byte) ' ');
+			if (fieldEnd < 0) {
+				fieldEnd = end;
+			}
+			fieldStarts[fieldCount] = i - start;
+			fieldEnds[fieldCount] = fieldEnd - start;
+			fieldCount++;
+			i = fieldEnd;
+		}
+		return fieldCount;
+	}
+
+	/**
+	 * Helper method to read every attempt in a file by decoding it whole, for
+	 * charsets whose bytes cannot be split at line breaks before decoding.
+	 */
+	private void decodeFile(String filepath, StatisticsRecordVisitor visitor) throws IOException {
+		decoder.reset();
+		bytes.clear();
+		chars.clear();
+		try (FileInputStream inputStream = new FileInputStream(filepath)) {
+			FileChannel channel = inputStream.getChannel();
+			boolean isEndOfFile = false;
+			while (!isEndOfFile) {
+				isEndOfFile = channel.read(bytes) < 0;
+				bytes.flip();
+				decoder.decode(bytes, chars, isEndOfFile);
+				bytes.compact();
+				if (isEndOfFile) {
+					decoder.flush(chars);
+				}
+				chars.flip();
+				parseCompleteLines(isEndOfFile, visitor);
+				chars.compact();
+			}
+		}
+	}
+
+	/**
+	 * Helper method to read every whole line in the character buffer, leaving any
+	 * part of a line at the end for the next read.
+	 */
+	private void parseCompleteLines(boolean isEndOfFile, StatisticsRecordVisitor visitor) {
+		char[] array = chars.array();
+		int lineStart = chars.position();
+		int limit = chars.limit();
+		for (int i = lineStart; i < limit; i++) {
+			if (array[i] == '\n') {
+				parseLineOrSkip(array, lineStart, i, visitor);
+				lineStart = i + 1;
+			}
+		}
+		if (isEndOfFile) {
+			parseLineOrSkip(array, lineStart, limit, visitor);
+			lineStart = limit;
+		} else if (lineStart == chars.position() && limit == chars.capacity()) {
+			throw new IllegalArgumentException("Line is longer than " + BUFFER_SIZE + " characters");
+		}
+		chars.position(lineStart);
+	}
+
+	/**
+	 * Helper method to read a single attempt from a line, keeping the line aside
+	 * if it is not a valid attempt.
+	 */
+	private void parseLineOrSkip(char[] array, int start, int end, StatisticsRecordVisitor visitor) {
+		try {
+			parseLine(array, start, end, visitor);
+		} catch (IllegalArgumentException e) {
+			skippedLines.add(new String(array, start, end - start));
+		}
+	}
+
+	/**
+	 * Returns the lines skipped by the last file read because they were not valid
+	 * attempts.
+	 */
+	public ArrayList<String> getSkippedLines() {
+		return skippedLines;
+	}
+
+	/**
+	 * Reads a single attempt from part of a char array, which holds one line
+	 * without its line break. Blank lines are skipped.
+	 *
+	 * @param array   A char array holding the line.
+	 * @param start   An integer containing the position of the line in the array.
+	 * @param end     An integer containing the position after the line.
+	 * @param visitor The StatisticsRecordVisitor object to pass the attempt to.
+	 * @return A boolean that is true if the line held an attempt, or false if it
+	 *         was blank.
+	 * @throws IllegalArgumentException If the line is not a valid attempt.
+	 */
+	public boolean parseLine(char[] array, int start, int end, StatisticsRecordVisitor visitor) {
+		int fieldCount = 0;
+		int i = start;
+		while (i < end) {
+			while (i < end && isWhitespace(array[i])) {
+				i++;
+			}
+			if (i == end) {
+				break;
+			}
+			if (fieldCount == fieldStarts.length) {
+				throw new IllegalArgumentException("Too many fields in line");
+			}
+			fieldStarts[fieldCount] = i;
+			while (i < end && !isWhitespace(array[i])) {
+				i++;
+			}
+			fieldEnds[fieldCount] = i;
+			fieldCount++;
+		}
+		return parseFields(array, fieldCount, visitor);
+	}
+
+	/**
+	 * Helper method to read a single attempt from the fields of a line, whose
+	 * positions have been found.
+	 */
+	private boolean parseFields(char[] array, int fieldCount, StatisticsRecordVisitor visitor) {
+		if (fieldCount == 0) {
+			return false;
+		}
+		if (fieldCount != fieldStarts.length) {
+			throw new IllegalArgumentException("Expected 5 fields but found " + fieldCount);
+		}
+
+		parseDateTime(array, fieldStarts[0], fieldEnds[0]);
+		word.set(array, fieldStarts[1], fieldEnds[1]);
+		wordList.set(array, fieldStarts[2], fieldEnds[2]);
+		AnswerStatus answerStatus = parseAnswerStatus(array, fieldStarts[3], fieldEnds[3]);
+		int score = parseInt(array, fieldStarts[4], fieldEnds[4]);
+		visitor.visitRecord(epochSecond, offsetSeconds, word, wordList, answerStatus, score);
+		return true;
+	}
+
+	/**
+	 * Helper method to determine whether a character is whitespace, as
+	 * Character.isWhitespace does, without looking up ASCII characters.
+	 */
+	private static boolean isWhitespace(char c) {
+		if (c > ' ') {
+			return c >= 0x80 && Character.isWhitespace(c);
+		}
+		return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1C && c <= 0x1F);
+	}
+
+	/**
+	 * Reads an ISO-8601 date and time with offset, such as
+	 * "2021-10-18T13:05:42.123456+13:00" or "2021-10-18T00:05:42Z", into the epoch
+	 * second and offset fields. Seconds and fractions of a second are optional,
+	 * and fractions of a second are ignored.
+	 */
+	private void parseDateTime(char[] array, int start, int end) {
+		if (end - start < 17 || array[start + 4] != '-' || array[start + 7] != '-' || array[start + 10] != 'T'
+				|| array[start + 13] != ':') {
+			throw new IllegalArgumentException("Invalid date and time");
+		}
+		int year = parseDigits(array, start, 4);
+		int month = parseDigits(array, start + 5, 2);
+		int dayOfMonth = parseDigits(array, start + 8, 2);
+		int hour = parseDigits(array, start + 11, 2);
+		int minute = parseDigits(array, start + 14, 2);
+		int second = 0;
+		int i = start + 16;
+		if (i < end && array[i] == ':') {
+			second = parseDigits(array, i + 1, 2);
+			i += 3;
+			if (i < end && array[i] == '.') {
+				i++;
+				while (i < end && array[i] >= '0' && array[i] <= '9') {
+					i++;
+				}
+			}
+		}
+		if (month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > getLengthOfMonth(year, month) || hour > 23
+				|| minute > 59 || second > 59) {
+			throw new IllegalArgumentException("Invalid date and time");
+		}
+		offsetSeconds = parseOffset(array, i, end);
+		long epochDay = getEpochDay(year, month, dayOfMonth);
+		epochSecond = epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+	}
+
+	/**
+	 * Reads an offset such as "Z", "+13:00" or "-05:30:15" into seconds.
+	 */
+	private int parseOffset(char[] array, int start, int end) {
+		if (end - start == 1 && array[start] == 'Z') {
+			return 0;
+		}
+		if ((end - start != 6 && end - start != 9) || (array[start] != '+' && array[start] != '-')
+				|| array[start + 3] != ':') {
+			throw new IllegalArgumentException("Invalid offset");
+		}
+		int seconds = parseDigits(array, start + 1, 2) * 3600 + parseDigits(array, start + 4, 2) * 60;
+		if (end - start == 9) {
+			if (array[start + 6] != ':') {
+				throw new IllegalArgumentException("Invalid offset");
+			}
+			seconds += parseDigits(array, start + 7, 2);
+		}
+		if (seconds > 18 * 3600) {
+			throw new IllegalArgumentException("Invalid offset");
+		}
+		return array[start] == '-' ? -seconds : seconds;
+	}
+
+	/**
+	 * Returns the number of days from 1970-01-01 to a date in the proleptic
+	 * Gregorian calendar.
+	 */
+	private static long getEpochDay(int year, int month, int dayOfMonth) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static int getLengthOfMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			boolean isLeapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			return isLeapYear ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static int parseDigits(char[] array, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = array[i];
+			if (c < '0' || c > '9') {
+				throw new IllegalArgumentException("Expected a digit");
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int parseInt(char[] array, int start, int end) {
+		boolean isNegative = array[start] == '-';
+		int i = isNegative ? start + 1 : start;
+		if (i == end || end - i > 9) {
+			throw new IllegalArgumentException("Invalid score");
+		}
+		int value = parseDigits(array, i, end - i);
+		return isNegative ? -value : value;
+	}
+
+	private static AnswerStatus parseAnswerStatus(char[] array, int start, int end) {
+		for (int i = 0; i < ANSWER_STATUS_NAMES.length; i++) {
+			char[] name = ANSWER_STATUS_NAMES[i];
+			if (name.length == end - start && regionMatches(array, start, name)) {
+				return ANSWER_STATUSES[i];
+			}
+		}
+		throw new IllegalArgumentException("Unknown answer status");
+	}
+
+	private static boolean regionMatches(char[] array, int start, char[] name) {
+		for (int i = 0; i < name.length; i++) {
+			if (array[start + i] != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static char[][] getAnswerStatusNames() {
+		char[][] names = new char[ANSWER_STATUSES.length][];
+		for (int i = 0; i < ANSWER_STATUSES.length; i++) {
+			names[i] = ANSWER_STATUSES[i].name().toCharArray();
+		}
+		return names;
+	}
+}
@@ -0,0 +1,68 @@
+package fileio;
+
+import java.util.ArrayList;
+
+/**
+ * Reads from and writes to the list of segments of spelling attempts that are
+ * not in time order. Attempts are recorded at the time they took place, so if
+ * the clock goes back, the newest segment can gain an attempt from before the
+ * attempts already in it, or from before its own day. Such a segment is listed
+ * here before the attempt is written, so that it is read in full by queries
+ * rather than up to the first attempt after their window, and so that queries
+ * of earlier days read it too.
+ *
+ * The file holds one day per line, such as "2021-10-18", in the order the
+ * segments were listed.
+ */
+public class StatisticsUnorderedIO extends FileIO {
+
+	/**
+	 * Creates a StatisticsUnorderedIO object with the filepath to the file to
+	 * modify.
+	 *
+	 * @param filepath A String object containing the filepath to the file that the
+	 *                 object deals with.
+	 */
+	public StatisticsUnorderedIO(String filepath) {
+		super(filepath);
+	}
+
+	/**
+	 * Returns the days whose segments are not in time order.
+	 *
+	 * @return An ArrayList object storing Strings, where each String contains a
+	 *         day such as "2021-10-18".
+	 */
+	public ArrayList<String> getUnorderedDays() {
+		ArrayList<String> days = new ArrayList<>();
+		for (String line : readLines()) {
+			if (!line.isEmpty()) {
+				days.add(line);
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Determines whether the segment of a day is not in time order.
+	 *
+	 * @param day A String containing the day of the segment.
+	 * @return A boolean that is true if the segment is listed.
+	 */
+	public boolean isUnordered(String day) {
+		return getUnorderedDays().contains(day);
+	}
+
+	/**
+	 * Lists the segment of a day as not in time order, unless it is already
+	 * listed. A line left half-written by an earlier stop is removed first.
+	 *
+	 * @param day A String containing the day of the segment.
+	 */
+	public void addUnorderedDay(String day) {
+		if (!isUnordered(day)) {
+			removeTornLastLine();
+			appendLine(day);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package fileio;
+
+/**
+ * Maps Strings to numbers, where a number can be looked up from any
+ * CharSequence with the same characters without creating a String.
+ */
+class StringIdTable {
+	private String[] keys;
+	private int[] ids;
+	private int size;
+
+	StringIdTable() {
+		keys = new String[64];
+		ids = new int[64];
+	}
+
+	/**
+	 * Returns the number of the String with the same characters, or -1 if there is
+	 * none.
+	 */
+	int get(CharSequence key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if (contentEquals(keys[slot], key)) {
+				return ids[slot];
+			}
+		}
+		return -1;
+	}
+
+	void put(String key, int id) {
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+		}
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != null && !keys[slot].equals(key)) {
+			slot = (slot + 1) & mask;
+		}
+		if (keys[slot] == null) {
+			size++;
+		}
+		keys[slot] = key;
+		ids[slot] = id;
+	}
+
+	private void grow() {
+		String[] oldKeys = keys;
+		int[] oldIds = ids;
+		keys = new String[oldKeys.length * 2];
+		ids = new int[oldIds.length * 2];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				put(oldKeys[i], oldIds[i]);
+			}
+		}
+	}
+
+	/**
+	 * Hashes the characters the same way as String.hashCode, spread so that
+	 * similar words do not share slots.
+	 */
+	private static int hash(CharSequence key) {
+		int hash = 0;
+		for (int i = 0; i < key.length(); i++) {
+			hash = 31 * hash + key.charAt(i);
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean contentEquals(String string, CharSequence sequence) {
+		if (string.length() != sequence.length()) {
+			return false;
+		}
+		for (int i = 0; i < string.length(); i++) {
+			if (string.charAt(i) != sequence.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,375 @@
+package fileio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import enums.AnswerStatus;
+import statistics.FrequentWords;
+import statistics.StatisticsAggregates;
+import statistics.VocabularyStatistics;
+
+/**
+ * Keeps the vocabulary statistics of each topic in memory once built, so that
+ * showing a topic again does not read the statistics file again. Topics are
+ * built from the running totals in their mapped file, so only the topics shown
+ * are held on the heap.
+ *
+ * Cached statistics are kept for the position in the segments that they have
+ * counted up to, being the day of the newest segment and its length. Since
+ * segments are only appended to, this position only changes when attempts are
+ * recorded. When it has moved on, only the attempts added since are read, and
+ * only the topics those attempts belong to are updated. If the segments no
+ * longer continue from it, such as after a reset, every topic is built again.
+ *
+ * The words failed or faulted most across every topic are kept up to date in
+ * the same way, by counting the failed and faulted attempts added since, so
+ * that they can be shown without going through the totals of every word.
+ *
+ * Everything cached is held in a snapshot that is never changed once shared.
+ * Updating the cache makes a new snapshot, copying only the topics that change,
+ * and puts it in place of the old one in one step, which is copy-on-write. The
+ * thread recording attempts makes the new snapshot as it adds them to the
+ * totals, so a snapshot that matches the sequence number of the totals is up to
+ * date, and is read without locking. Only a snapshot that has fallen behind,
+ * such as on first use, is brought up to date while holding the locks.
+ *
+ * There is one VocabularyStatisticsCache for each statistics file.
+ */
+public class VocabularyStatisticsCache {
+	private static final HashMap<String, VocabularyStatisticsCache> CACHES = new HashMap<>();
+	// Enough to count every word of the built-in topics exactly
+	private static final int TROUBLE_WORDS_CAPACITY = 1024;
+	// Times a reader tries again while the totals are being updated
+	private static final int OPTIMISTIC_READ_ATTEMPTS = 64;
+
+	private AtomicReference<Snapshot> snapshot;
+	private AtomicLong hitCount;
+	private AtomicLong missCount;
+	private AtomicLong patchCount;
+	private AtomicLong reloadCount;
+
+	private VocabularyStatisticsCache() {
+		snapshot = new AtomicReference<>();
+		hitCount = new AtomicLong();
+		missCount = new AtomicLong();
+		patchCount = new AtomicLong();
+		reloadCount = new AtomicLong();
+	}
+
+	/**
+	 * Returns the VocabularyStatisticsCache of a statistics file.
+	 *
+	 * @param filepath A String object containing the filepath to the statistics
+	 *                 file.
+	 * @return The VocabularyStatisticsCache object for the file.
+	 */
+	public static synchronized VocabularyStatisticsCache getInstance(String filepath) {
+		VocabularyStatisticsCache cache = CACHES.get(filepath);
+		if (cache == null) {
+			cache = new VocabularyStatisticsCache();
+			CACHES.put(filepath, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the vocabulary statistics of a topic, bringing the cache up to date
+	 * with the statistics file first if it has fallen behind. The result is shared
+	 * with other callers and so should not be changed.
+	 *
+	 * @param wordList     A String containing the name of the topic.
+	 * @param statisticsIO The StatisticsIO object of the statistics file.
+	 * @return The VocabularyStatistics object of the topic.
+	 */
+	VocabularyStatistics getVocabularyStatistics(String wordList, StatisticsIO statisticsIO) {
+		StatisticsAggregatesIO aggregatesIO = statisticsIO.getAggregatesIO();
+		for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+			Snapshot current = snapshot.get();
+			if (current == null) {
+				break;
+			}
+			if (current.sequence == aggregatesIO.getSequence()) {
+				VocabularyStatistics vocabularyStatistics = current.topics.get(wordList);
+				if (vocabularyStatistics != null) {
+					hitCount.incrementAndGet();
+					return vocabularyStatistics;
+				}
+				// Built from the totals at the sequence number of the snapshot, or not at all
+				vocabularyStatistics = aggregatesIO.getVocabularyStatistics(wordList, current.sequence);
+				if (vocabularyStatistics != null) {
+					missCount.incrementAndGet();
+					snapshot.compareAndSet(current, current.withTopic(wordList, vocabularyStatistics));
+					return vocabularyStatistics;
+				}
+			}
+			Thread.onSpinWait();
+		}
+		return getVocabularyStatisticsLocked(wordList, statisticsIO, aggregatesIO);
+	}
+
+	/**
+	 * Helper method to return the vocabulary statistics of a topic while holding
+	 * the locks, bringing the cache up to date first.
+	 */
+	private synchronized VocabularyStatistics getVocabularyStatisticsLocked(String wordList,
+			StatisticsIO statisticsIO, StatisticsAggregatesIO aggregatesIO) {
+		synchronized (aggregatesIO) {
+			Snapshot current = bringUpToDate(statisticsIO, aggregatesIO);
+			VocabularyStatistics vocabularyStatistics = current.topics.get(wordList);
+			if (vocabularyStatistics != null) {
+				hitCount.incrementAndGet();
+				return vocabularyStatistics;
+			}
+			missCount.incrementAndGet();
+			vocabularyStatistics = aggregatesIO.getVocabularyStatistics(wordList);
+			snapshot.set(current.withTopic(wordList, vocabularyStatistics));
+			return vocabularyStatistics;
+		}
+	}
+
+	/**
+	 * Returns the words failed or faulted most across every topic, bringing the
+	 * cache up to date with the statistics file first if it has fallen behind.
+	 *
+	 * @param k            An integer containing the most words to return.
+	 * @param statisticsIO The StatisticsIO object of the statistics file.
+	 * @return An ArrayList object storing a FrequentWords.Entry for each word,
+	 *         most failed first.
+	 */
+	ArrayList<FrequentWords.Entry> getMostFailedWords(int k, StatisticsIO statisticsIO) {
+		StatisticsAggregatesIO aggregatesIO = statisticsIO.getAggregatesIO();
+		for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+			Snapshot current = snapshot.get();
+			if (current == null) {
+				break;
+			}
+			if (current.sequence == aggregatesIO.getSequence()) {
+				return current.troubleWords.getTop(k);
+			}
+			Thread.onSpinWait();
+		}
+		return getMostFailedWordsLocked(k, statisticsIO, aggregatesIO);
+	}
+
+	/**
+	 * Helper method to return the most failed words while holding the locks,
+	 * bringing the cache up to date first.
+	 */
+	private synchronized ArrayList<FrequentWords.Entry> getMostFailedWordsLocked(int k, StatisticsIO statisticsIO,
+			StatisticsAggregatesIO aggregatesIO) {
+		synchronized (aggregatesIO) {
+			return bringUpToDate(statisticsIO, aggregatesIO).troubleWords.getTop(k);
+		}
+	}
+
+	/**
+	 * Updates the cache with attempts that have just been added to the running
+	 * totals, if it was up to date with the totals before they were added, so
+	 * that readers find it up to date without locking. Call this while holding
+	 * the lock on the StatisticsAggregatesIO object.
+	 *
+	 * @param previousSequence An integer containing the sequence number of the
+	 *                         totals before the attempts were added.
+	 * @param added            The StatisticsAggregates object counting the
+	 *                         attempts.
+	 * @param aggregatesIO     The StatisticsAggregatesIO object holding the
+	 *                         totals.
+	 */
+	void publishAdded(int previousSequence, StatisticsAggregates added, StatisticsAggregatesIO aggregatesIO) {
+		int sequence = aggregatesIO.getSequence();
+		while (true) {
+			Snapshot current = snapshot.get();
+			if (current == null || current.sequence != previousSequence) {
+				return;
+			}
+			if (snapshot.compareAndSet(current, current.withAdded(added, aggregatesIO, sequence))) {
+				patchCount.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Helper method to bring the running totals up to date with the segments, and
+	 * then load the cache from them if nothing is cached, or count the attempts
+	 * recorded since the cache was last brought up to date. Call this while
+	 * holding the lock on the StatisticsAggregatesIO object, so that the totals
+	 * stay at the position the cache is brought up to.
+	 *
+	 * @return The Snapshot object that is up to date.
+	 */
+	private Snapshot bringUpToDate(StatisticsIO statisticsIO, StatisticsAggregatesIO aggregatesIO) {
+		statisticsIO.bringAggregatesUpToDate();
+		int sequence = aggregatesIO.getSequence();
+		String logSegment = aggregatesIO.getLogSegment();
+		long logLength = aggregatesIO.getLogLength();
+		Snapshot current = snapshot.get();
+		Snapshot next;
+		if (current == null) {
+			next = reload(aggregatesIO);
+		} else if (current.sequence == sequence) {
+			return current;
+		} else if (current.isBefore(logSegment, logLength)
+				&& statisticsIO.canCatchUp(current.countedDay, current.countedLength)) {
+			patchCount.incrementAndGet();
+			StatisticsAggregates added = new StatisticsAggregates();
+			statisticsIO.addAttemptsAfter(current.countedDay, current.countedLength, added);
+			next = current.withAdded(added, aggregatesIO, sequence);
+		} else {
+			next = reload(aggregatesIO);
+		}
+		snapshot.set(next);
+		return next;
+	}
+
+	/**
+	 * Drops everything cached, so that the next request loads the statistics file
+	 * again.
+	 */
+	public void invalidate() {
+		snapshot.set(null);
+	}
+
+	/**
+	 * Returns how many requests for the statistics of a topic found them already
+	 * built. Requests for the most failed words are not counted.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns how many requests for the statistics of a topic had to build them,
+	 * as they had not been built yet.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns how many times the cache was updated with attempts recorded since it
+	 * was last brought up to date.
+	 */
+	public long getPatchCount() {
+		return patchCount.get();
+	}
+
+	/**
+	 * Returns how many requests loaded everything from the statistics file again.
+	 */
+	public long getReloadCount() {
+		return reloadCount.get();
+	}
+
+	/**
+	 * Helper method to make a snapshot with no topics built, counting the most
+	 * failed words again from the running totals.
+	 */
+	private Snapshot reload(StatisticsAggregatesIO aggregatesIO) {
+		reloadCount.incrementAndGet();
+		FrequentWords troubleWords = new FrequentWords(TROUBLE_WORDS_CAPACITY);
+		aggregatesIO.addTroubleWords(troubleWords);
+		return new Snapshot(aggregatesIO.getSequence(), aggregatesIO.getLogSegment(), aggregatesIO.getLogLength(),
+				new HashMap<>(), troubleWords);
+	}
+
+	/**
+	 * Everything cached at one sequence number of the running totals, which is
+	 * not changed once shared.
+	 */
+	private static class Snapshot {
+		private final int sequence;
+		private final String countedDay;
+		private final long countedLength;
+		private final HashMap<String, VocabularyStatistics> topics;
+		private final FrequentWords troubleWords;
+
+		private Snapshot(int sequence, String countedDay, long countedLength,
+				HashMap<String, VocabularyStatistics> topics, FrequentWords troubleWords) {
+			this.sequence = sequence;
+			this.countedDay = countedDay;
+			this.countedLength = countedLength;
+			this.topics = topics;
+			this.troubleWords = troubleWords;
+		}
+
+		/**
+		 * Returns a copy of the snapshot that also holds the statistics of a topic.
+		 */
+		private Snapshot withTopic(String wordList, VocabularyStatistics vocabularyStatistics) {
+			HashMap<String, VocabularyStatistics> newTopics = new HashMap<>(topics);
+			newTopics.put(wordList, vocabularyStatistics);
+			return new Snapshot(sequence, countedDay, countedLength, newTopics, troubleWords);
+		}
+
+		/**
+		 * Returns a copy of the snapshot with added attempts counted, copying the
+		 * topics the attempts belong to before adding to them. A topic with a word
+		 * it has not counted before is dropped instead, to be built again from the
+		 * running totals when next requested, so that its words stay in the same
+		 * order as when it is built.
+		 */
+		private Snapshot withAdded(StatisticsAggregates added, StatisticsAggregatesIO aggregatesIO,
+				int newSequence) {
+			HashMap<String, VocabularyStatistics> newTopics = new HashMap<>(topics);
+			FrequentWords newTroubleWords = new FrequentWords(troubleWords);
+			for (String wordList : added.getWordLists()) {
+				VocabularyStatistics vocabularyStatistics = topics.get(wordList);
+				if (vocabularyStatistics != null && !hasEveryWord(vocabularyStatistics, added.getWords(wordList))) {
+					newTopics.remove(wordList);
+					vocabularyStatistics = null;
+				}
+				if (vocabularyStatistics != null) {
+					vocabularyStatistics = new VocabularyStatistics(vocabularyStatistics);
+					newTopics.put(wordList, vocabularyStatistics);
+				}
+				for (String word : added.getWords(wordList)) {
+					newTroubleWords.add(wordList, word, added.getWordCount(wordList, word, AnswerStatus.FAILED)
+							+ added.getWordCount(wordList, word, AnswerStatus.FAULTED));
+					if (vocabularyStatistics == null) {
+						continue;
+					}
+					vocabularyStatistics.addMastered(word, added.getWordCount(wordList, word, AnswerStatus.MASTERED));
+					vocabularyStatistics.addFaulted(word, added.getWordCount(wordList, word, AnswerStatus.FAULTED));
+					vocabularyStatistics.addFailed(word, added.getWordCount(wordList, word, AnswerStatus.FAILED));
+					vocabularyStatistics.setLastAttempt(word, aggregatesIO.getLastAttempt(wordList, word));
+				}
+			}
+			String newCountedDay = countedDay;
+			long newCountedLength = countedLength;
+			if (added.getLogSegment() != null) {
+				newCountedDay = added.getLogSegment();
+				newCountedLength = added.getLogLength();
+			}
+			return new Snapshot(newSequence, newCountedDay, newCountedLength, newTopics, newTroubleWords);
+		}
+
+		/**
+		 * Helper method to determine whether the statistics of a topic have counted
+		 * every one of some words.
+		 */
+		private static boolean hasEveryWord(VocabularyStatistics vocabularyStatistics, Set<String> words) {
+			for (String word : words) {
+				if (!vocabularyStatistics.hasWord(word)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Determines whether the snapshot has counted up to a position in the
+		 * segments at or before a position that the running totals have.
+		 */
+		private boolean isBefore(String logSegment, long logLength) {
+			if (countedDay == null || logSegment == null) {
+				return countedDay == null;
+			}
+			int order = countedDay.compareTo(logSegment);
+			return order < 0 || (order == 0 && countedLength <= logLength);
+		}
+	}
+}
@@ -7,9 +7,14 @@ package quiz;
  *
  */
 public class Scorer {
+	private static final long NANOS_PER_MILLI = 1000000L;
+
 	private String word;
 	private long startTime;
 	private long endTime;
+	// Kept apart from the times in seconds, which the bonuses are worked out from
+	private long startNanos;
+	private long endNanos;
 	private double wordLengthMultiplier;
 	private int averageWordLength;
 	private double highBonusReward;
@@ -121,6 +126,7 @@ public class Scorer {
 	 */
 	public void startTiming() {
 		startTime = System.currentTimeMillis() / 1000L;
+		startNanos = System.nanoTime();
 	}
 
 	/**
@@ -129,6 +135,17 @@ public class Scorer {
 	 */
 	public void endTiming() {
 		endTime = System.currentTimeMillis() / 1000L;
+		endNanos = System.nanoTime();
+	}
+
+	/**
+	 * Returns how long the user took to answer, between the last calls to
+	 * startTiming and endTiming.
+	 *
+	 * @return An integer containing the number of milliseconds taken.
+	 */
+	public int getAnswerTimeMillis() {
+		return (int) Math.min((endNanos - startNanos) / NANOS_PER_MILLI, Integer.MAX_VALUE);
 	}
 
 	/**
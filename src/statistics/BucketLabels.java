@@ -0,0 +1,20 @@
+package statistics;
+
+/**
+ * Names the buckets of a timeline, which are numbered from 0 in order of time.
+ */
+public interface BucketLabels {
+
+	/**
+	 * Returns the number of buckets.
+	 */
+	int getBucketCount();
+
+	/**
+	 * Returns the name of a bucket, such as "13:00" or "Monday".
+	 *
+	 * @param bucketIndex An integer containing the position of the bucket.
+	 * @return A String containing the name to show for the bucket.
+	 */
+	String getLabel(int bucketIndex);
+}
@@ -0,0 +1,208 @@
+package statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the words counted most often, such as the words failed most,
+ * using a fixed number of counters however many words are counted. This is the
+ * Space-Saving method: a word that has a counter has its count added to, and a
+ * word without one takes over the counter with the lowest count, carrying that
+ * count on as the most it may have been overcounted by. While no more words have
+ * been counted than there are counters, every count is exact.
+ *
+ * Counters are kept in a heap ordered by count, so that the lowest is found
+ * straight away and counting a word takes time in proportion to the log of the
+ * number of counters.
+ */
+public class FrequentWords {
+	private int capacity;
+	private int size;
+	// Counter of each word of each topic
+	private HashMap<String, HashMap<String, Integer>> counters;
+	private String[] words;
+	private String[] wordLists;
+	private long[] counts;
+	private long[] errors;
+	// Counters ordered as a heap with the lowest count first, and where each is
+	private int[] heap;
+	private int[] heapPositions;
+
+	/**
+	 * Creates a FrequentWords object.
+	 *
+	 * @param capacity An integer containing the number of counters to keep.
+	 */
+	public FrequentWords(int capacity) {
+		this.capacity = capacity;
+		counters = new HashMap<>();
+		words = new String[capacity];
+		wordLists = new String[capacity];
+		counts = new long[capacity];
+		errors = new long[capacity];
+		heap = new int[capacity];
+		heapPositions = new int[capacity];
+	}
+
+	/**
+	 * Creates a FrequentWords object holding the same counters as another, which
+	 * can then be counted towards without changing the other.
+	 *
+	 * @param other The FrequentWords object to copy.
+	 */
+	public FrequentWords(FrequentWords other) {
+		capacity = other.capacity;
+		size = other.size;
+		counters = new HashMap<>();
+		for (Map.Entry<String, HashMap<String, Integer>> topicCounters : other.counters.entrySet()) {
+			counters.put(topicCounters.getKey(), new HashMap<>(topicCounters.getValue()));
+		}
+		words = other.words.clone();
+		wordLists = other.wordLists.clone();
+		counts = other.counts.clone();
+		errors = other.errors.clone();
+		heap = other.heap.clone();
+		heapPositions = other.heapPositions.clone();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Counts attempts at a word.
+	 *
+	 * @param wordList A String containing the topic of the word.
+	 * @param word     A String containing the word.
+	 * @param amount   An integer containing the number of attempts to count.
+	 */
+	public void add(String wordList, String word, int amount) {
+		if (amount <= 0 || capacity == 0) {
+			return;
+		}
+		HashMap<String, Integer> topicCounters = counters.get(wordList);
+		Integer counter = topicCounters == null ? null : topicCounters.get(word);
+		if (counter == null) {
+			counter = takeCounter(wordList, word);
+		}
+		counts[counter] += amount;
+		siftDown(heapPositions[counter]);
+	}
+
+	/**
+	 * Helper method to give a word a counter, which is a new one while there are
+	 * counters left and the one with the lowest count otherwise.
+	 */
+	private int takeCounter(String wordList, String word) {
+		int counter;
+		if (size < capacity) {
+			counter = size;
+			heap[size] = counter;
+			heapPositions[counter] = size;
+			size++;
+			errors[counter] = 0;
+		} else {
+			counter = heap[0];
+			counters.get(wordLists[counter]).remove(words[counter]);
+			errors[counter] = counts[counter];
+		}
+		words[counter] = word;
+		wordLists[counter] = wordList;
+		counters.computeIfAbsent(wordList, k -> new HashMap<>()).put(word, counter);
+		return counter;
+	}
+
+	/**
+	 * Helper method to move a counter whose count has grown down the heap until
+	 * the counts below it are no lower.
+	 */
+	private void siftDown(int position) {
+		int counter = heap[position];
+		while (true) {
+			int child = position * 2 + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[heap[child]] >= counts[counter]) {
+				break;
+			}
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = counter;
+		heapPositions[counter] = position;
+	}
+
+	/**
+	 * Returns the words counted most often, most first. Words with the same count
+	 * are ordered by topic and then by word.
+	 *
+	 * @param k An integer containing the most words to return.
+	 * @return An ArrayList object storing an Entry for each word.
+	 */
+	public ArrayList<Entry> getTop(int k) {
+		ArrayList<Entry> entries = new ArrayList<>(size);
+		for (int counter = 0; counter < size; counter++) {
+			entries.add(new Entry(wordLists[counter], words[counter], counts[counter], errors[counter]));
+		}
+		entries.sort((a, b) -> {
+			if (a.getCount() != b.getCount()) {
+				return Long.compare(b.getCount(), a.getCount());
+			}
+			if (!a.getWordList().equals(b.getWordList())) {
+				return a.getWordList().compareTo(b.getWordList());
+			}
+			return a.getWord().compareTo(b.getWord());
+		});
+		if (entries.size() > k) {
+			return new ArrayList<>(entries.subList(0, Math.max(k, 0)));
+		}
+		return entries;
+	}
+
+	/**
+	 * A word and how often it was counted.
+	 */
+	public static class Entry {
+		private String wordList;
+		private String word;
+		private long count;
+		private long error;
+
+		public Entry(String wordList, String word, long count, long error) {
+			this.wordList = wordList;
+			this.word = word;
+			this.count = count;
+			this.error = error;
+		}
+
+		public String getWordList() {
+			return wordList;
+		}
+
+		public String getWord() {
+			return word;
+		}
+
+		/**
+		 * Returns the number of times the word was counted, which may be more than
+		 * the true number by up to the error.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the most that the count may be more than the true number by, which
+		 * is zero when the count is exact.
+		 */
+		public long getError() {
+			return error;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package statistics;
+
+/**
+ * Counts how long answers took, in milliseconds, closely enough to tell the
+ * median and other percentiles within about three percent, in a fixed number of
+ * buckets however many answers are counted.
+ *
+ * Times under 64 milliseconds each have a bucket of their own. Above that, each
+ * doubling of time is split into 32 buckets of equal width, so a bucket is never
+ * wider than a thirty-second of the times in it. Times over an hour are counted
+ * as an hour.
+ */
+public class LatencyHistogram {
+	private static final int LINEAR_BUCKET_COUNT = 64;
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	// The highest bit of LINEAR_BUCKET_COUNT, where the doublings begin
+	private static final int FIRST_EXPONENT = 6;
+	private static final long MAX_MILLIS = 60 * 60 * 1000;
+	private static final int BUCKET_COUNT = getBucket(MAX_MILLIS) + 1;
+
+	private int[] counts;
+	private long totalCount;
+	private long minMillis;
+	private long maxMillis;
+
+	public LatencyHistogram() {
+		counts = new int[BUCKET_COUNT];
+		minMillis = Long.MAX_VALUE;
+		maxMillis = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Counts how long an answer took.
+	 *
+	 * @param millis A long containing the milliseconds taken.
+	 */
+	public void recordValue(long millis) {
+		recordValues(millis, 1);
+	}
+
+	/**
+	 * Counts answers that each took the same time.
+	 *
+	 * @param millis A long containing the milliseconds taken.
+	 * @param count  An integer containing the number of answers.
+	 */
+	public void recordValues(long millis, int count) {
+		if (count <= 0) {
+			return;
+		}
+		long value = Math.min(Math.max(millis, 0), MAX_MILLIS);
+		counts[getBucket(value)] += count;
+		totalCount += count;
+		minMillis = Math.min(minMillis, value);
+		maxMillis = Math.max(maxMillis, value);
+	}
+
+	/**
+	 * Adds the answers counted by another histogram to this one.
+	 *
+	 * @param other The LatencyHistogram object to add.
+	 */
+	public void add(LatencyHistogram other) {
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			counts[bucket] += other.counts[bucket];
+		}
+		totalCount += other.totalCount;
+		minMillis = Math.min(minMillis, other.minMillis);
+		maxMillis = Math.max(maxMillis, other.maxMillis);
+	}
+
+	/**
+	 * Returns a copy of the histogram, which can be changed without changing this
+	 * one.
+	 *
+	 * @return A LatencyHistogram object with the same counts.
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram copy = new LatencyHistogram();
+		copy.add(this);
+		return copy;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Returns the shortest time counted, or 0 if nothing has been counted.
+	 */
+	public long getMinMillis() {
+		return totalCount == 0 ? 0 : minMillis;
+	}
+
+	/**
+	 * Returns the longest time counted, or 0 if nothing has been counted.
+	 */
+	public long getMaxMillis() {
+		return totalCount == 0 ? 0 : maxMillis;
+	}
+
+	/**
+	 * Returns the time that a percentage of answers took at most, such as 50 for
+	 * the median or 99 for all but the slowest hundredth.
+	 *
+	 * @param percentile A double containing the percentage, from 0 to 100.
+	 * @return A long containing the milliseconds, rounded up to the end of the
+	 *         bucket they fall in, or 0 if nothing has been counted.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		double fraction = Math.min(Math.max(percentile, 0), 100) / 100;
+		long target = Math.max(1, (long) Math.ceil(fraction * totalCount));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += counts[bucket];
+			if (seen >= target) {
+				return Math.max(Math.min(getBucketEnd(bucket) - 1, maxMillis), minMillis);
+			}
+		}
+		return maxMillis;
+	}
+
+	/**
+	 * Returns the number of buckets that every histogram keeps.
+	 */
+	public static int getBucketCount() {
+		return BUCKET_COUNT;
+	}
+
+	/**
+	 * Helper method to find the bucket of a time.
+	 */
+	private static int getBucket(long millis) {
+		if (millis < LINEAR_BUCKET_COUNT) {
+			return (int) millis;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(millis);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (millis >> shift) - SUB_BUCKET_COUNT;
+		return LINEAR_BUCKET_COUNT + (exponent - FIRST_EXPONENT) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * Helper method to find the time just after the last time in a bucket.
+	 */
+	private static long getBucketEnd(int bucket) {
+		if (bucket < LINEAR_BUCKET_COUNT) {
+			return bucket + 1;
+		}
+		int exponent = (bucket - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + FIRST_EXPONENT;
+		int subBucket = (bucket - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (long) (SUB_BUCKET_COUNT + subBucket + 1) << shift;
+	}
+}
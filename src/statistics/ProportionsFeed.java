@@ -1,31 +1,61 @@
 package statistics;
 
+import enums.AnswerStatus;
+
 public class ProportionsFeed {
-	int mastered;
-	int faulted;
-	int failed;
+	// Indexed by the ordinal of MASTERED, FAULTED and FAILED
+	private int[] counts = new int[3];
 
 	public int getMastered() {
-		return mastered;
+		return counts[AnswerStatus.MASTERED.ordinal()];
 	}
 
 	public int getFaulted() {
-		return faulted;
+		return counts[AnswerStatus.FAULTED.ordinal()];
 	}
 
 	public int getFailed() {
-		return failed;
+		return counts[AnswerStatus.FAILED.ordinal()];
 	}
 
 	public void incrementMastered() {
-		this.mastered++;
+		addMastered(1);
 	}
 
 	public void incrementFaulted() {
-		this.faulted++;
+		addFaulted(1);
 	}
 
 	public void incrementFailed() {
-		this.failed++;
+		addFailed(1);
+	}
+
+	public void addMastered(int amount) {
+		counts[AnswerStatus.MASTERED.ordinal()] += amount;
+	}
+
+	public void addFaulted(int amount) {
+		counts[AnswerStatus.FAULTED.ordinal()] += amount;
+	}
+
+	public void addFailed(int amount) {
+		counts[AnswerStatus.FAILED.ordinal()] += amount;
+	}
+
+	/**
+	 * Adds attempts to the count of their answer status. Answer statuses that are
+	 * not counted, such as INCORRECT, are ignored.
+	 */
+	public void add(AnswerStatus answerStatus, int amount) {
+		int index = answerStatus.ordinal();
+		if (index < counts.length) {
+			counts[index] += amount;
+		}
+	}
+
+	public void merge(ProportionsFeed other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
 	}
 }
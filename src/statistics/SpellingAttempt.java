@@ -0,0 +1,93 @@
+package statistics;
+
+import java.time.OffsetDateTime;
+
+import enums.AnswerStatus;
+
+/**
+ * Stores a spelling attempt that is waiting to be recorded to the statistics
+ * file.
+ */
+public class SpellingAttempt {
+	/**
+	 * Stands for the time taken to answer when it was not recorded.
+	 */
+	public static final int UNKNOWN_LATENCY = -1;
+
+	private OffsetDateTime dateTime;
+	private String word;
+	private String wordList;
+	private AnswerStatus answerStatus;
+	private int scoreEarned;
+	private int latencyMillis;
+
+	/**
+	 * Creates a SpellingAttempt object.
+	 *
+	 * @param dateTime     An OffsetDateTime object recording when the attempt took
+	 *                     place.
+	 * @param word         A String containing the word attempted when spelt
+	 *                     correctly.
+	 * @param wordList     A String containing the topic that the word belongs to.
+	 * @param answerStatus An AnswerStatus enumeration representing whether the user
+	 *                     has mastered, faulted or failed the attempted word.
+	 * @param scoreEarned  An integer representing how much earning the user got
+	 *                     from the attempt.
+	 */
+	public SpellingAttempt(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
+			int scoreEarned) {
+		this(dateTime, word, wordList, answerStatus, scoreEarned, UNKNOWN_LATENCY);
+	}
+
+	/**
+	 * Creates a SpellingAttempt object, along with how long the user took to
+	 * answer.
+	 *
+	 * @param dateTime      An OffsetDateTime object recording when the attempt
+	 *                      took place.
+	 * @param word          A String containing the word attempted when spelt
+	 *                      correctly.
+	 * @param wordList      A String containing the topic that the word belongs
+	 *                      to.
+	 * @param answerStatus  An AnswerStatus enumeration representing whether the
+	 *                      user has mastered, faulted or failed the attempted
+	 *                      word.
+	 * @param scoreEarned   An integer representing how much earning the user got
+	 *                      from the attempt.
+	 * @param latencyMillis An integer containing the milliseconds the user took
+	 *                      to answer, or UNKNOWN_LATENCY.
+	 */
+	public SpellingAttempt(OffsetDateTime dateTime, String word, String wordList, AnswerStatus answerStatus,
+			int scoreEarned, int latencyMillis) {
+		this.dateTime = dateTime;
+		this.word = word;
+		this.wordList = wordList;
+		this.answerStatus = answerStatus;
+		this.scoreEarned = scoreEarned;
+		this.latencyMillis = latencyMillis;
+	}
+
+	public OffsetDateTime getDateTime() {
+		return dateTime;
+	}
+
+	public String getWord() {
+		return word;
+	}
+
+	public String getWordList() {
+		return wordList;
+	}
+
+	public AnswerStatus getAnswerStatus() {
+		return answerStatus;
+	}
+
+	public int getScoreEarned() {
+		return scoreEarned;
+	}
+
+	public int getLatencyMillis() {
+		return latencyMillis;
+	}
+}
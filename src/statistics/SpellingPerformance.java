@@ -0,0 +1,104 @@
+package statistics;
+
+import enums.AnswerStatus;
+
+/**
+ * Holds the timeline feeds for mastered, faulted and failed attempts, together
+ * with the proportions of each, for a single window of time. All feeds are
+ * computed together so that the statistics file only needs to be read once.
+ */
+public class SpellingPerformance {
+	private BucketLabels bucketLabels;
+	private TimelineFeed masteredTimelineFeed;
+	private TimelineFeed faultedTimelineFeed;
+	private TimelineFeed failedTimelineFeed;
+	private ProportionsFeed proportionsFeed;
+
+	public SpellingPerformance(BucketLabels bucketLabels) {
+		this.bucketLabels = bucketLabels;
+		masteredTimelineFeed = new TimelineFeed(bucketLabels);
+		faultedTimelineFeed = new TimelineFeed(bucketLabels);
+		failedTimelineFeed = new TimelineFeed(bucketLabels);
+		proportionsFeed = new ProportionsFeed();
+	}
+
+	public TimelineFeed getMasteredTimelineFeed() {
+		return masteredTimelineFeed;
+	}
+
+	public TimelineFeed getFaultedTimelineFeed() {
+		return faultedTimelineFeed;
+	}
+
+	public TimelineFeed getFailedTimelineFeed() {
+		return failedTimelineFeed;
+	}
+
+	public ProportionsFeed getProportionsFeed() {
+		return proportionsFeed;
+	}
+
+	public void addMastered(int bucketIndex, int amount) {
+		masteredTimelineFeed.addData(bucketIndex, amount);
+		proportionsFeed.addMastered(amount);
+	}
+
+	public void addFaulted(int bucketIndex, int amount) {
+		faultedTimelineFeed.addData(bucketIndex, amount);
+		proportionsFeed.addFaulted(amount);
+	}
+
+	public void addFailed(int bucketIndex, int amount) {
+		failedTimelineFeed.addData(bucketIndex, amount);
+		proportionsFeed.addFailed(amount);
+	}
+
+	/**
+	 * Adds attempts to the timeline of their answer status and to the proportions.
+	 * Answer statuses that are not counted, such as INCORRECT, are ignored.
+	 *
+	 * @param bucketIndex  An integer containing the bucket of the attempts.
+	 * @param answerStatus An AnswerStatus enumeration for the attempts.
+	 * @param amount       An integer containing the number of attempts.
+	 */
+	public void add(int bucketIndex, AnswerStatus answerStatus, int amount) {
+		switch (answerStatus) {
+		case MASTERED:
+			addMastered(bucketIndex, amount);
+			break;
+		case FAULTED:
+			addFaulted(bucketIndex, amount);
+			break;
+		case FAILED:
+			addFailed(bucketIndex, amount);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Adds the feeds of another SpellingPerformance over the same buckets to
+	 * these.
+	 *
+	 * @param other The SpellingPerformance object to add.
+	 */
+	public void merge(SpellingPerformance other) {
+		masteredTimelineFeed.merge(other.masteredTimelineFeed);
+		faultedTimelineFeed.merge(other.faultedTimelineFeed);
+		failedTimelineFeed.merge(other.failedTimelineFeed);
+		proportionsFeed.merge(other.proportionsFeed);
+	}
+
+	/**
+	 * Returns a copy of the feeds, which can be changed without changing these.
+	 *
+	 * @return A SpellingPerformance object over the same buckets with the same
+	 *         counts.
+	 */
+	public SpellingPerformance copy() {
+		SpellingPerformance copy = new SpellingPerformance(bucketLabels);
+		copy.merge(this);
+		return copy;
+	}
+}
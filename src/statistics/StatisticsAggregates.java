@@ -0,0 +1,239 @@
+package statistics;
+
+import java.util.Set;
+import java.util.TreeMap;
+
+import enums.AnswerStatus;
+
+/**
+ * Running totals of spelling attempts, kept per hour, per day and per word in
+ * each topic, so that statistics screens do not need to go through every
+ * attempt ever recorded. The time of the latest attempt at each word is kept
+ * alongside its totals. Hours and days are those local to the offset that each
+ * attempt was recorded in, and are numbered by the hours and days since
+ * 1970-01-01T00:00 in that local time, so that an attempt is counted with
+ * integer arithmetic alone. Hours are not kept for attempts that have been
+ * rolled up into days, once the totals are recounted.
+ *
+ * The log position is the day of the newest segment of the statistics that has
+ * been counted, and the number of bytes counted in that segment, which tells
+ * whether the totals are behind the statistics.
+ */
+public class StatisticsAggregates {
+	private static final int SECONDS_PER_HOUR = 60 * 60;
+	private static final int SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+
+	private String logSegment;
+	private long logLength;
+	private TreeMap<Long, int[]> hourCounts;
+	private TreeMap<Long, int[]> dayCounts;
+	private TreeMap<String, TreeMap<String, int[]>> wordCounts;
+	private TreeMap<String, TreeMap<String, Long>> lastAttempts;
+
+	public StatisticsAggregates() {
+		hourCounts = new TreeMap<>();
+		dayCounts = new TreeMap<>();
+		wordCounts = new TreeMap<>();
+		lastAttempts = new TreeMap<>();
+	}
+
+	public String getLogSegment() {
+		return logSegment;
+	}
+
+	public void setLogSegment(String logSegment) {
+		this.logSegment = logSegment;
+	}
+
+	public long getLogLength() {
+		return logLength;
+	}
+
+	public void setLogLength(long logLength) {
+		this.logLength = logLength;
+	}
+
+	/**
+	 * Counts one attempt towards its hour, its day, and its word in the topic.
+	 * Incorrect first attempts are not counted, as they are never recorded.
+	 */
+	public void addAttempt(long epochSecond, int offsetSeconds, String word, String wordList,
+			AnswerStatus answerStatus) {
+		long localSecond = epochSecond + offsetSeconds;
+		addHourCount(Math.floorDiv(localSecond, SECONDS_PER_HOUR), answerStatus, 1);
+		addDayCount(Math.floorDiv(localSecond, SECONDS_PER_DAY), answerStatus, 1);
+		addWordCount(wordList, word, answerStatus, 1);
+		setLastAttempt(wordList, word, epochSecond);
+	}
+
+	/**
+	 * Counts attempts that have been rolled up into a day towards their day and
+	 * their word in the topic. Rolled up attempts no longer have an hour, so they
+	 * are not counted towards any hour, and are taken to have taken place at the
+	 * start of their day.
+	 */
+	public void addRolledUpAttempts(long epochSecond, int offsetSeconds, String word, String wordList,
+			AnswerStatus answerStatus, int count) {
+		addDayCount(Math.floorDiv(epochSecond + offsetSeconds, SECONDS_PER_DAY), answerStatus, count);
+		addWordCount(wordList, word, answerStatus, count);
+		setLastAttempt(wordList, word, epochSecond);
+	}
+
+	public void addHourCount(long hour, AnswerStatus answerStatus, int amount) {
+		addCount(hourCounts, hour, answerStatus, amount);
+	}
+
+	public void addDayCount(long day, AnswerStatus answerStatus, int amount) {
+		addCount(dayCounts, day, answerStatus, amount);
+	}
+
+	public void addWordCount(String wordList, String word, AnswerStatus answerStatus, int amount) {
+		TreeMap<String, int[]> counts = wordCounts.get(wordList);
+		if (counts == null) {
+			counts = new TreeMap<>();
+			wordCounts.put(wordList, counts);
+		}
+		addCount(counts, word, answerStatus, amount);
+	}
+
+	/**
+	 * Records that a word was attempted at a time, unless a later attempt at the
+	 * word has already been recorded.
+	 */
+	public void setLastAttempt(String wordList, String word, long epochSecond) {
+		TreeMap<String, Long> times = lastAttempts.get(wordList);
+		if (times == null) {
+			times = new TreeMap<>();
+			lastAttempts.put(wordList, times);
+		}
+		Long lastAttempt = times.get(word);
+		if (lastAttempt == null || lastAttempt < epochSecond) {
+			times.put(word, epochSecond);
+		}
+	}
+
+	public Set<Long> getHours() {
+		return hourCounts.keySet();
+	}
+
+	public Set<Long> getDays() {
+		return dayCounts.keySet();
+	}
+
+	public Set<String> getWordLists() {
+		return wordCounts.keySet();
+	}
+
+	public Set<String> getWords(String wordList) {
+		TreeMap<String, int[]> counts = wordCounts.get(wordList);
+		if (counts == null) {
+			return new TreeMap<String, int[]>().keySet();
+		}
+		return counts.keySet();
+	}
+
+	public int getHourCount(long hour, AnswerStatus answerStatus) {
+		return getCount(hourCounts, hour, answerStatus);
+	}
+
+	public int getDayCount(long day, AnswerStatus answerStatus) {
+		return getCount(dayCounts, day, answerStatus);
+	}
+
+	public int getWordCount(String wordList, String word, AnswerStatus answerStatus) {
+		TreeMap<String, int[]> counts = wordCounts.get(wordList);
+		if (counts == null) {
+			return 0;
+		}
+		return getCount(counts, word, answerStatus);
+	}
+
+	/**
+	 * Adds the totals and latest attempts of other running totals to these, and
+	 * takes on the position that the other totals have counted up to, if any.
+	 *
+	 * @param other The StatisticsAggregates object to add.
+	 */
+	public void addAll(StatisticsAggregates other) {
+		for (long hour : other.getHours()) {
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				addHourCount(hour, answerStatus, other.getHourCount(hour, answerStatus));
+			}
+		}
+		for (long day : other.getDays()) {
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				addDayCount(day, answerStatus, other.getDayCount(day, answerStatus));
+			}
+		}
+		for (String wordList : other.getWordLists()) {
+			for (String word : other.getWords(wordList)) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					addWordCount(wordList, word, answerStatus, other.getWordCount(wordList, word, answerStatus));
+				}
+				setLastAttempt(wordList, word, other.getLastAttempt(wordList, word));
+			}
+		}
+		if (other.getLogSegment() != null) {
+			setLogSegment(other.getLogSegment());
+			setLogLength(other.getLogLength());
+		}
+	}
+
+	/**
+	 * Returns the epoch second of the latest attempt at a word in a topic.
+	 *
+	 * @return A long containing the epoch second, or Long.MIN_VALUE if the word
+	 *         has never been attempted.
+	 */
+	public long getLastAttempt(String wordList, String word) {
+		TreeMap<String, Long> times = lastAttempts.get(wordList);
+		if (times == null || !times.containsKey(word)) {
+			return Long.MIN_VALUE;
+		}
+		return times.get(word);
+	}
+
+	/**
+	 * Retrieves the totals of every word in a topic.
+	 *
+	 * @param wordList A String containing the topic.
+	 * @return A VocabularyStatistics object containing the mastered, faulted and
+	 *         failed totals and latest attempt of each word in the topic.
+	 */
+	public VocabularyStatistics getVocabularyStatistics(String wordList) {
+		VocabularyStatistics vocabularyStatistics = new VocabularyStatistics();
+		for (String word : getWords(wordList)) {
+			vocabularyStatistics.addMastered(word, getWordCount(wordList, word, AnswerStatus.MASTERED));
+			vocabularyStatistics.addFaulted(word, getWordCount(wordList, word, AnswerStatus.FAULTED));
+			vocabularyStatistics.addFailed(word, getWordCount(wordList, word, AnswerStatus.FAILED));
+			vocabularyStatistics.setLastAttempt(word, getLastAttempt(wordList, word));
+		}
+		return vocabularyStatistics;
+	}
+
+	private <K> void addCount(TreeMap<K, int[]> store, K key, AnswerStatus answerStatus, int amount) {
+		if (!isCounted(answerStatus)) {
+			return;
+		}
+		int[] counts = store.get(key);
+		if (counts == null) {
+			counts = new int[3];
+			store.put(key, counts);
+		}
+		counts[answerStatus.ordinal()] += amount;
+	}
+
+	private <K> int getCount(TreeMap<K, int[]> store, K key, AnswerStatus answerStatus) {
+		int[] counts = store.get(key);
+		if (counts == null || !isCounted(answerStatus)) {
+			return 0;
+		}
+		return counts[answerStatus.ordinal()];
+	}
+
+	private boolean isCounted(AnswerStatus answerStatus) {
+		return answerStatus != AnswerStatus.INCORRECT;
+	}
+}
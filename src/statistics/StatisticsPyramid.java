@@ -0,0 +1,335 @@
+package statistics;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import enums.AnswerStatus;
+import enums.BucketSize;
+
+/**
+ * Counts of spelling attempts per minute, hour, day, week and month, in each
+ * topic, so that a timeline at any zoom and over any range can be drawn from
+ * counts that are already summed rather than from the attempts themselves.
+ *
+ * Each level is keyed by the epoch second at which its buckets start in local
+ * time in a time zone, in the same way as TimeBuckets, so that a timeline whose
+ * buckets line up with a level reads one count per topic for each of its
+ * buckets. Minutes are only kept from a cut-off onwards, as they are only
+ * useful for recent attempts. Attempts before the cut-off, and attempts that
+ * have been rolled up into days, are counted from the hour level upwards.
+ *
+ * New attempts are counted into a separate StatisticsPyramid, from which the
+ * coarser levels are derived before it is added to this one, so that each level
+ * is summed from the one below rather than from the attempts again.
+ *
+ * The log position is the day of the newest segment of the statistics that has
+ * been counted, and the number of bytes counted in that segment.
+ */
+public class StatisticsPyramid {
+	private static final int SECONDS_PER_MINUTE = 60;
+	private static final BucketSize[] LEVELS = BucketSize.values();
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+
+	private ZoneId zone;
+	private long minuteCutoff;
+	private String logSegment;
+	private long logLength;
+	private ArrayList<TreeMap<Long, TreeMap<String, int[]>>> levels;
+	// The bucket last looked up in each level, as attempts tend to come in order
+	private long[] cachedStarts;
+	private long[] cachedEnds;
+
+	/**
+	 * Creates an empty StatisticsPyramid.
+	 *
+	 * @param zone         A ZoneId object for the time zone that buckets follow.
+	 * @param minuteCutoff A long containing the epoch second from which minutes
+	 *                     are kept.
+	 */
+	public StatisticsPyramid(ZoneId zone, long minuteCutoff) {
+		this.zone = zone;
+		this.minuteCutoff = Math.floorDiv(minuteCutoff, SECONDS_PER_MINUTE) * SECONDS_PER_MINUTE;
+		levels = new ArrayList<>();
+		for (int i = 0; i < LEVELS.length; i++) {
+			levels.add(new TreeMap<>());
+		}
+		cachedStarts = new long[LEVELS.length];
+		cachedEnds = new long[LEVELS.length];
+	}
+
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	public long getMinuteCutoff() {
+		return minuteCutoff;
+	}
+
+	public String getLogSegment() {
+		return logSegment;
+	}
+
+	public void setLogSegment(String logSegment) {
+		this.logSegment = logSegment;
+	}
+
+	public long getLogLength() {
+		return logLength;
+	}
+
+	public void setLogLength(long logLength) {
+		this.logLength = logLength;
+	}
+
+	/**
+	 * Counts one attempt towards its minute, or towards its hour if it is before
+	 * the minute cut-off. Coarser levels are left to deriveCoarserLevels.
+	 */
+	public void addAttempt(long epochSecond, String wordList, AnswerStatus answerStatus) {
+		BucketSize level = epochSecond >= minuteCutoff ? BucketSize.MINUTE : BucketSize.HOUR;
+		addCount(level, getBucketStart(level, epochSecond), wordList, answerStatus, 1);
+	}
+
+	/**
+	 * Counts attempts that have been rolled up into a day towards the hour that
+	 * the day starts in. Coarser levels are left to deriveCoarserLevels.
+	 */
+	public void addRolledUpAttempts(long epochSecond, String wordList, AnswerStatus answerStatus, int count) {
+		addCount(BucketSize.HOUR, getBucketStart(BucketSize.HOUR, epochSecond), wordList, answerStatus, count);
+	}
+
+	/**
+	 * Sums minutes into hours, hours into days, and days into weeks and months.
+	 * Call this once after counting attempts with addAttempt and
+	 * addRolledUpAttempts, and before adding this StatisticsPyramid to another.
+	 */
+	public void deriveCoarserLevels() {
+		deriveLevel(BucketSize.MINUTE, BucketSize.HOUR);
+		deriveLevel(BucketSize.HOUR, BucketSize.DAY);
+		deriveLevel(BucketSize.DAY, BucketSize.WEEK);
+		deriveLevel(BucketSize.DAY, BucketSize.MONTH);
+	}
+
+	/**
+	 * Adds the counts at every level of another StatisticsPyramid in the same time
+	 * zone to these, and takes on the position that it has counted up to, if any.
+	 * Minutes before the cut-off of this StatisticsPyramid are left out.
+	 *
+	 * @param other The StatisticsPyramid object to add.
+	 */
+	public void addAll(StatisticsPyramid other) {
+		for (BucketSize level : LEVELS) {
+			for (Map.Entry<Long, TreeMap<String, int[]>> bucket : other.getLevel(level).entrySet()) {
+				if (level == BucketSize.MINUTE && bucket.getKey() < minuteCutoff) {
+					continue;
+				}
+				for (Map.Entry<String, int[]> topic : bucket.getValue().entrySet()) {
+					for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+						addCount(level, bucket.getKey(), topic.getKey(), answerStatus,
+								topic.getValue()[answerStatus.ordinal()]);
+					}
+				}
+			}
+		}
+		if (other.getLogSegment() != null) {
+			setLogSegment(other.getLogSegment());
+			setLogLength(other.getLogLength());
+		}
+	}
+
+	/**
+	 * Drops the minutes before an epoch second, which stay counted in their hours.
+	 * The cut-off only ever moves later.
+	 */
+	public void discardMinutesBefore(long epochSecond) {
+		long cutoff = Math.floorDiv(epochSecond, SECONDS_PER_MINUTE) * SECONDS_PER_MINUTE;
+		if (cutoff > minuteCutoff) {
+			minuteCutoff = cutoff;
+			getLevel(BucketSize.MINUTE).headMap(cutoff).clear();
+		}
+	}
+
+	public void addCount(BucketSize level, long bucketStart, String wordList, AnswerStatus answerStatus,
+			int amount) {
+		if (amount == 0 || answerStatus.ordinal() >= COUNTED_STATUSES.length) {
+			return;
+		}
+		TreeMap<String, int[]> topics = getLevel(level).get(bucketStart);
+		if (topics == null) {
+			topics = new TreeMap<>();
+			getLevel(level).put(bucketStart, topics);
+		}
+		int[] counts = topics.get(wordList);
+		if (counts == null) {
+			counts = new int[COUNTED_STATUSES.length];
+			topics.put(wordList, counts);
+		}
+		counts[answerStatus.ordinal()] += amount;
+	}
+
+	public Set<Long> getBucketStarts(BucketSize level) {
+		return getLevel(level).keySet();
+	}
+
+	public Set<String> getWordLists(BucketSize level, long bucketStart) {
+		TreeMap<String, int[]> topics = getLevel(level).get(bucketStart);
+		if (topics == null) {
+			return new TreeMap<String, int[]>().keySet();
+		}
+		return topics.keySet();
+	}
+
+	public int getCount(BucketSize level, long bucketStart, String wordList, AnswerStatus answerStatus) {
+		TreeMap<String, int[]> topics = getLevel(level).get(bucketStart);
+		if (topics == null || !topics.containsKey(wordList) || answerStatus.ordinal() >= COUNTED_STATUSES.length) {
+			return 0;
+		}
+		return topics.get(wordList)[answerStatus.ordinal()];
+	}
+
+	/**
+	 * Retrieves the mastered, faulted and failed timelines over a window of time
+	 * from the coarsest level whose buckets line up with those of the window. Each
+	 * bucket of the window reads at most one bucket of that level per topic when
+	 * the window and the level have the same bucket size.
+	 *
+	 * @param timeBuckets A TimeBuckets object dividing the window into buckets.
+	 * @param wordList    A String containing the topic to count, or null to count
+	 *                    every topic.
+	 * @return A SpellingPerformance object containing the timeline feeds and
+	 *         proportions feed for the window, or null if no level lines up with
+	 *         the window.
+	 */
+	public SpellingPerformance getSpellingPerformance(TimeBuckets timeBuckets, String wordList) {
+		BucketSize level = findLevel(timeBuckets);
+		if (level == null) {
+			return null;
+		}
+		SpellingPerformance spellingPerformance = new SpellingPerformance(timeBuckets);
+		TreeMap<Long, TreeMap<String, int[]>> buckets = getLevel(level);
+		for (int i = 0; i < timeBuckets.getBucketCount(); i++) {
+			long start = timeBuckets.getBucketStart(i);
+			long end = timeBuckets.getBucketStart(i + 1);
+			if (start >= end) {
+				continue;
+			}
+			for (TreeMap<String, int[]> topics : buckets.subMap(start, end).values()) {
+				if (wordList == null) {
+					for (int[] counts : topics.values()) {
+						addCounts(i, counts, spellingPerformance);
+					}
+				} else if (topics.containsKey(wordList)) {
+					addCounts(i, topics.get(wordList), spellingPerformance);
+				}
+			}
+		}
+		return spellingPerformance;
+	}
+
+	/**
+	 * Finds the coarsest level, no coarser than the buckets of a window, that
+	 * starts a bucket at every bucket boundary of the window.
+	 *
+	 * @return A BucketSize enumeration for the level, or null if there is none.
+	 */
+	private BucketSize findLevel(TimeBuckets timeBuckets) {
+		for (int i = timeBuckets.getBucketSize().ordinal(); i >= 0; i--) {
+			BucketSize level = LEVELS[i];
+			if (level == BucketSize.MINUTE && timeBuckets.getStart() < minuteCutoff) {
+				continue;
+			}
+			if (isAligned(level, timeBuckets)) {
+				return level;
+			}
+		}
+		return null;
+	}
+
+	private boolean isAligned(BucketSize level, TimeBuckets timeBuckets) {
+		for (int i = 0; i <= timeBuckets.getBucketCount(); i++) {
+			long boundary = timeBuckets.getBucketStart(i);
+			if (getBucketStart(level, boundary) != boundary) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addCounts(int bucketIndex, int[] counts, SpellingPerformance spellingPerformance) {
+		for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+			spellingPerformance.add(bucketIndex, answerStatus, counts[answerStatus.ordinal()]);
+		}
+	}
+
+	/**
+	 * Helper method to add the counts of every bucket of a level to the buckets of
+	 * a coarser level that they fall in.
+	 */
+	private void deriveLevel(BucketSize finer, BucketSize coarser) {
+		for (Map.Entry<Long, TreeMap<String, int[]>> bucket : getLevel(finer).entrySet()) {
+			long coarserStart = getBucketStart(coarser, bucket.getKey());
+			for (Map.Entry<String, int[]> topic : bucket.getValue().entrySet()) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					addCount(coarser, coarserStart, topic.getKey(), answerStatus,
+							topic.getValue()[answerStatus.ordinal()]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method to find the epoch second at which the bucket of a level that
+	 * holds an epoch second starts. Buckets start at the same local times as those
+	 * of TimeBuckets, so a repeated hour when daylight saving time ends is part of
+	 * the hour before it.
+	 */
+	private long getBucketStart(BucketSize level, long epochSecond) {
+		if (level == BucketSize.MINUTE) {
+			// Every time zone in use is offset from UTC by whole minutes
+			return Math.floorDiv(epochSecond, SECONDS_PER_MINUTE) * SECONDS_PER_MINUTE;
+		}
+		int i = level.ordinal();
+		if (epochSecond >= cachedStarts[i] && epochSecond < cachedEnds[i]) {
+			return cachedStarts[i];
+		}
+		LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone);
+		LocalDateTime start;
+		LocalDateTime end;
+		switch (level) {
+		case HOUR:
+			start = local.truncatedTo(ChronoUnit.HOURS);
+			end = start.plusHours(1);
+			break;
+		case DAY:
+			start = local.toLocalDate().atStartOfDay();
+			end = start.plusDays(1);
+			break;
+		case WEEK:
+			LocalDate monday = local.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+			start = monday.atStartOfDay();
+			end = start.plusWeeks(1);
+			break;
+		default:
+			start = local.toLocalDate().withDayOfMonth(1).atStartOfDay();
+			end = start.plusMonths(1);
+			break;
+		}
+		cachedStarts[i] = start.atZone(zone).toEpochSecond();
+		cachedEnds[i] = end.atZone(zone).toEpochSecond();
+		return cachedStarts[i];
+	}
+
+	private TreeMap<Long, TreeMap<String, int[]>> getLevel(BucketSize level) {
+		return levels.get(level.ordinal());
+	}
+}
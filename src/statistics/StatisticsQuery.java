@@ -0,0 +1,205 @@
+package statistics;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import enums.AnswerStatus;
+
+/**
+ * Describes which spelling attempts to read from the statistics: those in a
+ * window of time, in some topics, with some answer statuses and at some words.
+ * Every part left unset matches every attempt, and each method adds to the
+ * description, so a query can be built up in one expression, such as
+ * new StatisticsQuery().between(start, end).inTopics("Colours").
+ *
+ * Topics and words are matched by name, and words are matched with spaces
+ * replaced by dashes, as they are recorded.
+ */
+public class StatisticsQuery {
+	private long start;
+	private long end;
+	private Set<String> wordLists;
+	private Set<AnswerStatus> answerStatuses;
+	private Set<String> words;
+
+	public StatisticsQuery() {
+		start = Long.MIN_VALUE;
+		end = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Matches only attempts from one epoch second up to, but not including,
+	 * another.
+	 *
+	 * @param start A long containing the first epoch second to match.
+	 * @param end   A long containing the epoch second after the last to match.
+	 * @return This StatisticsQuery object.
+	 */
+	public StatisticsQuery between(long start, long end) {
+		this.start = start;
+		this.end = end;
+		return this;
+	}
+
+	/**
+	 * Matches only attempts in the input topics, along with any topics given
+	 * before.
+	 *
+	 * @param wordLists Strings containing the names of the topics.
+	 * @return This StatisticsQuery object.
+	 */
+	public StatisticsQuery inTopics(String... wordLists) {
+		if (this.wordLists == null) {
+			this.wordLists = new HashSet<>();
+		}
+		Collections.addAll(this.wordLists, wordLists);
+		return this;
+	}
+
+	/**
+	 * Matches only attempts with the input answer statuses, along with any answer
+	 * statuses given before.
+	 *
+	 * @param answerStatuses AnswerStatus enumerations to match.
+	 * @return This StatisticsQuery object.
+	 */
+	public StatisticsQuery withAnswerStatuses(AnswerStatus... answerStatuses) {
+		if (this.answerStatuses == null) {
+			this.answerStatuses = EnumSet.noneOf(AnswerStatus.class);
+		}
+		Collections.addAll(this.answerStatuses, answerStatuses);
+		return this;
+	}
+
+	/**
+	 * Matches only attempts at the input words, along with any words given before.
+	 *
+	 * @param words Strings containing the words, with spaces or dashes.
+	 * @return This StatisticsQuery object.
+	 */
+	public StatisticsQuery forWords(String... words) {
+		if (this.words == null) {
+			this.words = new HashSet<>();
+		}
+		for (String word : words) {
+			this.words.add(word.replace(' ', '-'));
+		}
+		return this;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns the names of the topics to match, or null to match every topic.
+	 */
+	public Set<String> getWordLists() {
+		return wordLists;
+	}
+
+	/**
+	 * Returns the answer statuses to match, or null to match every answer status.
+	 */
+	public Set<AnswerStatus> getAnswerStatuses() {
+		return answerStatuses;
+	}
+
+	/**
+	 * Returns the words to match, with spaces replaced by dashes, or null to match
+	 * every word.
+	 */
+	public Set<String> getWords() {
+		return words;
+	}
+
+	/**
+	 * Returns a snapshot of the query that cannot be changed, which equals the
+	 * snapshot of any query matching the same attempts, whatever order their parts
+	 * were given in. Results of the query can be kept under it, as changing the
+	 * query afterwards does not change the snapshot.
+	 *
+	 * @return A StatisticsQuery.Key object of the query as it is now.
+	 */
+	public Key getKey() {
+		return new Key(this);
+	}
+
+	/**
+	 * Describes the query, such that queries matching the same attempts are
+	 * described the same way, whatever order their parts were given in.
+	 */
+	@Override
+	public String toString() {
+		return "between " + start + " and " + end + " in " + describe(wordLists) + " with "
+				+ describe(answerStatuses) + " for " + describe(words);
+	}
+
+	/**
+	 * Helper method to describe a set of values in sorted order, or "any" if it is
+	 * not set.
+	 */
+	private static String describe(Set<?> values) {
+		if (values == null) {
+			return "any";
+		}
+		TreeSet<String> sorted = new TreeSet<>();
+		for (Object value : values) {
+			sorted.add(value.toString());
+		}
+		return sorted.toString();
+	}
+
+	/**
+	 * A snapshot of a query that cannot be changed, which is equal to another if
+	 * their queries match the same attempts.
+	 */
+	public static final class Key {
+		private final long start;
+		private final long end;
+		private final Set<String> wordLists;
+		private final Set<AnswerStatus> answerStatuses;
+		private final Set<String> words;
+
+		private Key(StatisticsQuery query) {
+			start = query.start;
+			end = query.end;
+			wordLists = query.wordLists == null ? null : Set.copyOf(query.wordLists);
+			answerStatuses = query.answerStatuses == null ? null : Set.copyOf(query.answerStatuses);
+			words = query.words == null ? null : Set.copyOf(query.words);
+		}
+
+		/**
+		 * Returns true when the input object is a snapshot of a query matching the
+		 * same attempts, and false otherwise.
+		 */
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			} else if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) object;
+			return start == key.start && end == key.end && Objects.equals(wordLists, key.wordLists)
+					&& Objects.equals(answerStatuses, key.answerStatuses) && Objects.equals(words, key.words);
+		}
+
+		/**
+		 * Returns the hash code of the snapshot, dependent upon every part of the
+		 * query.
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hash(start, end, wordLists, answerStatuses, words);
+		}
+	}
+}
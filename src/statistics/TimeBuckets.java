@@ -0,0 +1,216 @@
+package statistics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+import enums.BucketSize;
+
+/**
+ * Divides a window of time into consecutive buckets, such as the hours of a day
+ * or the days of a week, in a time zone. The start of every bucket is worked
+ * out once, as an epoch second, so that each attempt can be placed into its
+ * bucket by comparing its epoch second alone.
+ *
+ * Buckets follow the local time of the zone, so a day that a change to
+ * daylight saving time shortens has an empty hour, and a day that it lengthens
+ * has an hour that covers two hours.
+ */
+public class TimeBuckets implements BucketLabels {
+	private static final DateTimeFormatter MINUTE_FORMATTER = DateTimeFormatter.ofPattern("H:mm", Locale.ENGLISH);
+	private static final DateTimeFormatter DAY_MINUTE_FORMATTER = DateTimeFormatter.ofPattern("d MMM H:mm",
+			Locale.ENGLISH);
+	private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("d MMM", Locale.ENGLISH);
+	private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("d MMM H:00",
+			Locale.ENGLISH);
+	private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMM yyyy",
+			Locale.ENGLISH);
+
+	private BucketSize bucketSize;
+	private long[] boundaries;
+	private String[] labels;
+
+	/**
+	 * Creates a TimeBuckets object.
+	 *
+	 * @param bucketSize  A BucketSize enumeration for how long each bucket covers.
+	 * @param start       A LocalDateTime object containing the start of the first
+	 *                    bucket in local time.
+	 * @param bucketCount An integer containing the number of buckets.
+	 * @param zone        A ZoneId object for the time zone of the local times.
+	 */
+	public TimeBuckets(BucketSize bucketSize, LocalDateTime start, int bucketCount, ZoneId zone) {
+		this.bucketSize = bucketSize;
+		boundaries = new long[bucketCount + 1];
+		labels = new String[bucketCount];
+		LocalDateTime bucketStart = start;
+		for (int i = 0; i < bucketCount; i++) {
+			boundaries[i] = bucketStart.atZone(zone).toEpochSecond();
+			labels[i] = createLabel(bucketStart, bucketCount);
+			bucketStart = getNextBucketStart(bucketStart);
+		}
+		boundaries[bucketCount] = bucketStart.atZone(zone).toEpochSecond();
+	}
+
+	/**
+	 * Creates a TimeBuckets object for each hour of a day.
+	 *
+	 * @param date A LocalDate object containing the day.
+	 * @param zone A ZoneId object for the time zone of the day.
+	 * @return A TimeBuckets object with 24 hourly buckets.
+	 */
+	public static TimeBuckets forDay(LocalDate date, ZoneId zone) {
+		return new TimeBuckets(BucketSize.HOUR, date.atStartOfDay(), 24, zone);
+	}
+
+	/**
+	 * Creates a TimeBuckets object for each day of the week, from Monday to Sunday,
+	 * that a day falls in.
+	 *
+	 * @param date A LocalDate object containing a day in the week.
+	 * @param zone A ZoneId object for the time zone of the week.
+	 * @return A TimeBuckets object with 7 daily buckets.
+	 */
+	public static TimeBuckets forWeek(LocalDate date, ZoneId zone) {
+		LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		return new TimeBuckets(BucketSize.DAY, monday.atStartOfDay(), 7, zone);
+	}
+
+	/**
+	 * Creates a TimeBuckets object for each day of a number of days, ending with a
+	 * given day.
+	 *
+	 * @param lastDay A LocalDate object containing the last day.
+	 * @param days    An integer containing the number of days.
+	 * @param zone    A ZoneId object for the time zone of the days.
+	 * @return A TimeBuckets object with a daily bucket for each day.
+	 */
+	public static TimeBuckets forLastDays(LocalDate lastDay, int days, ZoneId zone) {
+		return new TimeBuckets(BucketSize.DAY, lastDay.minusDays(days - 1).atStartOfDay(), days, zone);
+	}
+
+	/**
+	 * Creates a TimeBuckets object for each month of a number of months, ending
+	 * with the month that a day falls in.
+	 *
+	 * @param date   A LocalDate object containing a day in the last month.
+	 * @param months An integer containing the number of months.
+	 * @param zone   A ZoneId object for the time zone of the months.
+	 * @return A TimeBuckets object with a monthly bucket for each month.
+	 */
+	public static TimeBuckets forLastMonths(LocalDate date, int months, ZoneId zone) {
+		LocalDate firstMonth = date.withDayOfMonth(1).minusMonths(months - 1);
+		return new TimeBuckets(BucketSize.MONTH, firstMonth.atStartOfDay(), months, zone);
+	}
+
+	public BucketSize getBucketSize() {
+		return bucketSize;
+	}
+
+	@Override
+	public int getBucketCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Returns the epoch second at which the first bucket starts.
+	 */
+	public long getStart() {
+		return boundaries[0];
+	}
+
+	/**
+	 * Returns the epoch second at which the last bucket ends.
+	 */
+	public long getEnd() {
+		return boundaries[boundaries.length - 1];
+	}
+
+	/**
+	 * Returns the epoch second at which a bucket starts, where the bucket after
+	 * the last one starts at the end of the window.
+	 */
+	public long getBucketStart(int bucketIndex) {
+		return boundaries[bucketIndex];
+	}
+
+	@Override
+	public String getLabel(int bucketIndex) {
+		return labels[bucketIndex];
+	}
+
+	/**
+	 * Finds the bucket that an epoch second falls in.
+	 *
+	 * @param epochSecond A long containing the epoch second.
+	 * @return An integer containing the position of the bucket, or -1 if the epoch
+	 *         second is outside the window.
+	 */
+	public int getBucketIndex(long epochSecond) {
+		if (epochSecond < boundaries[0] || epochSecond >= boundaries[boundaries.length - 1]) {
+			return -1;
+		}
+		int low = 0;
+		int high = boundaries.length - 2;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (boundaries[middle] <= epochSecond) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	private LocalDateTime getNextBucketStart(LocalDateTime bucketStart) {
+		switch (bucketSize) {
+		case MINUTE:
+			return bucketStart.plusMinutes(1);
+		case HOUR:
+			return bucketStart.plusHours(1);
+		case DAY:
+			return bucketStart.plusDays(1);
+		case WEEK:
+			return bucketStart.plusWeeks(1);
+		default:
+			return bucketStart.plusMonths(1);
+		}
+	}
+
+	/**
+	 * Names a bucket, keeping names short where there are few enough buckets for
+	 * the short names not to repeat.
+	 */
+	private String createLabel(LocalDateTime bucketStart, int bucketCount) {
+		switch (bucketSize) {
+		case MINUTE:
+			if (bucketCount <= 24 * 60) {
+				return bucketStart.format(MINUTE_FORMATTER);
+			}
+			return bucketStart.format(DAY_MINUTE_FORMATTER);
+		case HOUR:
+			if (bucketCount <= 24) {
+				return bucketStart.getHour() + ":00";
+			}
+			return bucketStart.format(HOUR_FORMATTER);
+		case DAY:
+			if (bucketCount <= 7) {
+				return bucketStart.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+			}
+			return bucketStart.format(DAY_FORMATTER);
+		case WEEK:
+			return bucketStart.format(DAY_FORMATTER);
+		default:
+			if (bucketCount <= 12) {
+				return bucketStart.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+			}
+			return bucketStart.format(MONTH_FORMATTER);
+		}
+	}
+}
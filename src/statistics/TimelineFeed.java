@@ -2,22 +2,65 @@ package statistics;
 
 import java.util.ArrayList;
 
-public class TimelineFeed extends StringIntegerStore {
+/**
+ * Holds a count for each bucket of a timeline. Counts are kept in an array
+ * indexed by bucket, and the names of the buckets come from a separate
+ * BucketLabels object, so counting an attempt only needs its bucket.
+ */
+public class TimelineFeed {
+	private BucketLabels bucketLabels;
+	private int[] counts;
 
-	public void addData(String category, int value) {
-		addValueToKey(category, value);
+	public TimelineFeed(BucketLabels bucketLabels) {
+		this.bucketLabels = bucketLabels;
+		counts = new int[bucketLabels.getBucketCount()];
+	}
+
+	public void addData(int bucketIndex, int value) {
+		counts[bucketIndex] += value;
+	}
+
+	public int getData(int bucketIndex) {
+		return counts[bucketIndex];
+	}
+
+	public int getBucketCount() {
+		return counts.length;
+	}
+
+	public String getLabel(int bucketIndex) {
+		return bucketLabels.getLabel(bucketIndex);
 	}
 
 	public ArrayList<String> getCategories() {
-		ArrayList<String> categories = new ArrayList<>();
-		for (String category : store.keySet()) {
-			categories.add(category);
+		ArrayList<String> categories = new ArrayList<>(counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			categories.add(bucketLabels.getLabel(i));
 		}
 		return categories;
-
 	}
 
 	public int getDataOnExistingCategory(String category) {
-		return store.get(category);
+		for (int i = 0; i < counts.length; i++) {
+			if (bucketLabels.getLabel(i).equals(category)) {
+				return counts[i];
+			}
+		}
+		throw new IllegalArgumentException("No bucket is named " + category);
+	}
+
+	/**
+	 * Adds the counts of another timeline over the same buckets to this one.
+	 *
+	 * @param other The TimelineFeed object to add.
+	 */
+	public void merge(TimelineFeed other) {
+		if (other.counts.length != counts.length) {
+			throw new IllegalArgumentException(
+					"Cannot merge a timeline of " + other.counts.length + " buckets into " + counts.length);
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
 	}
 }
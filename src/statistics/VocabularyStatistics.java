@@ -1,30 +1,82 @@
 package statistics;
 
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 
+/**
+ * Holds how many times each word of a topic has been mastered, faulted and
+ * failed, and when it was last attempted.
+ *
+ * Each word is given a slot, in the order words are first counted, and its
+ * counts are kept at that slot in arrays of primitives. Slots are found through
+ * an open addressing table, so that counting an attempt hashes the word once
+ * and allocates nothing once the word has a slot.
+ *
+ * The hash of each word is kept with its slot, so a slot of another word is
+ * passed over by comparing ints. Words read from the statistics are the names
+ * shared by the dictionary, so the word in a matching slot is usually the same
+ * object and is found equal without comparing characters.
+ */
 public class VocabularyStatistics {
-	private HashSet<String> words;
-	private HashMap<String, Integer> masteredStatistics;
-	private HashMap<String, Integer> faultedStatistics;
-	private HashMap<String, Integer> failedStatistics;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int NO_SLOT = -1;
+
+	// Slot of each word plus one, placed by hash with linear probing, 0 if empty
+	private int[] table;
+	private String[] words;
+	private int[] hashes;
+	private int[] masteredStatistics;
+	private int[] faultedStatistics;
+	private int[] failedStatistics;
+	private long[] lastAttempts;
+	private int size;
 
 	public VocabularyStatistics() {
-		words = new HashSet<>();
-		masteredStatistics = new HashMap<>();
-		faultedStatistics = new HashMap<>();
-		failedStatistics = new HashMap<>();
+		table = new int[INITIAL_CAPACITY * 2];
+		words = new String[INITIAL_CAPACITY];
+		hashes = new int[INITIAL_CAPACITY];
+		masteredStatistics = new int[INITIAL_CAPACITY];
+		faultedStatistics = new int[INITIAL_CAPACITY];
+		failedStatistics = new int[INITIAL_CAPACITY];
+		lastAttempts = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Creates a VocabularyStatistics object holding the same counts as another,
+	 * which can then be changed without changing the other.
+	 *
+	 * @param other The VocabularyStatistics object to copy.
+	 */
+	public VocabularyStatistics(VocabularyStatistics other) {
+		table = other.table.clone();
+		words = other.words.clone();
+		hashes = other.hashes.clone();
+		masteredStatistics = other.masteredStatistics.clone();
+		faultedStatistics = other.faultedStatistics.clone();
+		failedStatistics = other.failedStatistics.clone();
+		lastAttempts = other.lastAttempts.clone();
+		size = other.size;
 	}
 
 	public ArrayList<String> getWords() {
-		ArrayList<String> wordList = new ArrayList<>();
-		for (String word : words) {
-			wordList.add(word);
+		ArrayList<String> wordList = new ArrayList<>(size);
+		for (int slot = 0; slot < size; slot++) {
+			wordList.add(words[slot]);
 		}
 		return wordList;
 	}
 
+	/**
+	 * Determines whether a word has been counted.
+	 *
+	 * @param word A String containing the word.
+	 * @return A boolean that is true if the word has a slot.
+	 */
+	public boolean hasWord(String word) {
+		return findSlot(word) != NO_SLOT;
+	}
+
 	public int getMastered(String word) {
 		return getSpecificStatistic(word, masteredStatistics);
 	}
@@ -37,42 +89,152 @@ public class VocabularyStatistics {
 		return getSpecificStatistic(word, failedStatistics);
 	}
 
-	private int getSpecificStatistic(String word, HashMap<String, Integer> statistics) {
-		if (statistics.containsKey(word)) {
-			return statistics.get(word);
-		} else {
+	private int getSpecificStatistic(String word, int[] statistics) {
+		int slot = findSlot(word);
+		if (slot == NO_SLOT) {
 			return 0;
 		}
+		return statistics[slot];
 	}
 
 	public void incrementMastered(String word) {
-		incrementSpecificStatistic(word, masteredStatistics);
+		addMastered(word, 1);
 	}
 
 	public void incrementFaulted(String word) {
-		incrementSpecificStatistic(word, faultedStatistics);
+		addFaulted(word, 1);
 	}
 
 	public void incrementFailed(String word) {
-		incrementSpecificStatistic(word, failedStatistics);
+		addFailed(word, 1);
+	}
+
+	public void addMastered(String word, int amount) {
+		if (amount != 0) {
+			int slot = findOrAddSlot(word);
+			masteredStatistics[slot] += amount;
+		}
 	}
 
-	private void incrementSpecificStatistic(String word, HashMap<String, Integer> statistics) {
-		words.add(word);
-		if (statistics.containsKey(word)) {
-			addToExistingStatisticsForWord(word, statistics);
-		} else {
-			createNewStatisticsForWord(word, statistics);
+	public void addFaulted(String word, int amount) {
+		if (amount != 0) {
+			int slot = findOrAddSlot(word);
+			faultedStatistics[slot] += amount;
+		}
+	}
+
+	public void addFailed(String word, int amount) {
+		if (amount != 0) {
+			int slot = findOrAddSlot(word);
+			failedStatistics[slot] += amount;
+		}
+	}
+
+	public void setLastAttempt(String word, long epochSecond) {
+		int slot = findSlot(word);
+		if (slot != NO_SLOT) {
+			lastAttempts[slot] = epochSecond;
+		}
+	}
+
+	/**
+	 * Returns when a word was last attempted.
+	 *
+	 * @param word A String containing the word.
+	 * @return An Instant object of the latest attempt, or null if it is not known.
+	 */
+	public Instant getLastAttempt(String word) {
+		int slot = findSlot(word);
+		if (slot == NO_SLOT || lastAttempts[slot] == Long.MIN_VALUE) {
+			return null;
+		}
+		return Instant.ofEpochSecond(lastAttempts[slot]);
+	}
+
+	/**
+	 * Helper method to find the slot of a word.
+	 *
+	 * @return An integer of the slot, or NO_SLOT if the word has not been counted.
+	 */
+	private int findSlot(String word) {
+		int hash = hash(word);
+		int mask = table.length - 1;
+		for (int position = hash & mask;; position = (position + 1) & mask) {
+			int entry = table[position];
+			if (entry == 0) {
+				return NO_SLOT;
+			}
+			if (isWordAt(entry - 1, word, hash)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Helper method to find the slot of a word, giving it the next slot if it has
+	 * not been counted yet.
+	 */
+	private int findOrAddSlot(String word) {
+		int hash = hash(word);
+		int mask = table.length - 1;
+		int position = hash & mask;
+		for (int entry = table[position]; entry != 0; entry = table[position]) {
+			if (isWordAt(entry - 1, word, hash)) {
+				return entry - 1;
+			}
+			position = (position + 1) & mask;
+		}
+
+		if (size == words.length) {
+			grow();
+			return findOrAddSlot(word);
+		}
+		int slot = size++;
+		words[slot] = word;
+		hashes[slot] = hash;
+		lastAttempts[slot] = Long.MIN_VALUE;
+		table[position] = slot + 1;
+		return slot;
+	}
+
+	/**
+	 * Helper method to double the number of slots, keeping the table at most half
+	 * full.
+	 */
+	private void grow() {
+		int capacity = words.length * 2;
+		words = Arrays.copyOf(words, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		masteredStatistics = Arrays.copyOf(masteredStatistics, capacity);
+		faultedStatistics = Arrays.copyOf(faultedStatistics, capacity);
+		failedStatistics = Arrays.copyOf(failedStatistics, capacity);
+		lastAttempts = Arrays.copyOf(lastAttempts, capacity);
+
+		table = new int[capacity * 2];
+		int mask = table.length - 1;
+		for (int slot = 0; slot < size; slot++) {
+			int position = hashes[slot] & mask;
+			while (table[position] != 0) {
+				position = (position + 1) & mask;
+			}
+			table[position] = slot + 1;
 		}
 	}
 
-	private void addToExistingStatisticsForWord(String word, HashMap<String, Integer> statistics) {
-		int wordStatistic = statistics.get(word);
-		wordStatistic++;
-		statistics.put(word, wordStatistic);
+	/**
+	 * Helper method to determine whether a slot holds a word, comparing the hashes
+	 * before the words.
+	 */
+	private boolean isWordAt(int slot, String word, int hash) {
+		return hashes[slot] == hash && (words[slot] == word || words[slot].equals(word));
 	}
 
-	private void createNewStatisticsForWord(String word, HashMap<String, Integer> statistics) {
-		statistics.put(word, 1);
+	/**
+	 * Helper method to spread the hash code of a word, so that words with similar
+	 * hash codes do not probe the same run of the table.
+	 */
+	private static int hash(String word) {
+		int hash = word.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
 	}
 }
@@ -0,0 +1,113 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.io.File;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.StatisticsAggregates;
+import statistics.StatisticsQuery;
+
+/**
+ * Makes a segment impossible to write, by putting a directory where it belongs,
+ * and checks that attempts are neither lost nor recorded twice: a batch that
+ * fails part way reports how many of its attempts were written, and the
+ * StatisticsAppender tries again only the attempts it could not write, once
+ * the segment can be written.
+ */
+public class StatisticsAppenderTest {
+	private static final String TOPIC = "Colours";
+	private static final long RETRY_TIMEOUT_MILLIS = 10000;
+
+	public static void main(String[] args) throws Exception {
+		String filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			run(filepath);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		StatisticsTestSupport.pass(StatisticsAppenderTest.class);
+	}
+
+	private static void run(String filepath) throws InterruptedException {
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).minusDays(10).withHour(10).withMinute(0)
+				.withSecond(0).withNano(0);
+		File segments = new File(filepath + ".segments");
+
+		// A batch that fails on its second day keeps the attempts of its first
+		StatisticsIO statisticsIO = new StatisticsIO(filepath);
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			attempts.add(new SpellingAttempt(start.plusMinutes(i), "whero", TOPIC, AnswerStatus.MASTERED, 1, 100));
+		}
+		for (int i = 0; i < 7; i++) {
+			attempts.add(new SpellingAttempt(start.plusDays(1).plusMinutes(i), "mangu", TOPIC, AnswerStatus.FAILED, 0,
+					100));
+		}
+		File blocker = getSegmentFile(segments, start.plusDays(1));
+		check(blocker.mkdirs(), "The segment could not be blocked");
+		check(statisticsIO.recordWordSpellings(attempts) == 5, "The batch did not report the attempts written");
+		check(blocker.delete(), "The segment could not be unblocked");
+		checkCounts(filepath, "whero 5");
+
+		// The appender keeps the attempts it could not write and tries them again
+		StatisticsAppender appender = StatisticsAppender.getInstance(filepath);
+		blocker = getSegmentFile(segments, start.plusDays(2));
+		check(blocker.mkdirs(), "The segment could not be blocked");
+		for (int i = 0; i < 3; i++) {
+			appender.recordWordSpelling(start.plusDays(1).plusHours(1).plusMinutes(i), "kowhai", TOPIC,
+					AnswerStatus.FAULTED, 1);
+		}
+		for (int i = 0; i < 4; i++) {
+			appender.recordWordSpelling(start.plusDays(2).plusMinutes(i), "ma", TOPIC, AnswerStatus.FAULTED, 1);
+		}
+		appender.flush();
+		checkCounts(filepath, "kowhai 3 whero 5");
+
+		check(blocker.delete(), "The segment could not be unblocked");
+		long deadline = System.currentTimeMillis() + RETRY_TIMEOUT_MILLIS;
+		while (countAttempts(filepath).size() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		appender.close();
+		checkCounts(filepath, "kowhai 3 ma 4 whero 5");
+
+		StatisticsAggregates totals = new StatisticsIO(filepath).getAggregates();
+		StatisticsAggregates counted = new StatisticsIO(filepath).countAttempts(null);
+		for (String word : counted.getWords(TOPIC)) {
+			for (AnswerStatus answerStatus : AnswerStatus.values()) {
+				check(totals.getWordCount(TOPIC, word, answerStatus) == counted.getWordCount(TOPIC, word,
+						answerStatus), "The running totals of " + word + " differ from a recount");
+			}
+		}
+	}
+
+	private static File getSegmentFile(File segments, OffsetDateTime dateTime) {
+		return new File(segments, dateTime.toLocalDate() + ".seg");
+	}
+
+	/**
+	 * Helper method to count the attempts recorded at each word.
+	 */
+	private static TreeMap<String, Integer> countAttempts(String filepath) {
+		TreeMap<String, Integer> counts = new TreeMap<>();
+		new StatisticsIO(filepath).query(new StatisticsQuery(), (epochSecond, offsetSeconds, word, wordList,
+				answerStatus, count, latencyMillis) -> counts.merge(word, count, Integer::sum));
+		return counts;
+	}
+
+	private static void checkCounts(String filepath, String expected) {
+		StringBuilder description = new StringBuilder();
+		for (Map.Entry<String, Integer> count : countAttempts(filepath).entrySet()) {
+			description.append(description.length() == 0 ? "" : " ").append(count.getKey()).append(' ')
+					.append(count.getValue());
+		}
+		check(description.toString().equals(expected), "Recorded " + description + " rather than " + expected);
+	}
+}
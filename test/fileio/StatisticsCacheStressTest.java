@@ -0,0 +1,160 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import enums.AnswerStatus;
+import statistics.LatencyHistogram;
+import statistics.ProportionsFeed;
+import statistics.SpellingAttempt;
+import statistics.SpellingPerformance;
+import statistics.StatisticsQuery;
+import statistics.TimeBuckets;
+import statistics.VocabularyStatistics;
+
+/**
+ * Reads from the VocabularyStatisticsCache and the StatisticsResultCache on
+ * several threads while attempts are recorded on another. Attempts are recorded
+ * in batches of the same size, so every read must see a whole number of
+ * batches, and no fewer than the read before it. Readers also change what they
+ * are given, which must not change what later readers see. Once recording
+ * stops, the caches must give the same statistics as counting every attempt
+ * again.
+ *
+ * Run it as "java fileio.StatisticsCacheStressTest 500" to record 500 batches,
+ * which is also the default.
+ */
+public class StatisticsCacheStressTest {
+	private static final int DEFAULT_BATCH_COUNT = 500;
+	private static final int BATCH_SIZE = 10;
+	private static final String TOPIC = "Topic0";
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+
+	public static void main(String[] args) throws Exception {
+		int batchCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BATCH_COUNT;
+		String filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			run(filepath, batchCount);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		StatisticsTestSupport.pass(StatisticsCacheStressTest.class);
+	}
+
+	private static void run(String filepath, int batchCount) throws InterruptedException {
+		StatisticsIO statisticsIO = new StatisticsIO(filepath);
+		LocalDate today = LocalDate.now();
+		TimeBuckets timeBuckets = TimeBuckets.forDay(today, ZoneId.systemDefault());
+		OffsetDateTime start = today.atStartOfDay(ZoneId.systemDefault()).plusHours(1).toOffsetDateTime();
+
+		AtomicBoolean isRecording = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		ArrayList<Thread> readers = new ArrayList<>();
+		readers.add(new Thread(() -> readWhileRecording(isRecording, failure, "vocabulary statistics",
+				() -> getTotal(statisticsIO.getVocabularyStatistics(TOPIC)))));
+		readers.add(new Thread(() -> readWhileRecording(isRecording, failure, "spelling performance", () -> {
+			SpellingPerformance spellingPerformance = statisticsIO.getSpellingPerformance(timeBuckets);
+			int total = getTotal(spellingPerformance.getProportionsFeed());
+			spellingPerformance.addMastered(0, 1);
+			return total;
+		})));
+		readers.add(new Thread(() -> readWhileRecording(isRecording, failure, "answer latency", () -> {
+			LatencyHistogram histogram = statisticsIO.getAnswerLatency(new StatisticsQuery().inTopics(TOPIC));
+			long total = histogram.getTotalCount();
+			histogram.recordValue(1);
+			return total;
+		})));
+		for (Thread reader : readers) {
+			reader.start();
+		}
+
+		Random random = new Random(1);
+		try {
+			for (int batch = 0; batch < batchCount && failure.get() == null; batch++) {
+				ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					attempts.add(new SpellingAttempt(start.plusSeconds(batch), "word" + random.nextInt(200), TOPIC,
+							COUNTED_STATUSES[random.nextInt(COUNTED_STATUSES.length)], 1, 100 + i));
+				}
+				check(statisticsIO.recordWordSpellings(attempts) == BATCH_SIZE, "A batch was not recorded in full");
+			}
+		} finally {
+			isRecording.set(false);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+		}
+		if (failure.get() != null) {
+			throw new AssertionError("A read while recording failed", failure.get());
+		}
+
+		long expectedTotal = (long) batchCount * BATCH_SIZE;
+		VocabularyStatistics cached = statisticsIO.getVocabularyStatistics(TOPIC);
+		VocabularyStatistics counted = statisticsIO.countAttempts(null).getVocabularyStatistics(TOPIC);
+		check(cached.getWords().equals(counted.getWords()), "The cached topic has different words");
+		for (String word : counted.getWords()) {
+			check(cached.getMastered(word) == counted.getMastered(word)
+					&& cached.getFaulted(word) == counted.getFaulted(word)
+					&& cached.getFailed(word) == counted.getFailed(word)
+					&& Objects.equals(cached.getLastAttempt(word), counted.getLastAttempt(word)),
+					"The cached statistics of " + word + " differ from a recount");
+		}
+		check(getTotal(cached) == expectedTotal, "The cached topic does not hold every attempt");
+		check(getTotal(statisticsIO.getSpellingPerformance(timeBuckets).getProportionsFeed()) == expectedTotal,
+				"The cached spelling performance does not hold every attempt");
+		check(statisticsIO.getAnswerLatency(new StatisticsQuery().inTopics(TOPIC)).getTotalCount() == expectedTotal,
+				"The cached answer latency does not hold every attempt");
+		check(statisticsIO.getVocabularyStatisticsCache().getHitCount() > 0,
+				"No vocabulary statistics were read from the cache");
+		check(statisticsIO.getResultCache().getHitCount() > 0, "No results were read from the cache");
+	}
+
+	/**
+	 * Helper method to read a total over and over until recording stops, keeping
+	 * the first failure, such as a total that is not a whole number of batches or
+	 * is less than the total read before it.
+	 */
+	private static void readWhileRecording(AtomicBoolean isRecording, AtomicReference<Throwable> failure, String name,
+			TotalReader reader) {
+		long previousTotal = 0;
+		try {
+			while (isRecording.get() && failure.get() == null) {
+				long total = reader.read();
+				check(total % BATCH_SIZE == 0, "Read " + total + " attempts of " + name + ", part of a batch");
+				check(total >= previousTotal, "Read " + total + " attempts of " + name + " after " + previousTotal);
+				previousTotal = total;
+			}
+		} catch (Throwable e) {
+			failure.compareAndSet(null, e);
+		}
+	}
+
+	private static int getTotal(VocabularyStatistics vocabularyStatistics) {
+		int total = 0;
+		for (String word : vocabularyStatistics.getWords()) {
+			total += vocabularyStatistics.getMastered(word) + vocabularyStatistics.getFaulted(word)
+					+ vocabularyStatistics.getFailed(word);
+		}
+		return total;
+	}
+
+	private static int getTotal(ProportionsFeed proportionsFeed) {
+		return proportionsFeed.getMastered() + proportionsFeed.getFaulted() + proportionsFeed.getFailed();
+	}
+
+	/**
+	 * Reads a total from one of the caches.
+	 */
+	private interface TotalReader {
+		long read();
+	}
+}
@@ -0,0 +1,136 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.SpellingPerformance;
+import statistics.StatisticsQuery;
+import statistics.TimeBuckets;
+import statistics.TimelineFeed;
+import statistics.VocabularyStatistics;
+
+/**
+ * Compacts the older days of a statistics file into daily rollups, and checks
+ * that nothing that compaction promises to keep has changed: the attempts of
+ * each day, word, topic and answer status, the running totals, and the daily
+ * timeline. Compacting again must find nothing left to compact.
+ */
+public class StatisticsCompactionTest {
+	private static final String[] TOPICS = { "Colours", "Work" };
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+	private static final int RETENTION_DAYS = 10;
+	private static final int TIMELINE_DAYS = 60;
+
+	public static void main(String[] args) throws Exception {
+		String filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			run(filepath);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		StatisticsTestSupport.pass(StatisticsCompactionTest.class);
+	}
+
+	private static void run(String filepath) {
+		StatisticsIO statisticsIO = new StatisticsIO(filepath);
+		ZoneId zone = ZoneId.systemDefault();
+		LocalDate today = LocalDate.now(zone);
+		Random random = new Random(1);
+		for (int daysAgo = 40; daysAgo >= 1; daysAgo--) {
+			OffsetDateTime start = today.minusDays(daysAgo).atTime(9, 0).atZone(zone).toOffsetDateTime();
+			ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+			for (int i = 0; i < 30; i++) {
+				attempts.add(new SpellingAttempt(start.plusMinutes(i * 13), "word " + random.nextInt(12),
+						TOPICS[random.nextInt(TOPICS.length)], COUNTED_STATUSES[random.nextInt(3)], 1, 500 + i));
+			}
+			statisticsIO.recordWordSpellings(attempts);
+		}
+		TreeMap<String, Integer> countsBefore = countByDay(statisticsIO, zone);
+		String totalsBefore = describeTotals(statisticsIO);
+		TimeBuckets timeBuckets = TimeBuckets.forLastDays(today, TIMELINE_DAYS, zone);
+		String timelineBefore = describe(statisticsIO.getSpellingPerformance(timeBuckets));
+
+		int compactedCount = statisticsIO.compactStatistics(RETENTION_DAYS);
+		check(compactedCount >= 40 - RETENTION_DAYS - 1, "Only " + compactedCount + " days were compacted");
+		String oldDay = today.minusDays(35).toString();
+		check(!Files.exists(Paths.get(filepath + ".segments", oldDay + ".seg")),
+				"The attempts of a compacted day were kept");
+		check(Files.exists(Paths.get(filepath + ".segments", oldDay + ".sum")),
+				"A compacted day has no rollups");
+
+		check(countByDay(statisticsIO, zone).equals(countsBefore), "Compaction changed the attempts of a day");
+		check(describeTotals(statisticsIO).equals(totalsBefore), "Compaction changed the running totals");
+		check(describe(statisticsIO.getSpellingPerformance(timeBuckets)).equals(timelineBefore),
+				"Compaction changed the daily timeline");
+		check(describeCountedTotals(statisticsIO).equals(totalsBefore),
+				"Counting the compacted statistics again gives different totals");
+
+		check(statisticsIO.compactStatistics(RETENTION_DAYS) == 0, "Compacting again compacted more days");
+		check(countByDay(statisticsIO, zone).equals(countsBefore), "Compacting again changed the attempts");
+	}
+
+	/**
+	 * Helper method to count the attempts of each day in a time zone, word, topic
+	 * and answer status.
+	 */
+	private static TreeMap<String, Integer> countByDay(StatisticsIO statisticsIO, ZoneId zone) {
+		TreeMap<String, Integer> counts = new TreeMap<>();
+		statisticsIO.query(new StatisticsQuery(), (epochSecond, offsetSeconds, word, wordList, answerStatus, count,
+				latencyMillis) -> {
+			LocalDate day = Instant.ofEpochSecond(epochSecond).atZone(zone).toLocalDate();
+			counts.merge(day + " " + wordList + " " + word + " " + answerStatus, count, Integer::sum);
+		});
+		return counts;
+	}
+
+	private static String describeTotals(StatisticsIO statisticsIO) {
+		StringBuilder description = new StringBuilder();
+		for (String wordList : TOPICS) {
+			description.append(describe(statisticsIO.getVocabularyStatistics(wordList)));
+		}
+		return description.toString();
+	}
+
+	private static String describeCountedTotals(StatisticsIO statisticsIO) {
+		StringBuilder description = new StringBuilder();
+		for (String wordList : TOPICS) {
+			description.append(describe(statisticsIO.countAttempts(null).getVocabularyStatistics(wordList)));
+		}
+		return description.toString();
+	}
+
+	private static String describe(VocabularyStatistics vocabularyStatistics) {
+		StringBuilder description = new StringBuilder();
+		for (String word : vocabularyStatistics.getWords()) {
+			description.append(word).append(' ').append(vocabularyStatistics.getMastered(word)).append(' ')
+					.append(vocabularyStatistics.getFaulted(word)).append(' ')
+					.append(vocabularyStatistics.getFailed(word)).append('\n');
+		}
+		return description.toString();
+	}
+
+	private static String describe(SpellingPerformance spellingPerformance) {
+		StringBuilder description = new StringBuilder();
+		TimelineFeed[] timelineFeeds = { spellingPerformance.getMasteredTimelineFeed(),
+				spellingPerformance.getFaultedTimelineFeed(), spellingPerformance.getFailedTimelineFeed() };
+		for (TimelineFeed timelineFeed : timelineFeeds) {
+			for (int i = 0; i < timelineFeed.getBucketCount(); i++) {
+				description.append(timelineFeed.getData(i)).append(' ');
+			}
+			description.append('\n');
+		}
+		return description.toString();
+	}
+}
@@ -0,0 +1,150 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.StatisticsQuery;
+
+/**
+ * Writes spelling attempts in the binary format of StatisticsLogIO and reads
+ * them back, both field by field from a single file and through StatisticsIO,
+ * and checks that a statistics file in the older text format reads the same
+ * once converted.
+ */
+public class StatisticsLogIOTest {
+
+	public static void main(String[] args) throws Exception {
+		String filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			testRecordFields(filepath + ".log");
+			testStatisticsRoundTrip(filepath);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			testTextConversion(filepath);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		StatisticsTestSupport.pass(StatisticsLogIOTest.class);
+	}
+
+	/**
+	 * Checks that every field of an attempt reads back as it was written, at the
+	 * edges of what each field holds, and that the file is laid out as described.
+	 */
+	private static void testRecordFields(String filepath) throws IOException {
+		StatisticsLogIO logIO = new StatisticsLogIO(filepath);
+		OffsetDateTime[] dateTimes = { OffsetDateTime.of(2021, 10, 18, 13, 5, 42, 0, ZoneOffset.ofHours(13)),
+				OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+				OffsetDateTime.of(2038, 1, 19, 3, 14, 8, 0, ZoneOffset.ofHoursMinutes(-9, -30)),
+				OffsetDateTime.of(2021, 3, 4, 5, 6, 7, 0, ZoneOffset.ofHoursMinutes(5, 45)) };
+		int[] wordIds = { 0, 1, 70000, Integer.MAX_VALUE };
+		int[] topicIds = { 0, 1, 300, Short.MAX_VALUE };
+		AnswerStatus[] answerStatuses = AnswerStatus.values();
+		int[] scores = { 0, 150, -1, Integer.MAX_VALUE };
+		int[] latencies = { SpellingAttempt.UNKNOWN_LATENCY, 0, 1234, Integer.MAX_VALUE };
+		for (int i = 0; i < dateTimes.length; i++) {
+			logIO.appendRecord(dateTimes[i], wordIds[i], topicIds[i], answerStatuses[i % answerStatuses.length],
+					scores[i], latencies[i]);
+		}
+
+		check(logIO.getRecordCount() == dateTimes.length, "The file does not hold every attempt");
+		check(logIO.getFileLength() == StatisticsLogIO.HEADER_SIZE + dateTimes.length * StatisticsLogIO.RECORD_SIZE,
+				"The file is not a header and whole attempts");
+		ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filepath)));
+		check(header.getInt(0) == StatisticsLogIO.MAGIC && header.getInt(4) == StatisticsLogIO.VERSION,
+				"The file does not start with the header");
+		check(!logIO.isTextFormat(), "The binary file is taken for text");
+		check(logIO.getLastEpochSecond() == dateTimes[dateTimes.length - 1].toEpochSecond(),
+				"The last attempt has the wrong time");
+
+		StatisticsRecords records = logIO.mapRecords();
+		check(records.size() == dateTimes.length, "The mapped file does not hold every attempt");
+		check(records.getEndFilePosition() == logIO.getFileLength(), "The mapped attempts end before the file");
+		for (int i = 0; i < records.size(); i++) {
+			check(records.isIntact(i), "Attempt " + i + " does not match its checksum");
+			check(records.getDateTime(i).equals(dateTimes[i]), "Attempt " + i + " has the wrong time");
+			check(records.getWordId(i) == wordIds[i], "Attempt " + i + " has the wrong word");
+			check(records.getTopicId(i) == topicIds[i], "Attempt " + i + " has the wrong topic");
+			check(records.getAnswerStatus(i) == answerStatuses[i % answerStatuses.length],
+					"Attempt " + i + " has the wrong answer status");
+			check(records.getScore(i) == scores[i], "Attempt " + i + " has the wrong score");
+			check(records.getLatencyMillis(i) == latencies[i], "Attempt " + i + " has the wrong latency");
+		}
+	}
+
+	/**
+	 * Checks that attempts recorded through StatisticsIO are read back the same,
+	 * words with spaces included, by a StatisticsIO opened afterwards.
+	 */
+	private static void testStatisticsRoundTrip(String filepath) {
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.ofHours(13)).minusDays(3).withNano(0);
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		attempts.add(new SpellingAttempt(start, "whero", "Colours", AnswerStatus.MASTERED, 150, 900));
+		attempts.add(new SpellingAttempt(start.plusMinutes(1), "kakariki", "Colours", AnswerStatus.FAULTED, 75,
+				SpellingAttempt.UNKNOWN_LATENCY));
+		attempts.add(new SpellingAttempt(start.plusDays(1), "te mahi", "Work", AnswerStatus.FAILED, 0, 12000));
+		attempts.add(new SpellingAttempt(start.plusDays(2), "whero", "Colours", AnswerStatus.INCORRECT, 0, 300));
+		new StatisticsIO(filepath).recordWordSpellings(attempts);
+
+		List<String> read = readAttempts(new StatisticsIO(filepath));
+		List<String> expected = new ArrayList<>();
+		for (SpellingAttempt attempt : attempts) {
+			expected.add(describe(attempt.getDateTime().toEpochSecond(), attempt.getDateTime().getOffset()
+					.getTotalSeconds(), attempt.getWord().replace(' ', '-'), attempt.getWordList(),
+					attempt.getAnswerStatus(), attempt.getLatencyMillis()));
+		}
+		check(read.equals(expected), "Attempts read back as " + read + " rather than " + expected);
+	}
+
+	/**
+	 * Checks that a statistics file in the older text format is converted to
+	 * segments that hold the same attempts.
+	 */
+	private static void testTextConversion(String filepath) throws IOException {
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.ofHours(13)).minusDays(2).withNano(0);
+		List<String> lines = Arrays.asList(start + " whero Colours MASTERED 150",
+				start.plusHours(1) + " kowhai Colours FAULTED 75", start.plusDays(1) + " mahi Work FAILED 0");
+		Files.write(Paths.get(filepath), lines);
+
+		List<String> read = readAttempts(new StatisticsIO(filepath));
+		List<String> expected = Arrays.asList(
+				describe(start.toEpochSecond(), 13 * 3600, "whero", "Colours", AnswerStatus.MASTERED,
+						SpellingAttempt.UNKNOWN_LATENCY),
+				describe(start.plusHours(1).toEpochSecond(), 13 * 3600, "kowhai", "Colours", AnswerStatus.FAULTED,
+						SpellingAttempt.UNKNOWN_LATENCY),
+				describe(start.plusDays(1).toEpochSecond(), 13 * 3600, "mahi", "Work", AnswerStatus.FAILED,
+						SpellingAttempt.UNKNOWN_LATENCY));
+		check(read.equals(expected), "Converted attempts read back as " + read + " rather than " + expected);
+	}
+
+	private static List<String> readAttempts(StatisticsIO statisticsIO) {
+		ArrayList<String> read = new ArrayList<>();
+		statisticsIO.query(new StatisticsQuery(), (epochSecond, offsetSeconds, word, wordList, answerStatus, count,
+				latencyMillis) -> {
+			for (int i = 0; i < count; i++) {
+				read.add(describe(epochSecond, offsetSeconds, word, wordList, answerStatus, latencyMillis));
+			}
+		});
+		return read;
+	}
+
+	private static String describe(long epochSecond, int offsetSeconds, String word, String wordList,
+			AnswerStatus answerStatus, int latencyMillis) {
+		return epochSecond + " " + offsetSeconds + " " + word + " " + wordList + " " + answerStatus + " "
+				+ latencyMillis;
+	}
+}
@@ -0,0 +1,135 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.StatisticsAggregates;
+
+/**
+ * Merges the statistics of other kiosks into one, where one kiosk holds copies
+ * of attempts already in the others and another has compacted its older days,
+ * and checks that every attempt and rollup is counted once: copies of attempts
+ * are dropped, merged attempts are kept in time order in the segment of their
+ * day, and merging the same kiosk again, rollups included, changes nothing.
+ */
+public class StatisticsMergerTest {
+	private static final AnswerStatus[] COUNTED_STATUSES = { AnswerStatus.MASTERED, AnswerStatus.FAULTED,
+			AnswerStatus.FAILED };
+	private static final int ATTEMPT_COUNT = 400;
+	private static final int COPIED_COUNT = 150;
+
+	public static void main(String[] args) throws Exception {
+		String target = StatisticsTestSupport.newStatisticsFile();
+		String compacted = StatisticsTestSupport.newStatisticsFile();
+		String copies = StatisticsTestSupport.newStatisticsFile();
+		try {
+			run(target, compacted, copies);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(target);
+			StatisticsTestSupport.deleteStatisticsFile(compacted);
+			StatisticsTestSupport.deleteStatisticsFile(copies);
+		}
+		StatisticsTestSupport.pass(StatisticsMergerTest.class);
+	}
+
+	private static void run(String target, String compacted, String copies) {
+		Random random = new Random(7);
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.ofHours(13)).minusDays(40).withNano(0);
+		List<SpellingAttempt> targetAttempts = makeAttempts(random, start, ZoneOffset.ofHours(13), "");
+		List<SpellingAttempt> compactedAttempts = makeAttempts(random, start.plusMinutes(7), ZoneOffset.ofHours(12),
+				"other ");
+		ArrayList<SpellingAttempt> copiedAttempts = new ArrayList<>(targetAttempts.subList(0, COPIED_COUNT));
+		StatisticsIO targetIO = new StatisticsIO(target);
+		targetIO.recordWordSpellings(targetAttempts);
+		StatisticsIO compactedIO = new StatisticsIO(compacted);
+		compactedIO.recordWordSpellings(compactedAttempts);
+		check(compactedIO.compactStatistics(10) > 0, "No days were compacted");
+		new StatisticsIO(copies).recordWordSpellings(copiedAttempts);
+
+		StatisticsAggregates expected = new StatisticsAggregates();
+		expected.addAll(targetIO.countAttempts(null));
+		expected.addAll(compactedIO.countAttempts(null));
+
+		StatisticsMerger merger = targetIO.mergeStatistics(Arrays.asList(compacted, copies));
+		check(merger.isComplete(), "The merge was not written in full");
+		check(merger.getDuplicateCount() == COPIED_COUNT,
+				"Dropped " + merger.getDuplicateCount() + " copies rather than " + COPIED_COUNT);
+		check(merger.getRollupCount() > 0, "No rollups were merged");
+		checkSameCounts(expected, targetIO.countAttempts(null), "Merged attempts");
+		checkSameCounts(expected, targetIO.getAggregates(), "Running totals after merging");
+		checkTimeOrder(target);
+
+		StatisticsMerger again = targetIO.mergeStatistics(Arrays.asList(compacted));
+		check(again.isComplete(), "Merging again was not written in full");
+		check(again.getDuplicateRollupCount() > 0, "Rollups merged before were not recognised");
+		check(again.getRollupCount() == merger.getRollupCount(), "Rollups merged before were merged again");
+		checkSameCounts(expected, targetIO.countAttempts(null), "Merging again");
+		checkSameCounts(expected, targetIO.getAggregates(), "Running totals after merging again");
+	}
+
+	/**
+	 * Helper method to make attempts a random few minutes apart over the past
+	 * forty days, at words whose names start with a prefix.
+	 */
+	private static List<SpellingAttempt> makeAttempts(Random random, OffsetDateTime start, ZoneOffset offset,
+			String prefix) {
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		OffsetDateTime dateTime = start;
+		for (int i = 0; i < ATTEMPT_COUNT; i++) {
+			dateTime = dateTime.plusSeconds(1 + random.nextInt(40 * 24 * 60 * 60 / ATTEMPT_COUNT));
+			String word = prefix + "word" + random.nextInt(30);
+			attempts.add(new SpellingAttempt(dateTime.withOffsetSameInstant(offset), word, "Topic" + random.nextInt(3),
+					COUNTED_STATUSES[random.nextInt(3)], random.nextInt(3), 100 + random.nextInt(2000)));
+		}
+		return attempts;
+	}
+
+	private static void checkSameCounts(StatisticsAggregates expected, StatisticsAggregates actual, String what) {
+		check(expected.getWordLists().equals(actual.getWordLists()), what + " have different topics");
+		for (String wordList : expected.getWordLists()) {
+			check(expected.getWords(wordList).equals(actual.getWords(wordList)), what + " have different words");
+			for (String word : expected.getWords(wordList)) {
+				for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+					check(expected.getWordCount(wordList, word, answerStatus) == actual.getWordCount(wordList, word,
+							answerStatus), what + " count " + word + " " + answerStatus + " differently");
+				}
+			}
+		}
+		for (long day : expected.getDays()) {
+			for (AnswerStatus answerStatus : COUNTED_STATUSES) {
+				check(expected.getDayCount(day, answerStatus) == actual.getDayCount(day, answerStatus),
+						what + " count day " + day + " differently");
+			}
+		}
+	}
+
+	/**
+	 * Helper method to check that the attempts in the segments of a statistics
+	 * file are in time order, each in the segment of its own day.
+	 */
+	private static void checkTimeOrder(String filepath) {
+		StatisticsSegmentsIO segmentsIO = new StatisticsSegmentsIO(filepath + ".segments");
+		long previous = Long.MIN_VALUE;
+		for (String day : segmentsIO.getSegmentDays()) {
+			StatisticsRecords records = segmentsIO.mapSegment(day);
+			for (int i = 0; i < records.size(); i++) {
+				long epochSecond = records.getEpochSecond(i);
+				check(epochSecond >= previous, "Merged attempts are out of time order");
+				check(StatisticsSegmentsIO.getSegmentDay(epochSecond).equals(day),
+						"A merged attempt is in the segment of another day");
+				previous = epochSecond;
+			}
+		}
+		check(Files.exists(Paths.get(filepath + ".segments", "merged")), "The rollups merged were not listed");
+	}
+}
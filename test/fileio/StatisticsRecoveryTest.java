@@ -0,0 +1,126 @@
+package fileio;
+
+import static fileio.StatisticsTestSupport.check;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+import enums.AnswerStatus;
+import statistics.SpellingAttempt;
+import statistics.StatisticsQuery;
+import statistics.VocabularyStatistics;
+
+/**
+ * Leaves the statistics files as they would be if the computer lost power part
+ * way through writing them, and checks that recoverStatistics puts them right:
+ * an attempt only partly written at the end of a segment is removed, an attempt
+ * that fails its checksum is set aside byte for byte in the quarantine file of
+ * its day, lines only partly written at the end of the dictionary and the
+ * manifest are removed, and the running totals match a recount afterwards.
+ */
+public class StatisticsRecoveryTest {
+	private static final String TOPIC = "Colours";
+	private static final String[] WORDS = { "whero", "kakariki", "kowhai", "mangu", "ma" };
+
+	public static void main(String[] args) throws Exception {
+		String filepath = StatisticsTestSupport.newStatisticsFile();
+		try {
+			run(filepath);
+		} finally {
+			StatisticsTestSupport.deleteStatisticsFile(filepath);
+		}
+		StatisticsTestSupport.pass(StatisticsRecoveryTest.class);
+	}
+
+	private static void run(String filepath) throws IOException {
+		StatisticsIO statisticsIO = new StatisticsIO(filepath);
+		OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).minusDays(1).withHour(12).withMinute(0)
+				.withSecond(0).withNano(0);
+		String day = start.toLocalDate().toString();
+		Path segment = Paths.get(filepath + ".segments", day + ".seg");
+		Path quarantine = Paths.get(filepath + ".segments", day + ".quarantine");
+
+		record(statisticsIO, start, 0, 5);
+		check(statisticsIO.recoverStatistics() == 0, "Whole attempts were set aside");
+		record(statisticsIO, start, 5, 3);
+		long wholeLength = Files.size(segment);
+		check(wholeLength == StatisticsLogIO.HEADER_SIZE + 8 * StatisticsLogIO.RECORD_SIZE,
+				"The segment does not hold every attempt");
+
+		// The seventh attempt is damaged, and an eighth was stopped part way
+		long damagedPosition = StatisticsLogIO.HEADER_SIZE + 6L * StatisticsLogIO.RECORD_SIZE;
+		byte[] damaged = Arrays.copyOfRange(Files.readAllBytes(segment), (int) damagedPosition,
+				(int) damagedPosition + StatisticsLogIO.RECORD_SIZE);
+		damaged[StatisticsLogIO.SCORE_POSITION] ^= 0x40;
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(damagedPosition);
+			file.write(damaged);
+		}
+		Files.write(segment, new byte[13], StandardOpenOption.APPEND);
+		Path dictionary = Paths.get(filepath + ".dictionary");
+		Files.write(dictionary, "WORD 99 tor".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		Path manifest = Paths.get(filepath + ".segments", "manifest");
+		Files.write(manifest, "2099-01".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		check(statisticsIO.recoverStatistics() == 1, "The damaged attempt was not the only one set aside");
+		check(Files.size(segment) == wholeLength - StatisticsLogIO.RECORD_SIZE,
+				"The segment does not hold just the whole attempts");
+		check(Arrays.equals(Files.readAllBytes(quarantine), damaged),
+				"The quarantine file does not hold the damaged attempt as it was");
+		check(new String(Files.readAllBytes(dictionary), StandardCharsets.UTF_8).endsWith("\n"),
+				"The dictionary still ends part way through a line");
+		check(new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8).endsWith("\n"),
+				"The manifest still ends part way through a line");
+		check(day.equals(statisticsIO.getLastSegmentDay()), "The manifest lists a day it should not");
+
+		ArrayList<String> words = new ArrayList<>();
+		statisticsIO.query(new StatisticsQuery(), (epochSecond, offsetSeconds, word, wordList, answerStatus, count,
+				latencyMillis) -> words.add(word));
+		check(words.equals(Arrays.asList("whero", "kakariki", "kowhai", "mangu", "ma", "whero", "kowhai")),
+				"The attempts left read as " + words);
+
+		// Recording carries on after the attempts that are left
+		record(statisticsIO, start, 8, 2);
+		check(Files.size(segment) == wholeLength + StatisticsLogIO.RECORD_SIZE,
+				"New attempts were not added after the whole attempts");
+		check(statisticsIO.recoverStatistics() == 0, "Attempts added after recovery were set aside");
+		checkTotalsMatchRecount(statisticsIO);
+	}
+
+	/**
+	 * Helper method to record attempts a minute apart, cycling through the words
+	 * and answer statuses.
+	 */
+	private static void record(StatisticsIO statisticsIO, OffsetDateTime start, int first, int count) {
+		AnswerStatus[] answerStatuses = { AnswerStatus.MASTERED, AnswerStatus.FAULTED, AnswerStatus.FAILED };
+		ArrayList<SpellingAttempt> attempts = new ArrayList<>();
+		for (int i = first; i < first + count; i++) {
+			attempts.add(new SpellingAttempt(start.plusMinutes(i), WORDS[i % WORDS.length], TOPIC,
+					answerStatuses[i % answerStatuses.length], 1, 100 * i));
+		}
+		check(statisticsIO.recordWordSpellings(attempts) == count, "Attempts were not recorded");
+	}
+
+	private static void checkTotalsMatchRecount(StatisticsIO statisticsIO) {
+		VocabularyStatistics totals = statisticsIO.getAggregates().getVocabularyStatistics(TOPIC);
+		VocabularyStatistics counted = statisticsIO.countAttempts(null).getVocabularyStatistics(TOPIC);
+		check(totals.getWords().equals(counted.getWords()), "The running totals have different words");
+		for (String word : counted.getWords()) {
+			check(totals.getMastered(word) == counted.getMastered(word)
+					&& totals.getFaulted(word) == counted.getFaulted(word)
+					&& totals.getFailed(word) == counted.getFailed(word)
+					&& Objects.equals(totals.getLastAttempt(word), counted.getLastAttempt(word)),
+					"The running totals of " + word + " differ from a recount");
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package fileio;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Helpers shared by the tests of the statistics files. The project has no test
+ * framework, so each test is a class with a main method, placed in the package
+ * of the classes it tests so that it can reach what they keep package-private.
+ * A test stops with an AssertionError at the first check that fails, and
+ * otherwise prints that it passed. The tests are built along with the sources
+ * and run one at a time, such as "java -cp out fileio.StatisticsLogIOTest".
+ */
+final class StatisticsTestSupport {
+
+	private StatisticsTestSupport() {
+	}
+
+	/**
+	 * Makes an empty directory for a test to keep a statistics file in.
+	 *
+	 * @return A String containing the filepath to a statistics file that does not
+	 *         exist yet.
+	 */
+	static String newStatisticsFile() throws IOException {
+		return Files.createTempDirectory("statistics-test").resolve("statistics").toString();
+	}
+
+	/**
+	 * Removes the directory made for a statistics file, along with everything in
+	 * it.
+	 *
+	 * @param filepath A String containing the filepath to the statistics file.
+	 */
+	static void deleteStatisticsFile(String filepath) throws IOException {
+		try (Stream<Path> paths = Files.walk(Paths.get(filepath).getParent())) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * Stops the test if a condition does not hold.
+	 *
+	 * @param condition A boolean that should be true.
+	 * @param message   A String describing what went wrong if it is not.
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	/**
+	 * Shows that a test passed.
+	 *
+	 * @param test The Class object of the test.
+	 */
+	static void pass(Class<?> test) {
+		System.out.println("PASS " + test.getSimpleName());
+	}
+}